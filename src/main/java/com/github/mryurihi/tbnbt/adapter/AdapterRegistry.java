@@ -23,8 +23,8 @@ SOFTWARE.
 */
 package com.github.mryurihi.tbnbt.adapter;
 
-import java.io.DataInputStream;
-import java.io.DataOutputStream;
+import java.io.DataInput;
+import java.io.DataOutput;
 import java.lang.reflect.Type;
 import java.util.Collection;
 import java.util.HashMap;
@@ -173,7 +173,7 @@ public class AdapterRegistry {
 	 * @return the Byte of data
 	 * @throws NBTParseException if there was a parse exception
 	 */
-	public Byte fromByte(DataInputStream payload) throws NBTParseException {
+	public Byte fromByte(DataInput payload) throws NBTParseException {
 		return (Byte) registry.get(Byte.class).fromNBT(TagType.BYTE, payload, new TypeWrapper<Byte>() {}, this);
 	}
 	
@@ -184,7 +184,7 @@ public class AdapterRegistry {
 	 * @param object the byte to read from
 	 * @throws NBTParseException if there was a parse exception
 	 */
-	public void writeByte(DataOutputStream out, byte object) throws NBTParseException {
+	public void writeByte(DataOutput out, byte object) throws NBTParseException {
 		registry.get(Byte.class).toNBT(out, object, new TypeWrapper<Byte>() {}, this);
 	}
 	
@@ -204,7 +204,7 @@ public class AdapterRegistry {
 	 * @return the Short of data
 	 * @throws NBTParseException if there was a parse exception
 	 */
-	public Short fromShort(DataInputStream payload) throws NBTParseException {
+	public Short fromShort(DataInput payload) throws NBTParseException {
 		return (Short) registry.get(Short.class).fromNBT(TagType.SHORT, payload, new TypeWrapper<Short>() {}, this);
 	}
 	
@@ -215,7 +215,7 @@ public class AdapterRegistry {
 	 * @param object the short to read from
 	 * @throws NBTParseException if there was a parse exception
 	 */
-	public void writeShort(DataOutputStream out, short object) throws NBTParseException {
+	public void writeShort(DataOutput out, short object) throws NBTParseException {
 		registry.get(Short.class).toNBT(out, object, new TypeWrapper<Short>() {}, this);
 	}
 	
@@ -235,7 +235,7 @@ public class AdapterRegistry {
 	 * @return the Integer of data
 	 * @throws NBTParseException if there was a parse exception
 	 */
-	public Integer fromInt(DataInputStream payload) throws NBTParseException {
+	public Integer fromInt(DataInput payload) throws NBTParseException {
 		return (Integer) registry.get(Integer.class).fromNBT(TagType.INT, payload, new TypeWrapper<Integer>() {}, this);
 	}
 	
@@ -246,7 +246,7 @@ public class AdapterRegistry {
 	 * @param object the int to read from
 	 * @throws NBTParseException if there was a parse exception
 	 */
-	public void writeInt(DataOutputStream out, int object) throws NBTParseException {
+	public void writeInt(DataOutput out, int object) throws NBTParseException {
 		registry.get(Integer.class).toNBT(out, object, new TypeWrapper<Integer>() {}, this);
 	}
 	
@@ -266,7 +266,7 @@ public class AdapterRegistry {
 	 * @return the Long of data
 	 * @throws NBTParseException if there was a parse exception
 	 */
-	public Long fromLong(DataInputStream payload) throws NBTParseException {
+	public Long fromLong(DataInput payload) throws NBTParseException {
 		return (Long) registry.get(Long.class).fromNBT(TagType.LONG, payload, new TypeWrapper<Long>() {}, this);
 	}
 	
@@ -277,7 +277,7 @@ public class AdapterRegistry {
 	 * @param object the long to read from
 	 * @throws NBTParseException if there was a parse exception
 	 */
-	public void writeLong(DataOutputStream out, long object) throws NBTParseException {
+	public void writeLong(DataOutput out, long object) throws NBTParseException {
 		registry.get(Long.class).toNBT(out, object, new TypeWrapper<Long>() {}, this);
 	}
 	
@@ -297,7 +297,7 @@ public class AdapterRegistry {
 	 * @return the Float of data
 	 * @throws NBTParseException if there was a parse exception
 	 */
-	public Float fromFloat(DataInputStream payload) throws NBTParseException {
+	public Float fromFloat(DataInput payload) throws NBTParseException {
 		return (Float) registry.get(Float.class).fromNBT(TagType.FLOAT, payload, new TypeWrapper<Float>() {}, this);
 	}
 	
@@ -308,7 +308,7 @@ public class AdapterRegistry {
 	 * @param object the float to read from
 	 * @throws NBTParseException if there was a parse exception
 	 */
-	public void writeFloat(DataOutputStream out, float object) throws NBTParseException {
+	public void writeFloat(DataOutput out, float object) throws NBTParseException {
 		registry.get(Float.class).toNBT(out, object, new TypeWrapper<Float>() {}, this);
 	}
 	
@@ -328,7 +328,7 @@ public class AdapterRegistry {
 	 * @return the Double of data
 	 * @throws NBTParseException if there was a parse exception
 	 */
-	public Double fromDouble(DataInputStream payload) throws NBTParseException {
+	public Double fromDouble(DataInput payload) throws NBTParseException {
 		return (Double) registry.get(Double.class).fromNBT(TagType.DOUBLE, payload, new TypeWrapper<Double>() {}, this);
 	}
 	
@@ -339,7 +339,7 @@ public class AdapterRegistry {
 	 * @param object the double to read from
 	 * @throws NBTParseException if there was a parse exception
 	 */
-	public void writeDouble(DataOutputStream out, double object) throws NBTParseException {
+	public void writeDouble(DataOutput out, double object) throws NBTParseException {
 		registry.get(Double.class).toNBT(out, object, new TypeWrapper<Double>() {}, this);
 	}
 	
@@ -359,7 +359,7 @@ public class AdapterRegistry {
 	 * @return the Byte[] of data
 	 * @throws NBTParseException if there was a parse exception
 	 */
-	public Byte[] fromByteArray(DataInputStream payload) throws NBTParseException {
+	public Byte[] fromByteArray(DataInput payload) throws NBTParseException {
 		return (Byte[]) registry.get(Byte[].class)
 			.fromNBT(TagType.BYTE_ARRAY, payload, new TypeWrapper<Byte[]>() {}, this);
 	}
@@ -371,7 +371,7 @@ public class AdapterRegistry {
 	 * @param object the Byte[] to read from
 	 * @throws NBTParseException if there was a parse exception
 	 */
-	public void writeByteArray(DataOutputStream out, Byte[] object) throws NBTParseException {
+	public void writeByteArray(DataOutput out, Byte[] object) throws NBTParseException {
 		registry.get(Byte[].class).toNBT(out, object, new TypeWrapper<Byte[]>() {}, this);
 	}
 	
@@ -391,7 +391,7 @@ public class AdapterRegistry {
 	 * @return the String of data
 	 * @throws NBTParseException if there was a parse exception
 	 */
-	public String fromString(DataInputStream payload) throws NBTParseException {
+	public String fromString(DataInput payload) throws NBTParseException {
 		return (String) registry.get(String.class).fromNBT(TagType.STRING, payload, new TypeWrapper<String>() {}, this);
 	}
 	
@@ -402,7 +402,7 @@ public class AdapterRegistry {
 	 * @param object the String to read from
 	 * @throws NBTParseException if there was a parse exception
 	 */
-	public void writeString(DataOutputStream out, String object) throws NBTParseException {
+	public void writeString(DataOutput out, String object) throws NBTParseException {
 		registry.get(String.class).toNBT(out, object, new TypeWrapper<String>() {}, this);
 	}
 	
@@ -422,7 +422,7 @@ public class AdapterRegistry {
 	 * @return the Integer[] of data
 	 * @throws NBTParseException if there was a parse exception
 	 */
-	public Integer[] fromIntArray(DataInputStream payload) throws NBTParseException {
+	public Integer[] fromIntArray(DataInput payload) throws NBTParseException {
 		return (Integer[]) registry.get(Integer[].class)
 			.fromNBT(TagType.INT_ARRAY, payload, new TypeWrapper<Integer[]>() {}, this);
 	}
@@ -434,7 +434,7 @@ public class AdapterRegistry {
 	 * @param object the Integer[] to read from
 	 * @throws NBTParseException if there was a parse exception
 	 */
-	public void writeIntArray(DataOutputStream out, Integer[] object) throws NBTParseException {
+	public void writeIntArray(DataOutput out, Integer[] object) throws NBTParseException {
 		registry.get(Integer[].class).toNBT(out, object, new TypeWrapper<Integer[]>() {}, this);
 	}
 	
@@ -454,7 +454,7 @@ public class AdapterRegistry {
 	 * @return the Long[] of data
 	 * @throws NBTParseException if there was a parse exception
 	 */
-	public Long[] fromLongArray(DataInputStream payload) throws NBTParseException {
+	public Long[] fromLongArray(DataInput payload) throws NBTParseException {
 		return (Long[]) registry.get(Long[].class)
 			.fromNBT(TagType.LONG_ARRAY, payload, new TypeWrapper<Long[]>() {}, this);
 	}
@@ -466,7 +466,7 @@ public class AdapterRegistry {
 	 * @param object the Long[] to read from
 	 * @throws NBTParseException if there was a parse exception
 	 */
-	public void writeLongArray(DataOutputStream out, Long[] object) throws NBTParseException {
+	public void writeLongArray(DataOutput out, Long[] object) throws NBTParseException {
 		registry.get(Long[].class).toNBT(out, object, new TypeWrapper<Long[]>() {}, this);
 	}
 	
@@ -23,8 +23,8 @@ SOFTWARE.
 */
 package com.github.mryurihi.tbnbt.adapter;
 
-import java.io.DataInputStream;
-import java.io.DataOutputStream;
+import java.io.DataInput;
+import java.io.DataOutput;
 
 import com.github.mryurihi.tbnbt.TagType;
 
@@ -43,7 +43,7 @@ public abstract class NBTAdapter<T> {
 	 */
 	public abstract T fromNBT(
 		TagType id,
-		DataInputStream payload,
+		DataInput payload,
 		TypeWrapper<?> type,
 		AdapterRegistry registry
 	) throws NBTParseException;
@@ -59,7 +59,7 @@ public abstract class NBTAdapter<T> {
 	 * @throws NBTParseException of there is an exception parsing
 	 */
 	public abstract void toNBT(
-		DataOutputStream out,
+		DataOutput out,
 		Object object,
 		TypeWrapper<?> type,
 		AdapterRegistry registry
@@ -23,8 +23,8 @@ SOFTWARE.
 */
 package com.github.mryurihi.tbnbt.adapter.impl;
 
-import java.io.DataInputStream;
-import java.io.DataOutputStream;
+import java.io.DataInput;
+import java.io.DataOutput;
 
 import com.github.mryurihi.tbnbt.TagType;
 import com.github.mryurihi.tbnbt.adapter.AdapterRegistry;
@@ -61,7 +61,7 @@ public class ArrayAdapterFactory implements NBTAdapterFactory {
 		@Override
 		public T[] fromNBT(
 			TagType id,
-			DataInputStream payload,
+			DataInput payload,
 			TypeWrapper<?> type,
 			AdapterRegistry registry
 		) throws NBTParseException {
@@ -79,7 +79,7 @@ public class ArrayAdapterFactory implements NBTAdapterFactory {
 		
 		@Override
 		public void toNBT(
-			DataOutputStream out,
+			DataOutput out,
 			Object object,
 			TypeWrapper<?> type,
 			AdapterRegistry registry
@@ -23,51 +23,62 @@ SOFTWARE.
 */
 package com.github.mryurihi.tbnbt.adapter.impl;
 
-import java.io.DataInputStream;
-import java.io.DataOutputStream;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 
 import com.github.mryurihi.tbnbt.TagType;
 import com.github.mryurihi.tbnbt.adapter.AdapterRegistry;
 import com.github.mryurihi.tbnbt.adapter.NBTAdapter;
 import com.github.mryurihi.tbnbt.adapter.NBTParseException;
 import com.github.mryurihi.tbnbt.adapter.TypeWrapper;
+import com.github.mryurihi.tbnbt.stream.NBTArrays;
 
 public class ByteArrayAdapter extends NBTAdapter<Byte[]> {
 	
 	@Override
 	public Byte[] fromNBT(
 		TagType id,
-		DataInputStream payload,
+		DataInput payload,
 		TypeWrapper<?> type,
 		AdapterRegistry registry
 	) throws NBTParseException {
 		if(
 			!id.equals(TagType.BYTE_ARRAY)
 		) throw new NBTParseException(String.format("id %s does not match required id 7", id.getId()));
-		Byte[] out = new Byte[(Integer) registry.getIntAdapter().fromNBT(TagType.INT, payload, null, registry)];
-		for(int i = 0; i < out.length; i++) {
-			out[i] = (Byte) registry.fromByte(payload);
+		byte[] values;
+		try {
+			values = NBTArrays.readByteArray(payload);
+		} catch(IOException e) {
+			throw new NBTParseException(e);
 		}
+		Byte[] out = new Byte[values.length];
+		for(int i = 0; i < out.length; i++)
+			out[i] = values[i];
 		return out;
 	}
 	
 	@Override
 	public void toNBT(
-		DataOutputStream out,
+		DataOutput out,
 		Object object,
 		TypeWrapper<?> type,
 		AdapterRegistry registry
 	) throws NBTParseException {
-		Byte[] byteArr;
-		if(object instanceof byte[]) {
-			byteArr = new Byte[((byte[]) object).length];
-			for(int i = 0; i < byteArr.length; i++) {
-				byteArr[i] = ((byte[]) object)[i];
-			}
-		} else byteArr = (Byte[]) object;
-		registry.writeInt(out, byteArr.length);
-		for(Byte b: byteArr)
-			registry.writeByte(out, b);
+		byte[] values;
+		if(object instanceof byte[]) values = (byte[]) object;
+		else {
+			Byte[] boxed = (Byte[]) object;
+			values = new byte[boxed.length];
+			for(int i = 0; i < values.length; i++)
+				values[i] = boxed[i];
+		}
+		try {
+			out.writeInt(values.length);
+			out.write(values);
+		} catch(IOException e) {
+			throw new NBTParseException(e);
+		}
 	}
 	
 	@Override
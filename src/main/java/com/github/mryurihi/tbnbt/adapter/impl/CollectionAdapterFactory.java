@@ -23,8 +23,8 @@ SOFTWARE.
 */
 package com.github.mryurihi.tbnbt.adapter.impl;
 
-import java.io.DataInputStream;
-import java.io.DataOutputStream;
+import java.io.DataInput;
+import java.io.DataOutput;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.ParameterizedType;
 import java.util.Collection;
@@ -61,7 +61,7 @@ public class CollectionAdapterFactory implements NBTAdapterFactory {
 		@Override
 		public Collection<E> fromNBT(
 			TagType id,
-			DataInputStream payload,
+			DataInput payload,
 			TypeWrapper<?> type,
 			AdapterRegistry registry
 		) throws NBTParseException {
@@ -83,7 +83,7 @@ public class CollectionAdapterFactory implements NBTAdapterFactory {
 		@SuppressWarnings("unchecked")
 		@Override
 		public void toNBT(
-			DataOutputStream out,
+			DataOutput out,
 			Object object,
 			TypeWrapper<?> type,
 			AdapterRegistry registry
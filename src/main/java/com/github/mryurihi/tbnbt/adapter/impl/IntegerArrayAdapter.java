@@ -23,51 +23,63 @@ SOFTWARE.
 */
 package com.github.mryurihi.tbnbt.adapter.impl;
 
-import java.io.DataInputStream;
-import java.io.DataOutputStream;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.IntBuffer;
 
 import com.github.mryurihi.tbnbt.TagType;
 import com.github.mryurihi.tbnbt.adapter.AdapterRegistry;
 import com.github.mryurihi.tbnbt.adapter.NBTAdapter;
 import com.github.mryurihi.tbnbt.adapter.NBTParseException;
 import com.github.mryurihi.tbnbt.adapter.TypeWrapper;
+import com.github.mryurihi.tbnbt.stream.NBTArrays;
 
 public class IntegerArrayAdapter extends NBTAdapter<Integer[]> {
 	
 	@Override
 	public Integer[] fromNBT(
 		TagType id,
-		DataInputStream payload,
+		DataInput payload,
 		TypeWrapper<?> type,
 		AdapterRegistry registry
 	) throws NBTParseException {
 		if(
 			!id.equals(TagType.INT_ARRAY)
 		) throw new NBTParseException(String.format("id %s does not match required id 11", id.getId()));
-		Integer[] out = new Integer[(Integer) registry.getIntAdapter().fromNBT(TagType.INT, payload, null, registry)];
-		for(int i = 0; i < out.length; i++) {
-			out[i] = (Integer) registry.getIntAdapter().fromNBT(TagType.INT, payload, null, registry);
+		int[] values;
+		try {
+			values = NBTArrays.readIntArray(payload);
+		} catch(IOException e) {
+			throw new NBTParseException(e);
 		}
+		Integer[] out = new Integer[values.length];
+		for(int i = 0; i < out.length; i++)
+			out[i] = values[i];
 		return out;
 	}
 	
 	@Override
 	public void toNBT(
-		DataOutputStream out,
+		DataOutput out,
 		Object object,
 		TypeWrapper<?> type,
 		AdapterRegistry registry
 	) throws NBTParseException {
-		Integer[] intArr;
-		if(object instanceof int[]) {
-			intArr = new Integer[((int[]) object).length];
-			for(int i = 0; i < intArr.length; i++) {
-				intArr[i] = ((int[]) object)[i];
-			}
-		} else intArr = (Integer[]) object;
-		registry.writeInt(out, intArr.length);
-		for(Integer b: intArr)
-			registry.writeInt(out, b);
+		int[] values;
+		if(object instanceof int[]) values = (int[]) object;
+		else {
+			Integer[] boxed = (Integer[]) object;
+			values = new int[boxed.length];
+			for(int i = 0; i < values.length; i++)
+				values[i] = boxed[i];
+		}
+		try {
+			out.writeInt(values.length);
+			NBTArrays.write(out, IntBuffer.wrap(values));
+		} catch(IOException e) {
+			throw new NBTParseException(e);
+		}
 	}
 	
 	@Override
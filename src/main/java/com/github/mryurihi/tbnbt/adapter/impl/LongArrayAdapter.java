@@ -23,51 +23,63 @@ SOFTWARE.
 */
 package com.github.mryurihi.tbnbt.adapter.impl;
 
-import java.io.DataInputStream;
-import java.io.DataOutputStream;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.LongBuffer;
 
 import com.github.mryurihi.tbnbt.TagType;
 import com.github.mryurihi.tbnbt.adapter.AdapterRegistry;
 import com.github.mryurihi.tbnbt.adapter.NBTAdapter;
 import com.github.mryurihi.tbnbt.adapter.NBTParseException;
 import com.github.mryurihi.tbnbt.adapter.TypeWrapper;
+import com.github.mryurihi.tbnbt.stream.NBTArrays;
 
 public class LongArrayAdapter extends NBTAdapter<Long[]> {
 	
 	@Override
 	public Long[] fromNBT(
 		TagType id,
-		DataInputStream payload,
+		DataInput payload,
 		TypeWrapper<?> type,
 		AdapterRegistry registry
 	) throws NBTParseException {
 		if(
 			!id.equals(TagType.LONG_ARRAY)
 		) throw new NBTParseException(String.format("id %s does not match required id 12", id.getId()));
-		Long[] out = new Long[(Integer) registry.getIntAdapter().fromNBT(TagType.LONG, payload, null, registry)];
-		for(int i = 0; i < out.length; i++) {
-			out[i] = (Long) registry.getLongAdapter().fromNBT(TagType.LONG, payload, null, registry);
+		long[] values;
+		try {
+			values = NBTArrays.readLongArray(payload);
+		} catch(IOException e) {
+			throw new NBTParseException(e);
 		}
+		Long[] out = new Long[values.length];
+		for(int i = 0; i < out.length; i++)
+			out[i] = values[i];
 		return out;
 	}
 	
 	@Override
 	public void toNBT(
-		DataOutputStream out,
+		DataOutput out,
 		Object object,
 		TypeWrapper<?> type,
 		AdapterRegistry registry
 	) throws NBTParseException {
-		Long[] longArr;
-		if(object instanceof long[]) {
-			longArr = new Long[((long[]) object).length];
-			for(int i = 0; i < longArr.length; i++) {
-				longArr[i] = ((long[]) object)[i];
-			}
-		} else longArr = (Long[]) object;
-		registry.writeInt(out, longArr.length);
-		for(Long b: longArr)
-			registry.writeLong(out, b);
+		long[] values;
+		if(object instanceof long[]) values = (long[]) object;
+		else {
+			Long[] boxed = (Long[]) object;
+			values = new long[boxed.length];
+			for(int i = 0; i < values.length; i++)
+				values[i] = boxed[i];
+		}
+		try {
+			out.writeInt(values.length);
+			NBTArrays.write(out, LongBuffer.wrap(values));
+		} catch(IOException e) {
+			throw new NBTParseException(e);
+		}
 	}
 	
 	@Override
@@ -23,8 +23,8 @@ SOFTWARE.
 */
 package com.github.mryurihi.tbnbt.adapter.impl;
 
-import java.io.DataInputStream;
-import java.io.DataOutputStream;
+import java.io.DataInput;
+import java.io.DataOutput;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.ParameterizedType;
 import java.util.Map;
@@ -61,7 +61,7 @@ public class MapAdapterFactory implements NBTAdapterFactory {
 		@Override
 		public Map<String, E> fromNBT(
 			TagType id,
-			DataInputStream payload,
+			DataInput payload,
 			TypeWrapper<?> type,
 			AdapterRegistry registry
 		) throws NBTParseException {
@@ -86,7 +86,7 @@ public class MapAdapterFactory implements NBTAdapterFactory {
 		
 		@Override
 		public void toNBT(
-			DataOutputStream out,
+			DataOutput out,
 			Object object,
 			TypeWrapper<?> type,
 			AdapterRegistry registry
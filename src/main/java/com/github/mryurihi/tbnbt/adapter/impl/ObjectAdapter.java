@@ -23,8 +23,8 @@ SOFTWARE.
 */
 package com.github.mryurihi.tbnbt.adapter.impl;
 
-import java.io.DataInputStream;
-import java.io.DataOutputStream;
+import java.io.DataInput;
+import java.io.DataOutput;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
 
@@ -34,13 +34,14 @@ import com.github.mryurihi.tbnbt.adapter.NBTAdapter;
 import com.github.mryurihi.tbnbt.adapter.NBTParseException;
 import com.github.mryurihi.tbnbt.adapter.TypeWrapper;
 import com.github.mryurihi.tbnbt.annotations.SerializedName;
+import com.github.mryurihi.tbnbt.tag.NBTTag;
 
 public class ObjectAdapter extends NBTAdapter<Object> {
 	
 	@Override
 	public Object fromNBT(
 		TagType id,
-		DataInputStream payload,
+		DataInput payload,
 		TypeWrapper<?> type,
 		AdapterRegistry registry
 	) throws NBTParseException {
@@ -67,7 +68,11 @@ public class ObjectAdapter extends NBTAdapter<Object> {
 							objField = f;
 						}
 					}
-					if(objField == null) continue fieldSearch;
+					if(objField == null) {
+						NBTTag.skipPayload(TagType.getTypeById(nextTagType), payload);
+						nextTagType = payload.readByte();
+						continue fieldSearch;
+					}
 				}
 				objField.setAccessible(true);
 				
@@ -87,7 +92,7 @@ public class ObjectAdapter extends NBTAdapter<Object> {
 	
 	@Override
 	public void toNBT(
-		DataOutputStream out,
+		DataOutput out,
 		Object object,
 		TypeWrapper<?> type,
 		AdapterRegistry registry
@@ -23,8 +23,9 @@ SOFTWARE.
 */
 package com.github.mryurihi.tbnbt.adapter.impl;
 
-import java.io.DataInputStream;
-import java.io.DataOutputStream;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 
 import com.github.mryurihi.tbnbt.TagType;
 import com.github.mryurihi.tbnbt.adapter.AdapterRegistry;
@@ -37,34 +38,30 @@ public class StringAdapter extends NBTAdapter<String> {
 	@Override
 	public String fromNBT(
 		TagType id,
-		DataInputStream payload,
+		DataInput payload,
 		TypeWrapper<?> type,
 		AdapterRegistry registry
 	) throws NBTParseException {
 		if(
 			!id.equals(TagType.STRING)
 		) throw new NBTParseException(String.format("id %s does not match required id 8", id.getId()));
-		short length = (short) registry.fromShort(payload);
-		byte[] out = new byte[length];
-		for(int i = 0; i < length; i++) {
-			out[i] = (byte) registry.fromByte(payload);
+		try {
+			return payload.readUTF();
+		} catch(IOException e) {
+			throw new NBTParseException(e);
 		}
-		return new String(out);
 	}
 	
 	@Override
 	public void toNBT(
-		DataOutputStream out,
+		DataOutput out,
 		Object object,
 		TypeWrapper<?> type,
 		AdapterRegistry registry
 	) throws NBTParseException {
-		String string = (String) object;
 		try {
-			registry.getShortAdapter().toNBT(out, (short) string.length(), null, registry);
-			for(byte b: string.getBytes())
-				out.writeByte(b);
-		} catch(Exception e) {
+			out.writeUTF((String) object);
+		} catch(IOException e) {
 			throw new NBTParseException(e);
 		}
 	}
@@ -23,40 +23,49 @@ SOFTWARE.
 */
 package com.github.mryurihi.tbnbt.adapter.impl.primitive;
 
-import java.io.DataInputStream;
-import java.io.DataOutputStream;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 
 import com.github.mryurihi.tbnbt.TagType;
 import com.github.mryurihi.tbnbt.adapter.AdapterRegistry;
 import com.github.mryurihi.tbnbt.adapter.NBTAdapter;
 import com.github.mryurihi.tbnbt.adapter.NBTParseException;
 import com.github.mryurihi.tbnbt.adapter.TypeWrapper;
-import com.github.mryurihi.tbnbt.adapter.impl.ByteArrayAdapter;
+import com.github.mryurihi.tbnbt.stream.NBTArrays;
 
 public class PrimitiveByteArrayAdapter extends NBTAdapter<byte[]> {
 	
 	@Override
 	public byte[] fromNBT(
 		TagType id,
-		DataInputStream payload,
+		DataInput payload,
 		TypeWrapper<?> type,
 		AdapterRegistry registry
 	) throws NBTParseException {
-		Byte[] intArr = new ByteArrayAdapter().fromNBT(id, payload, type, registry);
-		byte[] out = new byte[intArr.length];
-		for(int i = 0; i < intArr.length; i++)
-			out[i] = (byte) intArr[i];
-		return out;
+		if(
+			!id.equals(TagType.BYTE_ARRAY)
+		) throw new NBTParseException(String.format("id %s does not match required id 7", id.getId()));
+		try {
+			return NBTArrays.readByteArray(payload);
+		} catch(IOException e) {
+			throw new NBTParseException(e);
+		}
 	}
 	
 	@Override
 	public void toNBT(
-		DataOutputStream out,
+		DataOutput out,
 		Object object,
 		TypeWrapper<?> type,
 		AdapterRegistry registry
 	) throws NBTParseException {
-		new ByteArrayAdapter().toNBT(out, object, new TypeWrapper<byte[]>() {}, registry);
+		try {
+			out.writeInt(((byte[]) object).length);
+			out.write((byte[]) object);
+		} catch(IOException e) {
+			throw new NBTParseException(e);
+		}
 	}
 	
 	@Override
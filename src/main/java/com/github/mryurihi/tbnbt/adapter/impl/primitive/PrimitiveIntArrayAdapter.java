@@ -23,40 +23,50 @@ SOFTWARE.
 */
 package com.github.mryurihi.tbnbt.adapter.impl.primitive;
 
-import java.io.DataInputStream;
-import java.io.DataOutputStream;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.IntBuffer;
 
 import com.github.mryurihi.tbnbt.TagType;
 import com.github.mryurihi.tbnbt.adapter.AdapterRegistry;
 import com.github.mryurihi.tbnbt.adapter.NBTAdapter;
 import com.github.mryurihi.tbnbt.adapter.NBTParseException;
 import com.github.mryurihi.tbnbt.adapter.TypeWrapper;
-import com.github.mryurihi.tbnbt.adapter.impl.IntegerArrayAdapter;
+import com.github.mryurihi.tbnbt.stream.NBTArrays;
 
 public class PrimitiveIntArrayAdapter extends NBTAdapter<int[]> {
 	
 	@Override
 	public int[] fromNBT(
 		TagType id,
-		DataInputStream payload,
+		DataInput payload,
 		TypeWrapper<?> type,
 		AdapterRegistry registry
 	) throws NBTParseException {
-		Integer[] intArr = new IntegerArrayAdapter().fromNBT(id, payload, type, registry);
-		int[] out = new int[intArr.length];
-		for(int i = 0; i < intArr.length; i++)
-			out[i] = (int) intArr[i];
-		return out;
+		if(
+			!id.equals(TagType.INT_ARRAY)
+		) throw new NBTParseException(String.format("id %s does not match required id 11", id.getId()));
+		try {
+			return NBTArrays.readIntArray(payload);
+		} catch(IOException e) {
+			throw new NBTParseException(e);
+		}
 	}
 	
 	@Override
 	public void toNBT(
-		DataOutputStream out,
+		DataOutput out,
 		Object object,
 		TypeWrapper<?> type,
 		AdapterRegistry registry
 	) throws NBTParseException {
-		new IntegerArrayAdapter().toNBT(out, object, new TypeWrapper<Integer[]>() {}, registry);
+		try {
+			out.writeInt(((int[]) object).length);
+			NBTArrays.write(out, IntBuffer.wrap((int[]) object));
+		} catch(IOException e) {
+			throw new NBTParseException(e);
+		}
 	}
 	
 	@Override
@@ -23,40 +23,50 @@ SOFTWARE.
 */
 package com.github.mryurihi.tbnbt.adapter.impl.primitive;
 
-import java.io.DataInputStream;
-import java.io.DataOutputStream;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.LongBuffer;
 
 import com.github.mryurihi.tbnbt.TagType;
 import com.github.mryurihi.tbnbt.adapter.AdapterRegistry;
 import com.github.mryurihi.tbnbt.adapter.NBTAdapter;
 import com.github.mryurihi.tbnbt.adapter.NBTParseException;
 import com.github.mryurihi.tbnbt.adapter.TypeWrapper;
-import com.github.mryurihi.tbnbt.adapter.impl.LongArrayAdapter;
+import com.github.mryurihi.tbnbt.stream.NBTArrays;
 
 public class PrimitiveLongArrayAdapter extends NBTAdapter<long[]> {
 	
 	@Override
 	public long[] fromNBT(
 		TagType id,
-		DataInputStream payload,
+		DataInput payload,
 		TypeWrapper<?> type,
 		AdapterRegistry registry
 	) throws NBTParseException {
-		Long[] longArr = new LongArrayAdapter().fromNBT(id, payload, type, registry);
-		long[] out = new long[longArr.length];
-		for(int i = 0; i < longArr.length; i++)
-			out[i] = (long) longArr[i];
-		return out;
+		if(
+			!id.equals(TagType.LONG_ARRAY)
+		) throw new NBTParseException(String.format("id %s does not match required id 12", id.getId()));
+		try {
+			return NBTArrays.readLongArray(payload);
+		} catch(IOException e) {
+			throw new NBTParseException(e);
+		}
 	}
 	
 	@Override
 	public void toNBT(
-		DataOutputStream out,
+		DataOutput out,
 		Object object,
 		TypeWrapper<?> type,
 		AdapterRegistry registry
 	) throws NBTParseException {
-		new LongArrayAdapter().toNBT(out, object, new TypeWrapper<Long[]>() {}, registry);
+		try {
+			out.writeInt(((long[]) object).length);
+			NBTArrays.write(out, LongBuffer.wrap((long[]) object));
+		} catch(IOException e) {
+			throw new NBTParseException(e);
+		}
 	}
 	
 	@Override
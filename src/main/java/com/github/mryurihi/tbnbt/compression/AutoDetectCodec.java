@@ -0,0 +1,117 @@
+/*
+MIT License
+
+Copyright (c) 2017 MrYurihi Redstone
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package com.github.mryurihi.tbnbt.compression;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PushbackInputStream;
+import java.util.zip.Deflater;
+
+import com.github.mryurihi.tbnbt.TagType;
+
+/**
+ * A codec that detects how data is compressed by looking at its first two
+ * bytes, so GZIP, zlib and uncompressed data can all be read with the same
+ * codec without reading anything twice. Data is detected as
+ * <ul>
+ * <li>GZIP if it starts with the GZIP magic number {@code 1f 8b}</li>
+ * <li>uncompressed if it starts with a tag id</li>
+ * <li>zlib if it starts with a valid zlib header</li>
+ * <li>raw deflate otherwise</li>
+ * </ul>
+ * The only zlib headers that start with a tag id are those with the method
+ * byte {@code 08}, which asks for a window of 256 bytes. zlib itself never
+ * writes such a header, so these are read as uncompressed string tags.
+ * Data written with this codec is compressed with GZIP.
+ */
+public class AutoDetectCodec implements CompressionCodec {
+	
+	private final CompressionCodec gzip;
+	
+	private final CompressionCodec zlib;
+	
+	private final CompressionCodec deflate;
+	
+	/**
+	 * Creates a codec with the default compression level and buffer size
+	 */
+	public AutoDetectCodec() {
+		this(Deflater.DEFAULT_COMPRESSION, ZlibCodec.DEFAULT_BUFFER_SIZE);
+	}
+	
+	/**
+	 * Creates a codec
+	 * 
+	 * @param level the compression level used when writing
+	 * @param bufferSize the size of the buffers used for compressed data
+	 */
+	public AutoDetectCodec(int level, int bufferSize) {
+		this(level, bufferSize, null);
+	}
+	
+	/**
+	 * Creates a codec that borrows its inflaters, deflaters and buffers from a
+	 * pool
+	 * 
+	 * @param level the compression level used when writing
+	 * @param bufferSize the size of the buffers used for compressed data
+	 * @param pool the pool to borrow from, or null to create new ones for each
+	 *            stream
+	 */
+	public AutoDetectCodec(int level, int bufferSize, CodecPool pool) {
+		this.gzip = new GzipCodec(level, bufferSize, pool);
+		this.zlib = new ZlibCodec(level, bufferSize, pool);
+		this.deflate = new DeflateCodec(level, bufferSize, pool);
+	}
+	
+	/**
+	 * Detects the codec of data from its first two bytes
+	 * 
+	 * @param first the first byte, or -1 if the data is empty
+	 * @param second the second byte, or -1 if the data is only one byte long
+	 * @return the codec that can read the data
+	 */
+	public CompressionCodec detect(int first, int second) {
+		if(first == 0x1f && second == 0x8b) return gzip;
+		if(first <= TagType.LONG_ARRAY.getId()) return NONE;
+		if(second >= 0 && (first & 0x0F) == 8 && (first >> 4) <= 7 && ((first << 8) | second) % 31 == 0) return zlib;
+		return deflate;
+	}
+	
+	@Override
+	public InputStream decompress(InputStream in) throws IOException {
+		PushbackInputStream pushback = new PushbackInputStream(in, 2);
+		int first = pushback.read();
+		int second = first < 0? -1: pushback.read();
+		if(second >= 0) pushback.unread(second);
+		if(first >= 0) pushback.unread(first);
+		return detect(first, second).decompress(pushback);
+	}
+	
+	@Override
+	public OutputStream compress(OutputStream out) throws IOException {
+		return gzip.compress(out);
+	}
+}
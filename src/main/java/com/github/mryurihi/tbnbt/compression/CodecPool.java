@@ -0,0 +1,241 @@
+/*
+MIT License
+
+Copyright (c) 2017 MrYurihi Redstone
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package com.github.mryurihi.tbnbt.compression;
+
+import java.util.Deque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * A thread safe pool of {@link Inflater}s, {@link Deflater}s and buffers.
+ * Codecs created with a pool borrow these when a stream is opened and return
+ * them when it is closed, so opening many small streams does not allocate new
+ * native zlib state and buffers for each one. Streams that are never closed do
+ * not return anything to the pool.<br>
+ * <br>
+ * The pool keeps at most a fixed amount of idle objects of each kind, anything
+ * returned beyond that is released. The counters show how often objects were
+ * created and how often they were reused.
+ */
+public class CodecPool {
+	
+	private final int maxIdle;
+	
+	private final Pool<Inflater> inflaters = new Pool<>();
+	private final Pool<Inflater> rawInflaters = new Pool<>();
+	private final Pool<Deflater> deflaters = new Pool<>();
+	private final Pool<Deflater> rawDeflaters = new Pool<>();
+	
+	private final ConcurrentMap<Integer, Pool<byte[]>> buffers = new ConcurrentHashMap<>();
+	
+	private final LongAdder inflatersCreated = new LongAdder();
+	private final LongAdder inflatersReused = new LongAdder();
+	private final LongAdder deflatersCreated = new LongAdder();
+	private final LongAdder deflatersReused = new LongAdder();
+	private final LongAdder buffersCreated = new LongAdder();
+	private final LongAdder buffersReused = new LongAdder();
+	
+	/**
+	 * Creates a pool that keeps up to 64 idle objects of each kind
+	 */
+	public CodecPool() {
+		this(64);
+	}
+	
+	/**
+	 * Creates a pool
+	 * 
+	 * @param maxIdle the maximum amount of idle objects of each kind to keep
+	 */
+	public CodecPool(int maxIdle) {
+		if(maxIdle < 0) throw new IllegalArgumentException("Illegal idle limit " + maxIdle);
+		this.maxIdle = maxIdle;
+	}
+	
+	/**
+	 * Borrows an inflater. It has to be given back with
+	 * {@link #returnInflater(Inflater, boolean)}.
+	 * 
+	 * @param nowrap if the inflater reads raw deflate data without a zlib header
+	 * @return the inflater
+	 */
+	public Inflater borrowInflater(boolean nowrap) {
+		Inflater inflater = (nowrap? rawInflaters: inflaters).poll();
+		if(inflater != null) inflatersReused.increment();
+		else {
+			inflatersCreated.increment();
+			inflater = new Inflater(nowrap);
+		}
+		return inflater;
+	}
+	
+	/**
+	 * Gives back an inflater that was borrowed from this pool
+	 * 
+	 * @param inflater the inflater
+	 * @param nowrap the value it was borrowed with
+	 */
+	public void returnInflater(Inflater inflater, boolean nowrap) {
+		inflater.reset();
+		if(!(nowrap? rawInflaters: inflaters).offer(inflater, maxIdle)) inflater.end();
+	}
+	
+	/**
+	 * Borrows a deflater. It has to be given back with
+	 * {@link #returnDeflater(Deflater, boolean)}.
+	 * 
+	 * @param level the compression level
+	 * @param nowrap if the deflater writes raw deflate data without a zlib header
+	 * @return the deflater
+	 */
+	public Deflater borrowDeflater(int level, boolean nowrap) {
+		Deflater deflater = (nowrap? rawDeflaters: deflaters).poll();
+		if(deflater != null) {
+			deflatersReused.increment();
+			deflater.setLevel(level);
+		} else {
+			deflatersCreated.increment();
+			deflater = new Deflater(level, nowrap);
+		}
+		return deflater;
+	}
+	
+	/**
+	 * Gives back a deflater that was borrowed from this pool
+	 * 
+	 * @param deflater the deflater
+	 * @param nowrap the value it was borrowed with
+	 */
+	public void returnDeflater(Deflater deflater, boolean nowrap) {
+		deflater.reset();
+		if(!(nowrap? rawDeflaters: deflaters).offer(deflater, maxIdle)) deflater.end();
+	}
+	
+	/**
+	 * Borrows a buffer. It has to be given back with
+	 * {@link #returnBuffer(byte[])}.
+	 * 
+	 * @param size the size of the buffer
+	 * @return the buffer, its content is undefined
+	 */
+	public byte[] borrowBuffer(int size) {
+		Pool<byte[]> pool = buffers.get(size);
+		byte[] buffer = pool == null? null: pool.poll();
+		if(buffer != null) buffersReused.increment();
+		else {
+			buffersCreated.increment();
+			buffer = new byte[size];
+		}
+		return buffer;
+	}
+	
+	/**
+	 * Gives back a buffer that was borrowed from this pool
+	 * 
+	 * @param buffer the buffer
+	 */
+	public void returnBuffer(byte[] buffer) {
+		buffers.computeIfAbsent(buffer.length, size -> new Pool<>()).offer(buffer, maxIdle);
+	}
+	
+	/**
+	 * Releases all idle inflaters, deflaters and buffers
+	 */
+	public void clear() {
+		Inflater inflater;
+		while((inflater = inflaters.poll()) != null)
+			inflater.end();
+		while((inflater = rawInflaters.poll()) != null)
+			inflater.end();
+		Deflater deflater;
+		while((deflater = deflaters.poll()) != null)
+			deflater.end();
+		while((deflater = rawDeflaters.poll()) != null)
+			deflater.end();
+		buffers.clear();
+	}
+	
+	public long getInflatersCreated() {
+		return inflatersCreated.sum();
+	}
+	
+	public long getInflatersReused() {
+		return inflatersReused.sum();
+	}
+	
+	public long getDeflatersCreated() {
+		return deflatersCreated.sum();
+	}
+	
+	public long getDeflatersReused() {
+		return deflatersReused.sum();
+	}
+	
+	public long getBuffersCreated() {
+		return buffersCreated.sum();
+	}
+	
+	public long getBuffersReused() {
+		return buffersReused.sum();
+	}
+	
+	@Override
+	public String toString() {
+		return String.format(
+			"CodecPool[inflaters %d created %d reused, deflaters %d created %d reused, buffers %d created %d reused]",
+			getInflatersCreated(),
+			getInflatersReused(),
+			getDeflatersCreated(),
+			getDeflatersReused(),
+			getBuffersCreated(),
+			getBuffersReused()
+		);
+	}
+	
+	private static class Pool<T> {
+		
+		private final Deque<T> idle = new ConcurrentLinkedDeque<>();
+		private final AtomicInteger size = new AtomicInteger();
+		
+		public T poll() {
+			T value = idle.pollFirst();
+			if(value != null) size.decrementAndGet();
+			return value;
+		}
+		
+		public boolean offer(T value, int maxIdle) {
+			if(size.incrementAndGet() > maxIdle) {
+				size.decrementAndGet();
+				return false;
+			}
+			idle.offerFirst(value);
+			return true;
+		}
+	}
+}
@@ -0,0 +1,84 @@
+/*
+MIT License
+
+Copyright (c) 2017 MrYurihi Redstone
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package com.github.mryurihi.tbnbt.compression;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Compresses and decompresses the data of NBT streams. Codecs are passed to
+ * {@link com.github.mryurihi.tbnbt.stream.NBTInputStream} and
+ * {@link com.github.mryurihi.tbnbt.stream.NBTOutputStream}, and other
+ * compression formats can be used by implementing this interface. Codecs must
+ * be thread safe, since one codec is shared by all streams that use it.
+ */
+public interface CompressionCodec {
+	
+	/**
+	 * GZIP with the default compression level, used by NBT files
+	 */
+	public static final CompressionCodec GZIP = new GzipCodec();
+	
+	/**
+	 * zlib with the default compression level, used by region file chunks
+	 */
+	public static final CompressionCodec ZLIB = new ZlibCodec();
+	
+	/**
+	 * Raw deflate data without a header
+	 */
+	public static final CompressionCodec DEFLATE = new DeflateCodec();
+	
+	/**
+	 * No compression
+	 */
+	public static final CompressionCodec NONE = new NoCompressionCodec();
+	
+	/**
+	 * Detects GZIP, zlib or uncompressed data when reading and writes GZIP
+	 * 
+	 * @see AutoDetectCodec
+	 */
+	public static final CompressionCodec AUTO = new AutoDetectCodec();
+	
+	/**
+	 * Wraps a stream of compressed data in a stream that decompresses it
+	 * 
+	 * @param in the compressed data
+	 * @return the decompressed data
+	 * @throws IOException if the compressed data can not be read
+	 */
+	public InputStream decompress(InputStream in) throws IOException;
+	
+	/**
+	 * Wraps a stream in a stream that compresses the data written to it. Closing
+	 * the returned stream finishes the compressed data and closes {@code out}.
+	 * 
+	 * @param out the stream to write the compressed data to
+	 * @return the stream to write the uncompressed data to
+	 * @throws IOException if the compressed data can not be written
+	 */
+	public OutputStream compress(OutputStream out) throws IOException;
+}
@@ -0,0 +1,62 @@
+/*
+MIT License
+
+Copyright (c) 2017 MrYurihi Redstone
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package com.github.mryurihi.tbnbt.compression;
+
+import java.util.zip.Deflater;
+
+/**
+ * A codec for raw deflate data without a zlib header or checksum
+ */
+public class DeflateCodec extends ZlibCodec {
+	
+	/**
+	 * Creates a codec with the default compression level and buffer size
+	 */
+	public DeflateCodec() {
+		this(Deflater.DEFAULT_COMPRESSION, DEFAULT_BUFFER_SIZE);
+	}
+	
+	/**
+	 * Creates a codec
+	 * 
+	 * @param level the compression level, from 0 to 9 or -1 for the default level
+	 * @param bufferSize the size of the buffers used for compressed data
+	 */
+	public DeflateCodec(int level, int bufferSize) {
+		this(level, bufferSize, null);
+	}
+	
+	/**
+	 * Creates a codec that borrows its inflaters, deflaters and buffers from a
+	 * pool
+	 * 
+	 * @param level the compression level, from 0 to 9 or -1 for the default level
+	 * @param bufferSize the size of the buffers used for compressed data
+	 * @param pool the pool to borrow from, or null to create new ones for each
+	 *            stream
+	 */
+	public DeflateCodec(int level, int bufferSize, CodecPool pool) {
+		super(true, level, bufferSize, pool);
+	}
+}
@@ -0,0 +1,138 @@
+/*
+MIT License
+
+Copyright (c) 2017 MrYurihi Redstone
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package com.github.mryurihi.tbnbt.compression;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * A GZIP codec that compresses on multiple threads, like pigz. The data written
+ * is split into blocks that are deflated in parallel, each using the end of the
+ * previous block as its dictionary, so the compression ratio stays close to
+ * single threaded GZIP. The output is a single standard GZIP member and can be
+ * read by any GZIP reader. Reading is not parallel.<br>
+ * <br>
+ * The stream waits for blocks on the thread that writes to it, so it should not
+ * be written to from a task of the executor it uses. By default the blocks are
+ * compressed on a pool of daemon threads that is shared by all codecs created
+ * without an executor and is not used for anything else, with one thread per
+ * available processor. The deflaters of the blocks are borrowed from a
+ * {@link CodecPool}, so they are reused between blocks and streams.
+ */
+public class ParallelGzipCodec implements CompressionCodec {
+	
+	/**
+	 * The default block size, 128 KiB
+	 */
+	public static final int DEFAULT_BLOCK_SIZE = 128 * 1024;
+	
+	private final int level;
+	
+	private final int blockSize;
+	
+	private final ExecutorService executor;
+	
+	private final CodecPool pool;
+	
+	/**
+	 * Creates a codec with the default compression level and block size that
+	 * compresses on the shared compression threads
+	 */
+	public ParallelGzipCodec() {
+		this(Deflater.DEFAULT_COMPRESSION, DEFAULT_BLOCK_SIZE, null);
+	}
+	
+	/**
+	 * Creates a codec
+	 * 
+	 * @param level the compression level, from 0 to 9 or -1 for the default level
+	 * @param blockSize the amount of uncompressed data in each block
+	 * @param executor the executor the blocks are compressed on, or null to use
+	 *            the shared compression threads
+	 */
+	public ParallelGzipCodec(int level, int blockSize, ExecutorService executor) {
+		this(level, blockSize, executor, null);
+	}
+	
+	/**
+	 * Creates a codec that borrows the deflaters and buffers of the blocks from a
+	 * pool
+	 * 
+	 * @param level the compression level, from 0 to 9 or -1 for the default level
+	 * @param blockSize the amount of uncompressed data in each block
+	 * @param executor the executor the blocks are compressed on, or null to use
+	 *            the shared compression threads
+	 * @param pool the pool to borrow from, or null to use a pool of this codec
+	 */
+	public ParallelGzipCodec(int level, int blockSize, ExecutorService executor, CodecPool pool) {
+		ZlibCodec.checkArguments(level, blockSize);
+		this.level = level;
+		this.blockSize = blockSize;
+		this.executor = executor != null? executor: SharedExecutor.EXECUTOR;
+		this.pool = pool != null? pool: new CodecPool();
+	}
+	
+	public int getLevel() {
+		return level;
+	}
+	
+	public int getBlockSize() {
+		return blockSize;
+	}
+	
+	public CodecPool getPool() {
+		return pool;
+	}
+	
+	@Override
+	public InputStream decompress(InputStream in) throws IOException {
+		return new GZIPInputStream(in, ZlibCodec.DEFAULT_BUFFER_SIZE);
+	}
+	
+	@Override
+	public OutputStream compress(OutputStream out) throws IOException {
+		return new ParallelGzipOutputStream(out, level, blockSize, executor, pool);
+	}
+	
+	/**
+	 * Holds the shared compression threads, which are only started once a codec
+	 * without an executor is created
+	 */
+	private static class SharedExecutor {
+		
+		private static final ExecutorService EXECUTOR = Executors.newFixedThreadPool(
+			Runtime.getRuntime().availableProcessors(),
+			task -> {
+				Thread thread = new Thread(task, "TBNBT parallel gzip");
+				thread.setDaemon(true);
+				return thread;
+			}
+		);
+	}
+}
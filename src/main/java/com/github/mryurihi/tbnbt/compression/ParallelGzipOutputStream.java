@@ -0,0 +1,201 @@
+/*
+MIT License
+
+Copyright (c) 2017 MrYurihi Redstone
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package com.github.mryurihi.tbnbt.compression;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * The stream of {@link ParallelGzipCodec}. Full blocks are handed to the
+ * executor and the compressed blocks are written in order as they finish. The
+ * CRC of the data is computed on the writing thread. Each block borrows a
+ * deflater and an output buffer from the pool while it is compressed.
+ */
+class ParallelGzipOutputStream extends OutputStream {
+	
+	private static final byte[] HEADER = {
+		0x1f, (byte) 0x8b, 8, 0, 0, 0, 0, 0, 0, (byte) 0xff
+	};
+	
+	private static final int DICTIONARY_SIZE = 32 * 1024;
+	
+	private final OutputStream out;
+	
+	private final int level;
+	
+	private final ExecutorService executor;
+	
+	private final CodecPool pool;
+	
+	private final int maxPending;
+	
+	private final Deque<Future<byte[]>> pending = new ArrayDeque<>();
+	
+	private final CRC32 crc = new CRC32();
+	
+	private long size;
+	
+	private byte[] block;
+	
+	private int count;
+	
+	private byte[] previous;
+	
+	private int previousCount;
+	
+	private boolean closed;
+	
+	ParallelGzipOutputStream(OutputStream out, int level, int blockSize, ExecutorService executor, CodecPool pool) throws IOException {
+		this.out = out;
+		this.level = level;
+		this.executor = executor;
+		this.pool = pool;
+		this.maxPending = Runtime.getRuntime().availableProcessors() * 2;
+		this.block = new byte[blockSize];
+		out.write(HEADER);
+	}
+	
+	@Override
+	public void write(int b) throws IOException {
+		if(closed) throw new IOException("Stream closed");
+		if(count == block.length) submit(false);
+		block[count++] = (byte) b;
+		crc.update(b);
+		size++;
+	}
+	
+	@Override
+	public void write(byte[] b, int off, int len) throws IOException {
+		if(closed) throw new IOException("Stream closed");
+		crc.update(b, off, len);
+		size += len;
+		while(len > 0) {
+			if(count == block.length) submit(false);
+			int copied = Math.min(len, block.length - count);
+			System.arraycopy(b, off, block, count, copied);
+			count += copied;
+			off += copied;
+			len -= copied;
+		}
+	}
+	
+	/**
+	 * Writes all completed blocks. Blocks that are still being compressed are not
+	 * waited for.
+	 */
+	@Override
+	public void flush() throws IOException {
+		while(!pending.isEmpty() && pending.peekFirst().isDone())
+			out.write(await(pending.pollFirst()));
+		out.flush();
+	}
+	
+	@Override
+	public void close() throws IOException {
+		if(closed) return;
+		try {
+			submit(true);
+			while(!pending.isEmpty())
+				out.write(await(pending.pollFirst()));
+			byte[] trailer = new byte[8];
+			writeIntLE(trailer, 0, (int) crc.getValue());
+			writeIntLE(trailer, 4, (int) size);
+			out.write(trailer);
+		} finally {
+			closed = true;
+			for(Future<byte[]> future: pending)
+				future.cancel(true);
+			out.close();
+		}
+	}
+	
+	private void submit(boolean last) throws IOException {
+		byte[] data = block;
+		int length = count;
+		byte[] dictionary = previous;
+		int dictionaryEnd = previousCount;
+		pending.addLast(executor.submit(() -> deflate(data, length, dictionary, dictionaryEnd, last)));
+		previous = data;
+		previousCount = length;
+		block = last? null: new byte[data.length];
+		count = 0;
+		while(pending.size() > maxPending || (!pending.isEmpty() && pending.peekFirst().isDone()))
+			out.write(await(pending.pollFirst()));
+	}
+	
+	private byte[] deflate(byte[] data, int length, byte[] dictionary, int dictionaryEnd, boolean last) {
+		Deflater deflater = pool.borrowDeflater(level, true);
+		byte[] buffer = pool.borrowBuffer(Math.max(data.length / 4, 512));
+		try {
+			if(dictionary != null) {
+				int dictionaryLength = Math.min(DICTIONARY_SIZE, dictionaryEnd);
+				deflater.setDictionary(dictionary, dictionaryEnd - dictionaryLength, dictionaryLength);
+			}
+			deflater.setInput(data, 0, length);
+			ByteArrayOutputStream compressed = new ByteArrayOutputStream(length / 2 + 64);
+			if(last) {
+				deflater.finish();
+				while(!deflater.finished())
+					compressed.write(buffer, 0, deflater.deflate(buffer));
+			} else {
+				int written;
+				do {
+					written = deflater.deflate(buffer, 0, buffer.length, Deflater.SYNC_FLUSH);
+					compressed.write(buffer, 0, written);
+				} while(written == buffer.length);
+			}
+			return compressed.toByteArray();
+		} finally {
+			pool.returnDeflater(deflater, true);
+			pool.returnBuffer(buffer);
+		}
+	}
+	
+	private static byte[] await(Future<byte[]> future) throws IOException {
+		try {
+			return future.get();
+		} catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException();
+		} catch(ExecutionException e) {
+			throw new IOException(e.getCause());
+		}
+	}
+	
+	private static void writeIntLE(byte[] b, int off, int value) {
+		b[off] = (byte) value;
+		b[off + 1] = (byte) (value >> 8);
+		b[off + 2] = (byte) (value >> 16);
+		b[off + 3] = (byte) (value >> 24);
+	}
+}
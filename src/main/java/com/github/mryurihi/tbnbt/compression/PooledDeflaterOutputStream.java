@@ -0,0 +1,60 @@
+/*
+MIT License
+
+Copyright (c) 2017 MrYurihi Redstone
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package com.github.mryurihi.tbnbt.compression;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * A {@link DeflaterOutputStream} that borrows its deflater and buffer from a
+ * {@link CodecPool} and gives them back when it is closed
+ */
+class PooledDeflaterOutputStream extends DeflaterOutputStream {
+	
+	private final CodecPool pool;
+	
+	private final boolean nowrap;
+	
+	private boolean closed;
+	
+	PooledDeflaterOutputStream(OutputStream out, CodecPool pool, int level, boolean nowrap, int bufferSize) {
+		super(out, pool.borrowDeflater(level, nowrap), 1);
+		this.pool = pool;
+		this.nowrap = nowrap;
+		this.buf = pool.borrowBuffer(bufferSize);
+	}
+	
+	@Override
+	public void close() throws IOException {
+		if(closed) return;
+		closed = true;
+		try {
+			super.close();
+		} finally {
+			pool.returnDeflater(def, nowrap);
+			pool.returnBuffer(buf);
+		}
+	}
+}
@@ -0,0 +1,142 @@
+/*
+MIT License
+
+Copyright (c) 2017 MrYurihi Redstone
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package com.github.mryurihi.tbnbt.compression;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.util.zip.CRC32;
+import java.util.zip.ZipException;
+
+/**
+ * Reads GZIP data with a pooled inflater. {@link java.util.zip.GZIPInputStream}
+ * always creates its own inflater, so the GZIP header and trailer are handled
+ * here instead. Concatenated members are read one after another like one
+ * stream. Unlike {@link java.util.zip.GZIPInputStream}, data after the last
+ * member that is not another member is an error instead of being ignored.
+ */
+class PooledGzipInputStream extends PooledInflaterInputStream {
+	
+	private static final int FHCRC = 2;
+	private static final int FEXTRA = 4;
+	private static final int FNAME = 8;
+	private static final int FCOMMENT = 16;
+	
+	private final CRC32 crc = new CRC32();
+	
+	private boolean eos;
+	
+	PooledGzipInputStream(InputStream in, CodecPool pool, int bufferSize) throws IOException {
+		super(in, pool, true, bufferSize);
+		try {
+			readHeader(new DataInputStream(in));
+		} catch(IOException | RuntimeException e) {
+			release();
+			throw e;
+		}
+	}
+	
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException {
+		while(!eos) {
+			int read = super.read(b, off, len);
+			if(read != -1) {
+				crc.update(b, off, read);
+				return read;
+			}
+			readTrailer();
+			eos = !nextMember();
+		}
+		return -1;
+	}
+	
+	private void readHeader(DataInputStream in) throws IOException {
+		if(in.readUnsignedShort() != 0x1f8b) throw new ZipException("Not in GZIP format");
+		if(in.readUnsignedByte() != 8) throw new ZipException("Unsupported compression method");
+		int flags = in.readUnsignedByte();
+		in.readFully(new byte[6]);
+		if((flags & FEXTRA) != 0) skip(in, Short.reverseBytes(in.readShort()) & 0xFFFF);
+		if((flags & FNAME) != 0) while(in.readUnsignedByte() != 0);
+		if((flags & FCOMMENT) != 0) while(in.readUnsignedByte() != 0);
+		if((flags & FHCRC) != 0) skip(in, 2);
+	}
+	
+	/**
+	 * Reads the header of the member after the current one, if there is one, and
+	 * prepares the inflater for it
+	 * 
+	 * @return false if the data has ended
+	 */
+	private boolean nextMember() throws IOException {
+		int remaining = Math.max(inf.getRemaining() - 8, 0);
+		ByteArrayInputStream buffered;
+		if(remaining > 0) buffered = new ByteArrayInputStream(buf, len - remaining, remaining);
+		else {
+			int first = in.read();
+			if(first == -1) return false;
+			buffered = new ByteArrayInputStream(new byte[] {
+				(byte) first
+			});
+		}
+		InputStream source = new SequenceInputStream(buffered, new FilterInputStream(in) {
+			
+			@Override
+			public void close() {}
+		});
+		try {
+			readHeader(new DataInputStream(source));
+		} catch(ZipException e) {
+			throw new ZipException("Unexpected data after GZIP member");
+		}
+		inf.reset();
+		crc.reset();
+		int left = buffered.available();
+		if(remaining > 0 && left > 0) inf.setInput(buf, len - left, left);
+		return true;
+	}
+	
+	private void readTrailer() throws IOException {
+		byte[] trailer = new byte[8];
+		int remaining = Math.min(inf.getRemaining(), trailer.length);
+		System.arraycopy(buf, len - inf.getRemaining(), trailer, 0, remaining);
+		new DataInputStream(in).readFully(trailer, remaining, trailer.length - remaining);
+		long expectedCrc = readIntLE(trailer, 0) & 0xFFFFFFFFL;
+		long expectedSize = readIntLE(trailer, 4) & 0xFFFFFFFFL;
+		if(expectedCrc != crc.getValue() || expectedSize != (inf.getBytesWritten() & 0xFFFFFFFFL)) throw new ZipException(
+			"Corrupt GZIP trailer"
+		);
+	}
+	
+	private static int readIntLE(byte[] b, int off) {
+		return (b[off] & 0xFF) | (b[off + 1] & 0xFF) << 8 | (b[off + 2] & 0xFF) << 16 | (b[off + 3] & 0xFF) << 24;
+	}
+	
+	private static void skip(DataInputStream in, int bytes) throws IOException {
+		if(in.skipBytes(bytes) != bytes) throw new EOFException();
+	}
+}
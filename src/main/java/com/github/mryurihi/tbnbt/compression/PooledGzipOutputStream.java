@@ -0,0 +1,75 @@
+/*
+MIT License
+
+Copyright (c) 2017 MrYurihi Redstone
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package com.github.mryurihi.tbnbt.compression;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.CRC32;
+
+/**
+ * Writes a GZIP member with a pooled deflater. Apart from the header, the
+ * output is the same as the output of {@link java.util.zip.GZIPOutputStream}
+ * with the same compression level.
+ */
+class PooledGzipOutputStream extends PooledDeflaterOutputStream {
+	
+	private static final byte[] HEADER = {
+		0x1f, (byte) 0x8b, 8, 0, 0, 0, 0, 0, 0, (byte) 0xff
+	};
+	
+	private final CRC32 crc = new CRC32();
+	
+	PooledGzipOutputStream(OutputStream out, CodecPool pool, int level, int bufferSize) throws IOException {
+		super(out, pool, level, true, bufferSize);
+		try {
+			out.write(HEADER);
+		} catch(IOException | RuntimeException e) {
+			close();
+			throw e;
+		}
+	}
+	
+	@Override
+	public void write(byte[] b, int off, int len) throws IOException {
+		super.write(b, off, len);
+		crc.update(b, off, len);
+	}
+	
+	@Override
+	public void finish() throws IOException {
+		if(def.finished()) return;
+		super.finish();
+		byte[] trailer = new byte[8];
+		writeIntLE(trailer, 0, (int) crc.getValue());
+		writeIntLE(trailer, 4, (int) def.getBytesRead());
+		out.write(trailer);
+	}
+	
+	private static void writeIntLE(byte[] b, int off, int value) {
+		b[off] = (byte) value;
+		b[off + 1] = (byte) (value >> 8);
+		b[off + 2] = (byte) (value >> 16);
+		b[off + 3] = (byte) (value >> 24);
+	}
+}
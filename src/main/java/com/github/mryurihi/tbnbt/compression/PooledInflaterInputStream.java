@@ -0,0 +1,69 @@
+/*
+MIT License
+
+Copyright (c) 2017 MrYurihi Redstone
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package com.github.mryurihi.tbnbt.compression;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * An {@link InflaterInputStream} that borrows its inflater and buffer from a
+ * {@link CodecPool} and gives them back when it is closed
+ */
+class PooledInflaterInputStream extends InflaterInputStream {
+	
+	private final CodecPool pool;
+	
+	private final boolean nowrap;
+	
+	private boolean closed;
+	
+	PooledInflaterInputStream(InputStream in, CodecPool pool, boolean nowrap, int bufferSize) {
+		super(in, pool.borrowInflater(nowrap), 1);
+		this.pool = pool;
+		this.nowrap = nowrap;
+		this.buf = pool.borrowBuffer(bufferSize);
+	}
+	
+	@Override
+	public void close() throws IOException {
+		if(closed) return;
+		try {
+			super.close();
+		} finally {
+			release();
+		}
+	}
+	
+	/**
+	 * Gives the inflater and buffer back to the pool without closing the
+	 * underlying stream
+	 */
+	void release() {
+		if(closed) return;
+		closed = true;
+		pool.returnInflater(inf, nowrap);
+		pool.returnBuffer(buf);
+	}
+}
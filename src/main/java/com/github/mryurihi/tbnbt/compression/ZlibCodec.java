@@ -0,0 +1,145 @@
+/*
+MIT License
+
+Copyright (c) 2017 MrYurihi Redstone
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package com.github.mryurihi.tbnbt.compression;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * A codec for zlib data, as used by the chunks in region files
+ */
+public class ZlibCodec implements CompressionCodec {
+	
+	static final int DEFAULT_BUFFER_SIZE = 8192;
+	
+	private final boolean nowrap;
+	
+	private final int level;
+	
+	private final int bufferSize;
+	
+	private final CodecPool pool;
+	
+	/**
+	 * Creates a codec with the default compression level and buffer size
+	 */
+	public ZlibCodec() {
+		this(Deflater.DEFAULT_COMPRESSION, DEFAULT_BUFFER_SIZE);
+	}
+	
+	/**
+	 * Creates a codec
+	 * 
+	 * @param level the compression level, from 0 to 9 or -1 for the default level
+	 * @param bufferSize the size of the buffers used for compressed data
+	 */
+	public ZlibCodec(int level, int bufferSize) {
+		this(level, bufferSize, null);
+	}
+	
+	/**
+	 * Creates a codec that borrows its inflaters, deflaters and buffers from a
+	 * pool
+	 * 
+	 * @param level the compression level, from 0 to 9 or -1 for the default level
+	 * @param bufferSize the size of the buffers used for compressed data
+	 * @param pool the pool to borrow from, or null to create new ones for each
+	 *            stream
+	 */
+	public ZlibCodec(int level, int bufferSize, CodecPool pool) {
+		this(false, level, bufferSize, pool);
+	}
+	
+	ZlibCodec(boolean nowrap, int level, int bufferSize, CodecPool pool) {
+		checkArguments(level, bufferSize);
+		this.nowrap = nowrap;
+		this.level = level;
+		this.bufferSize = bufferSize;
+		this.pool = pool;
+	}
+	
+	static void checkArguments(int level, int bufferSize) {
+		if(level < Deflater.DEFAULT_COMPRESSION || level > Deflater.BEST_COMPRESSION) throw new IllegalArgumentException(
+			"Illegal compression level " + level
+		);
+		if(bufferSize <= 0) throw new IllegalArgumentException("Illegal buffer size " + bufferSize);
+	}
+	
+	public int getLevel() {
+		return level;
+	}
+	
+	public int getBufferSize() {
+		return bufferSize;
+	}
+	
+	public CodecPool getPool() {
+		return pool;
+	}
+	
+	@Override
+	public InputStream decompress(InputStream in) throws IOException {
+		if(pool != null) return new PooledInflaterInputStream(in, pool, nowrap, bufferSize);
+		return new InflaterInputStream(in, new Inflater(nowrap), bufferSize) {
+			
+			private boolean closed;
+			
+			@Override
+			public void close() throws IOException {
+				if(closed) return;
+				closed = true;
+				try {
+					super.close();
+				} finally {
+					inf.end();
+				}
+			}
+		};
+	}
+	
+	@Override
+	public OutputStream compress(OutputStream out) throws IOException {
+		if(pool != null) return new PooledDeflaterOutputStream(out, pool, level, nowrap, bufferSize);
+		return new DeflaterOutputStream(out, new Deflater(level, nowrap), bufferSize) {
+			
+			private boolean closed;
+			
+			@Override
+			public void close() throws IOException {
+				if(closed) return;
+				closed = true;
+				try {
+					super.close();
+				} finally {
+					def.end();
+				}
+			}
+		};
+	}
+}
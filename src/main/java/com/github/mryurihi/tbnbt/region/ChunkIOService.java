@@ -0,0 +1,463 @@
+/*
+MIT License
+
+Copyright (c) 2017 MrYurihi Redstone
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package com.github.mryurihi.tbnbt.region;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import com.github.mryurihi.tbnbt.compression.CodecPool;
+import com.github.mryurihi.tbnbt.stream.NBTBufferInput;
+import com.github.mryurihi.tbnbt.stream.NBTBufferOutput;
+import com.github.mryurihi.tbnbt.stream.NBTKeyTable;
+import com.github.mryurihi.tbnbt.tag.NBTTagCompound;
+
+/**
+ * Reads and writes chunks of the region files in a directory in the
+ * background. Reads run on a pool of reader threads. Writes are queued and
+ * written by a single writer thread in batches, and writing a chunk that is
+ * still queued replaces the queued chunk instead of writing it twice. After
+ * each batch every region file that was written to is synced once, and only
+ * then are the futures of the batch completed, so a completed write is on the
+ * storage device.<br>
+ * <br>
+ * Reading a chunk that has a queued write returns a copy of the queued chunk,
+ * so the chunk that is read can be modified while it is being written. A chunk
+ * passed to {@link #writeChunk(int, int, NBTTagCompound)} must not be modified
+ * until its future is completed. Reading a chunk of a region file that does not
+ * exist does not create the file. The keys of all chunks that are read are
+ * interned with one {@link NBTKeyTable}, so chunks kept in memory share their
+ * key strings.<br>
+ * <br>
+ * At most a fixed amount of region files is kept open. When there are more,
+ * the least recently used regions that no read or write is using are closed. A
+ * region that is in use is never closed, so while more regions than the
+ * maximum are in use at the same time, more are open. Region files are opened
+ * outside of the lock of the open regions, so opening a region only delays
+ * the reads and writes of that region.
+ */
+public class ChunkIOService implements Closeable {
+	
+	/**
+	 * The default maximum amount of open region files
+	 */
+	public static final int DEFAULT_MAX_OPEN_REGIONS = 64;
+	
+	private final Path directory;
+	
+	private final CodecPool pool = new CodecPool();
+	
+	private final NBTKeyTable keyTable = new NBTKeyTable();
+	
+	private final Map<Long, CachedRegion> regions = new LinkedHashMap<>(16, 0.75f, true);
+	
+	private final int maxOpenRegions;
+	
+	private final ExecutorService readers;
+	
+	private final Thread writer;
+	
+	private final Object lock = new Object();
+	
+	private Map<Long, PendingWrite> pending = new LinkedHashMap<>();
+	
+	private Map<Long, PendingWrite> writing = new LinkedHashMap<>();
+	
+	private boolean closed;
+	
+	/**
+	 * Creates a service with one reader thread per available processor
+	 * 
+	 * @param directory the directory that contains the region files
+	 */
+	public ChunkIOService(Path directory) {
+		this(directory, Runtime.getRuntime().availableProcessors());
+	}
+	
+	/**
+	 * Creates a service
+	 * 
+	 * @param directory the directory that contains the region files
+	 * @param readerThreads the amount of threads that read chunks
+	 */
+	public ChunkIOService(Path directory, int readerThreads) {
+		this(directory, readerThreads, DEFAULT_MAX_OPEN_REGIONS);
+	}
+	
+	/**
+	 * Creates a service
+	 * 
+	 * @param directory the directory that contains the region files
+	 * @param readerThreads the amount of threads that read chunks
+	 * @param maxOpenRegions the maximum amount of region files that are kept
+	 *            open
+	 */
+	public ChunkIOService(Path directory, int readerThreads, int maxOpenRegions) {
+		if(maxOpenRegions <= 0) throw new IllegalArgumentException("Illegal maximum open regions " + maxOpenRegions);
+		this.directory = directory;
+		this.maxOpenRegions = maxOpenRegions;
+		this.readers = Executors.newFixedThreadPool(readerThreads, task -> {
+			Thread thread = new Thread(task, "TBNBT chunk reader");
+			thread.setDaemon(true);
+			return thread;
+		});
+		this.writer = new Thread(this::writeLoop, "TBNBT chunk writer");
+		this.writer.setDaemon(true);
+		this.writer.start();
+	}
+	
+	/**
+	 * Reads a chunk in the background
+	 * 
+	 * @param x the x coordinate of the chunk
+	 * @param z the z coordinate of the chunk
+	 * @return a future of the chunk, which is completed with null if the chunk
+	 *         does not exist
+	 */
+	public CompletableFuture<NBTTagCompound> readChunk(int x, int z) {
+		long key = getKey(x, z);
+		NBTTagCompound queued = null;
+		synchronized(lock) {
+			checkOpen();
+			PendingWrite write = pending.get(key);
+			if(write == null) write = writing.get(key);
+			if(write != null) queued = write.chunk;
+		}
+		NBTTagCompound chunk = queued;
+		try {
+			return CompletableFuture.supplyAsync(() -> {
+				try {
+					if(chunk != null) return copy(chunk);
+					CachedRegion region = acquireRegion(x, z, false);
+					if(region == null) return null;
+					try {
+						return region.file.readChunk(x, z);
+					} finally {
+						releaseRegion(region);
+					}
+				} catch(IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			}, readers);
+		} catch(RejectedExecutionException e) {
+			CompletableFuture<NBTTagCompound> failed = new CompletableFuture<>();
+			failed.completeExceptionally(new IllegalStateException("The service has been closed", e));
+			return failed;
+		}
+	}
+	
+	/**
+	 * Queues a chunk to be written. If the chunk is already queued the queued
+	 * chunk is replaced and the same future is returned.
+	 * 
+	 * @param x the x coordinate of the chunk
+	 * @param z the z coordinate of the chunk
+	 * @param chunk the chunk
+	 * @return a future that is completed once the chunk has been written and
+	 *         synced
+	 */
+	public CompletableFuture<Void> writeChunk(int x, int z, NBTTagCompound chunk) {
+		long key = getKey(x, z);
+		synchronized(lock) {
+			checkOpen();
+			PendingWrite write = pending.get(key);
+			if(write != null) write.chunk = chunk;
+			else {
+				write = new PendingWrite(x, z, chunk);
+				pending.put(key, write);
+				lock.notifyAll();
+			}
+			return write.future;
+		}
+	}
+	
+	/**
+	 * Gets a future that is completed once all writes that have been queued so far
+	 * have been written and synced
+	 * 
+	 * @return the future
+	 */
+	public CompletableFuture<Void> flush() {
+		List<CompletableFuture<Void>> futures = new ArrayList<>();
+		synchronized(lock) {
+			for(PendingWrite write: writing.values())
+				futures.add(write.future);
+			for(PendingWrite write: pending.values())
+				futures.add(write.future);
+		}
+		return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[futures.size()]));
+	}
+	
+	/**
+	 * Writes all queued chunks, waits for running reads and closes all region
+	 * files
+	 * 
+	 * @throws IOException if a region file can not be closed
+	 */
+	@Override
+	public void close() throws IOException {
+		synchronized(lock) {
+			if(closed) return;
+			closed = true;
+			lock.notifyAll();
+		}
+		readers.shutdown();
+		try {
+			writer.join();
+			readers.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+		} catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		IOException failure = null;
+		synchronized(regions) {
+			for(CachedRegion region: regions.values()) {
+				if(region.file == null) continue;
+				try {
+					region.file.close();
+				} catch(IOException e) {
+					failure = e;
+				}
+			}
+			regions.clear();
+		}
+		pool.clear();
+		if(failure != null) throw failure;
+	}
+	
+	private void writeLoop() {
+		while(true) {
+			Map<Long, PendingWrite> batch;
+			synchronized(lock) {
+				while(pending.isEmpty() && !closed) {
+					try {
+						lock.wait();
+					} catch(InterruptedException e) {
+						return;
+					}
+				}
+				if(pending.isEmpty()) return;
+				batch = pending;
+				writing = batch;
+				pending = new LinkedHashMap<>();
+			}
+			writeBatch(batch);
+			synchronized(lock) {
+				writing = new LinkedHashMap<>();
+			}
+		}
+	}
+	
+	private void writeBatch(Map<Long, PendingWrite> batch) {
+		Map<CachedRegion, List<PendingWrite>> written = new LinkedHashMap<>();
+		List<CachedRegion> acquired = new ArrayList<>();
+		try {
+			for(Entry<Long, PendingWrite> entry: batch.entrySet()) {
+				PendingWrite write = entry.getValue();
+				try {
+					CachedRegion region = acquireRegion(write.x, write.z, true);
+					acquired.add(region);
+					region.file.writeChunk(write.x, write.z, write.chunk);
+					written.computeIfAbsent(region, r -> new ArrayList<>()).add(write);
+				} catch(IOException | RuntimeException e) {
+					write.future.completeExceptionally(e);
+				}
+			}
+			Set<CachedRegion> synced = new HashSet<>();
+			for(Entry<CachedRegion, List<PendingWrite>> entry: written.entrySet()) {
+				try {
+					entry.getKey().file.sync();
+					synced.add(entry.getKey());
+				} catch(IOException e) {
+					for(PendingWrite write: entry.getValue())
+						write.future.completeExceptionally(e);
+				}
+			}
+			for(Entry<CachedRegion, List<PendingWrite>> entry: written.entrySet())
+				if(synced.contains(entry.getKey())) for(PendingWrite write: entry.getValue())
+					write.future.complete(null);
+		} finally {
+			for(CachedRegion region: acquired)
+				releaseRegion(region);
+		}
+	}
+	
+	/**
+	 * Copies a queued chunk by writing and reading it, so the copy shares nothing
+	 * with the chunk that is being written
+	 */
+	private NBTTagCompound copy(NBTTagCompound chunk) throws IOException {
+		NBTBufferOutput out = new NBTBufferOutput();
+		out.writeTag(chunk, "");
+		NBTBufferInput in = new NBTBufferInput(out.getBuffer());
+		in.setArrayViews(false);
+		in.setKeyTable(keyTable);
+		return in.readTag().getAsTagCompound();
+	}
+	
+	/**
+	 * Gets an open region file and marks it as in use until
+	 * {@link #releaseRegion(CachedRegion)} is called. The first thread that needs
+	 * a region that is not open puts a placeholder into the map and opens the
+	 * file without holding the lock, other threads wait for the placeholder.
+	 * 
+	 * @param create whether to create the file if it does not exist
+	 * @return the region, or null if the file does not exist and is not created
+	 */
+	private CachedRegion acquireRegion(int x, int z, boolean create) throws IOException {
+		long key = getKey(x >> 5, z >> 5);
+		Path path = directory.resolve("r." + (x >> 5) + "." + (z >> 5) + ".mca");
+		CachedRegion region;
+		synchronized(regions) {
+			region = regions.get(key);
+			if(region != null) region.users++;
+		}
+		boolean opening = false;
+		if(region == null) {
+			if(!create && !Files.exists(path)) return null;
+			synchronized(regions) {
+				region = regions.get(key);
+				if(region == null) {
+					region = new CachedRegion();
+					regions.put(key, region);
+					opening = true;
+				}
+				region.users++;
+			}
+		}
+		if(opening) openRegion(key, region, path);
+		synchronized(regions) {
+			try {
+				while(region.file == null && region.failure == null)
+					regions.wait();
+			} catch(InterruptedException e) {
+				region.users--;
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException("Interrupted while opening a region file");
+			}
+			if(region.failure != null) {
+				region.users--;
+				throw new IOException("The region file " + path + " can not be opened", region.failure);
+			}
+			return region;
+		}
+	}
+	
+	private void openRegion(long key, CachedRegion region, Path path) {
+		RegionFile file = null;
+		Exception failure = null;
+		try {
+			file = new RegionFile(path, pool);
+			file.setKeyTable(keyTable);
+		} catch(IOException | RuntimeException e) {
+			failure = e;
+		}
+		synchronized(regions) {
+			region.file = file;
+			region.failure = failure;
+			if(failure != null) regions.remove(key);
+			regions.notifyAll();
+			evictRegions();
+		}
+	}
+	
+	/**
+	 * Gets the amount of region files that are open
+	 */
+	int getOpenRegions() {
+		synchronized(regions) {
+			return regions.size();
+		}
+	}
+	
+	private void releaseRegion(CachedRegion region) {
+		synchronized(regions) {
+			region.users--;
+			evictRegions();
+		}
+	}
+	
+	/**
+	 * Closes the least recently used regions that are not in use until at most
+	 * the maximum amount is open. Every write has been synced when its region is
+	 * released, so nothing is lost if closing fails.
+	 */
+	private void evictRegions() {
+		Iterator<CachedRegion> eldest = regions.values().iterator();
+		while(regions.size() > maxOpenRegions && eldest.hasNext()) {
+			CachedRegion region = eldest.next();
+			if(region.users > 0) continue;
+			eldest.remove();
+			try {
+				region.file.close();
+			} catch(IOException e) {
+				// the file has already been synced
+			}
+		}
+	}
+	
+	private void checkOpen() {
+		if(closed) throw new IllegalStateException("The service has been closed");
+	}
+	
+	private static long getKey(int x, int z) {
+		return (long) x << 32 | (z & 0xFFFFFFFFL);
+	}
+	
+	private static class CachedRegion {
+		
+		private RegionFile file;
+		private Exception failure;
+		private int users;
+	}
+	
+	private static class PendingWrite {
+		
+		private final int x;
+		private final int z;
+		private NBTTagCompound chunk;
+		private final CompletableFuture<Void> future = new CompletableFuture<>();
+		
+		public PendingWrite(int x, int z, NBTTagCompound chunk) {
+			this.x = x;
+			this.z = z;
+			this.chunk = chunk;
+		}
+	}
+}
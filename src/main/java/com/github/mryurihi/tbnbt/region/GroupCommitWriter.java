@@ -0,0 +1,261 @@
+/*
+MIT License
+
+Copyright (c) 2017 MrYurihi Redstone
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package com.github.mryurihi.tbnbt.region;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import com.github.mryurihi.tbnbt.tag.NBTTag;
+
+/**
+ * Appends records to an {@link NBTRecordLog} durably with group commit. Callers
+ * compress their tag on their own thread and queue it. A single committer
+ * thread appends the queued records in batches with one write and syncs the log
+ * once per batch, and only then are the futures of the batch completed, so a
+ * completed append is on the storage device.<br>
+ * <br>
+ * A batch is written once it has {@code maxBatchSize} records or its first
+ * record has waited {@code maxWait}. With a wait of 0 a batch is written as
+ * soon as the committer is free, and records queued while a batch is being
+ * synced form the next batch. A longer wait gives larger batches and fewer
+ * syncs at the cost of latency.<br>
+ * <br>
+ * The writer does not close the log. Records are readable from the log as soon
+ * as they are written, which may be before they are synced.<br>
+ * <br>
+ * If a batch can not be written, its futures fail and nothing of it is in the
+ * log, so the records can be appended again. If a batch is written but syncing
+ * the log fails, the records are in the log but may not be durable. Retrying
+ * them would duplicate them, so the failure is fatal. The futures of the batch
+ * fail with an exception that names the record numbers that were written, the
+ * futures of queued records fail, and the writer rejects later appends with an
+ * {@link IllegalStateException}.
+ */
+public class GroupCommitWriter implements Closeable {
+	
+	/**
+	 * The default maximum amount of records in a batch
+	 */
+	public static final int DEFAULT_MAX_BATCH_SIZE = 256;
+	
+	private final NBTRecordLog log;
+	
+	private final int maxBatchSize;
+	
+	private final long maxWaitNanos;
+	
+	private final Thread committer;
+	
+	private final Object lock = new Object();
+	
+	private List<PendingRecord> pending = new ArrayList<>();
+	
+	private boolean closed;
+	
+	private IOException syncFailure;
+	
+	/**
+	 * Creates a writer that writes batches of up to
+	 * {@link #DEFAULT_MAX_BATCH_SIZE} records without waiting for more records
+	 * 
+	 * @param log the log to append to
+	 */
+	public GroupCommitWriter(NBTRecordLog log) {
+		this(log, DEFAULT_MAX_BATCH_SIZE, 0, TimeUnit.NANOSECONDS);
+	}
+	
+	/**
+	 * Creates a writer
+	 * 
+	 * @param log the log to append to
+	 * @param maxBatchSize the maximum amount of records in a batch
+	 * @param maxWait the longest time a record waits for more records before its
+	 *            batch is written
+	 * @param unit the unit of {@code maxWait}
+	 */
+	public GroupCommitWriter(NBTRecordLog log, int maxBatchSize, long maxWait, TimeUnit unit) {
+		if(maxBatchSize <= 0) throw new IllegalArgumentException("Illegal batch size " + maxBatchSize);
+		if(maxWait < 0) throw new IllegalArgumentException("Illegal wait time " + maxWait);
+		this.log = log;
+		this.maxBatchSize = maxBatchSize;
+		this.maxWaitNanos = unit.toNanos(maxWait);
+		this.committer = new Thread(this::commitLoop, "TBNBT record committer");
+		this.committer.setDaemon(true);
+		this.committer.start();
+	}
+	
+	public int getMaxBatchSize() {
+		return maxBatchSize;
+	}
+	
+	/**
+	 * Queues a tag compressed with zlib
+	 * 
+	 * @param tag the tag
+	 * @return a future of the number of the record, which is completed once the
+	 *         record has been written and synced
+	 * @throws IOException if the tag can not be compressed
+	 */
+	public CompletableFuture<Long> append(NBTTag tag) throws IOException {
+		return append(tag, NBTRecordLog.COMPRESSION_ZLIB);
+	}
+	
+	/**
+	 * Queues a tag. The tag is compressed on the calling thread, so it may be
+	 * modified as soon as this method returns.
+	 * 
+	 * @param tag the tag
+	 * @param compression the compression to use, {@link NBTRecordLog#COMPRESSION_GZIP},
+	 *            {@link NBTRecordLog#COMPRESSION_ZLIB} or
+	 *            {@link NBTRecordLog#COMPRESSION_NONE}
+	 * @return a future of the number of the record, which is completed once the
+	 *         record has been written and synced
+	 * @throws IOException if the tag can not be compressed
+	 * @throws IllegalStateException if the writer has been closed or stopped
+	 *             after a sync failure
+	 */
+	public CompletableFuture<Long> append(NBTTag tag, byte compression) throws IOException {
+		PendingRecord record = new PendingRecord(log.encode(tag, compression));
+		synchronized(lock) {
+			checkOpen();
+			pending.add(record);
+			if(pending.size() == 1 || pending.size() == maxBatchSize) lock.notifyAll();
+		}
+		return record.future;
+	}
+	
+	/**
+	 * Writes all queued records and stops the committer thread
+	 */
+	@Override
+	public void close() {
+		synchronized(lock) {
+			if(closed) return;
+			closed = true;
+			lock.notifyAll();
+		}
+		try {
+			committer.join();
+		} catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+	
+	private void commitLoop() {
+		while(true) {
+			List<PendingRecord> batch;
+			synchronized(lock) {
+				try {
+					while(pending.isEmpty() && !closed)
+						lock.wait();
+					if(pending.isEmpty()) return;
+					long deadline = pending.get(0).queued + maxWaitNanos;
+					long remaining;
+					while(
+						pending.size() < maxBatchSize && !closed
+						&& (remaining = deadline - System.nanoTime()) > 0
+					) TimeUnit.NANOSECONDS.timedWait(lock, remaining);
+				} catch(InterruptedException e) {
+					return;
+				}
+				if(pending.size() <= maxBatchSize) {
+					batch = pending;
+					pending = new ArrayList<>();
+				} else {
+					List<PendingRecord> first = pending.subList(0, maxBatchSize);
+					batch = new ArrayList<>(first);
+					first.clear();
+				}
+			}
+			if(!commitBatch(batch)) {
+				List<PendingRecord> queued;
+				synchronized(lock) {
+					closed = true;
+					queued = pending;
+					pending = new ArrayList<>();
+				}
+				IOException stopped = new IOException("The writer stopped after the log failed to sync", syncFailure);
+				for(PendingRecord record: queued)
+					record.future.completeExceptionally(stopped);
+				return;
+			}
+		}
+	}
+	
+	/**
+	 * Writes and syncs a batch
+	 * 
+	 * @return false if the batch was written but could not be synced
+	 */
+	private boolean commitBatch(List<PendingRecord> batch) {
+		ByteBuffer[] records = new ByteBuffer[batch.size()];
+		for(int i = 0; i < records.length; i++)
+			records[i] = batch.get(i).data;
+		long first;
+		try {
+			first = log.appendRaw(records, records.length);
+		} catch(IOException | RuntimeException e) {
+			for(PendingRecord record: batch)
+				record.future.completeExceptionally(e);
+			return true;
+		}
+		try {
+			log.sync();
+		} catch(IOException | RuntimeException e) {
+			IOException failure = new IOException(
+				"Records " + first + " to " + (first + records.length - 1) + " were written but the log failed to sync", e
+			);
+			synchronized(lock) {
+				syncFailure = failure;
+			}
+			for(PendingRecord record: batch)
+				record.future.completeExceptionally(failure);
+			return false;
+		}
+		for(int i = 0; i < records.length; i++)
+			batch.get(i).future.complete(first + i);
+		return true;
+	}
+	
+	private void checkOpen() {
+		if(syncFailure != null) throw new IllegalStateException("The writer stopped after the log failed to sync", syncFailure);
+		if(closed) throw new IllegalStateException("The writer has been closed");
+	}
+	
+	private static class PendingRecord {
+		
+		private final ByteBuffer data;
+		private final long queued = System.nanoTime();
+		private final CompletableFuture<Long> future = new CompletableFuture<>();
+		
+		public PendingRecord(ByteBuffer data) {
+			this.data = data;
+		}
+	}
+}
@@ -0,0 +1,538 @@
+/*
+MIT License
+
+Copyright (c) 2017 MrYurihi Redstone
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package com.github.mryurihi.tbnbt.region;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.zip.CRC32;
+
+import com.github.mryurihi.tbnbt.adapter.AdapterRegistry;
+import com.github.mryurihi.tbnbt.adapter.NBTParseException;
+import com.github.mryurihi.tbnbt.adapter.TypeWrapper;
+import com.github.mryurihi.tbnbt.compression.CodecPool;
+import com.github.mryurihi.tbnbt.compression.CompressionCodec;
+import com.github.mryurihi.tbnbt.compression.GzipCodec;
+import com.github.mryurihi.tbnbt.compression.ZlibCodec;
+import com.github.mryurihi.tbnbt.exceptions.MalformedNBTException;
+import com.github.mryurihi.tbnbt.stream.NBTInputStream;
+import com.github.mryurihi.tbnbt.stream.NBTOutputStream;
+import com.github.mryurihi.tbnbt.tag.NBTTag;
+
+/**
+ * An append-only file of NBT records. The file starts with an 8 byte header,
+ * followed by the records one after another. Each record starts with its
+ * length and the CRC32 of its data, followed by the compression type and the
+ * compressed tag. Records are numbered from 0 in the order they were
+ * appended.<br>
+ * <br>
+ * The log keeps the offset of every {@link #getIndexInterval() n}th record in
+ * memory, so finding a record reads at most n record headers. The index is
+ * built when the log is opened. A record that was only partly written, for
+ * example because the process died during an append, is cut off the end of the
+ * file when it is opened. The last record is cut off if its length does not
+ * fit in the file or its data does not match its CRC. The CRC of other records
+ * is checked when they are read.<br>
+ * <br>
+ * This class is thread safe. Appends are serialized, and reads use positional
+ * reads of records that have been completely written, so readers never wait
+ * for writers. A {@link Cursor} reads the records in order and can keep reading
+ * records that are appended after it was created.
+ */
+public class NBTRecordLog implements Closeable {
+	
+	/**
+	 * The default amount of records between two entries of the offset index
+	 */
+	public static final int DEFAULT_INDEX_INTERVAL = 64;
+	
+	public static final byte COMPRESSION_GZIP = 1;
+	public static final byte COMPRESSION_ZLIB = 2;
+	public static final byte COMPRESSION_NONE = 3;
+	
+	private static final int MAGIC = 0x4E42544C;
+	private static final int VERSION = 1;
+	private static final int HEADER_SIZE = 8;
+	private static final int RECORD_HEADER_SIZE = 8;
+	
+	private final FileChannel channel;
+	
+	private final int indexInterval;
+	
+	private final CompressionCodec gzip;
+	
+	private final CompressionCodec zlib;
+	
+	private final Object appendLock = new Object();
+	
+	private long[] index = new long[16];
+	
+	private volatile long size;
+	
+	private volatile long end;
+	
+	/**
+	 * Opens a record log, creating it if it does not exist
+	 * 
+	 * @param path the file
+	 * @throws IOException if the file can not be opened
+	 */
+	public NBTRecordLog(Path path) throws IOException {
+		this(path, DEFAULT_INDEX_INTERVAL, null);
+	}
+	
+	/**
+	 * Opens a record log, creating it if it does not exist
+	 * 
+	 * @param path the file
+	 * @param indexInterval the amount of records between two entries of the
+	 *            offset index
+	 * @param pool the pool to borrow inflaters and deflaters from, or null to not
+	 *            use a pool
+	 * @throws IOException if the file can not be opened
+	 * @throws MalformedNBTException if the file is not a record log
+	 */
+	public NBTRecordLog(Path path, int indexInterval, CodecPool pool) throws IOException {
+		if(indexInterval <= 0) throw new IllegalArgumentException("Illegal index interval " + indexInterval);
+		this.indexInterval = indexInterval;
+		this.gzip = new GzipCodec(-1, 8192, pool);
+		this.zlib = new ZlibCodec(-1, 8192, pool);
+		channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.CREATE);
+		try {
+			readIndex();
+		} catch(IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+	}
+	
+	private void readIndex() throws IOException {
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+		if(channel.size() == 0) {
+			header.putInt(MAGIC).putInt(VERSION).flip();
+			writeFully(header, 0);
+			header.clear();
+		}
+		if(channel.size() < HEADER_SIZE) throw new MalformedNBTException("File is too short for a record log");
+		readFully(header, 0);
+		header.flip();
+		if(header.getInt() != MAGIC) throw new MalformedNBTException("File is not a record log");
+		int version = header.getInt();
+		if(version != VERSION) throw new MalformedNBTException("Unsupported record log version " + version);
+		long fileSize = channel.size();
+		long position = HEADER_SIZE;
+		long count = 0;
+		long last = -1;
+		ByteBuffer recordHeader = ByteBuffer.allocate(RECORD_HEADER_SIZE);
+		while(fileSize - position >= RECORD_HEADER_SIZE) {
+			recordHeader.clear();
+			readFully(recordHeader, position);
+			int length = recordHeader.getInt(0);
+			if(length <= 0 || length > fileSize - position - RECORD_HEADER_SIZE) break;
+			if(count % indexInterval == 0) addIndexEntry(count, position);
+			last = position;
+			position += RECORD_HEADER_SIZE + length;
+			count++;
+		}
+		if(count > 0 && !isIntact(last, position)) {
+			position = last;
+			count--;
+		}
+		if(position < fileSize) channel.truncate(position);
+		size = count;
+		end = position;
+	}
+	
+	public int getIndexInterval() {
+		return indexInterval;
+	}
+	
+	/**
+	 * Gets the amount of records in the log
+	 * 
+	 * @return the amount of records
+	 */
+	public long size() {
+		return size;
+	}
+	
+	/**
+	 * Appends a tag compressed with zlib
+	 * 
+	 * @param tag the tag
+	 * @return the number of the record
+	 * @throws IOException if the record can not be written
+	 */
+	public long append(NBTTag tag) throws IOException {
+		return append(tag, COMPRESSION_ZLIB);
+	}
+	
+	/**
+	 * Appends a tag
+	 * 
+	 * @param tag the tag
+	 * @param compression the compression to use, {@link #COMPRESSION_GZIP},
+	 *            {@link #COMPRESSION_ZLIB} or {@link #COMPRESSION_NONE}
+	 * @return the number of the record
+	 * @throws IOException if the record can not be written
+	 */
+	public long append(NBTTag tag, byte compression) throws IOException {
+		return appendRaw(encode(tag, compression));
+	}
+	
+	/**
+	 * Appends an object written with an adapter registry
+	 * 
+	 * @param type the type of the object
+	 * @param obj the object
+	 * @param compression the compression to use
+	 * @param registry the registry to use
+	 * @param <T> the type to write from
+	 * @return the number of the record
+	 * @throws NBTParseException if there is an exception while parsing the data
+	 * @throws IOException if the record can not be written
+	 */
+	public <T> long append(
+		TypeWrapper<T> type,
+		Object obj,
+		byte compression,
+		AdapterRegistry registry
+	) throws NBTParseException, IOException {
+		RecordOutput bout = new RecordOutput(compression);
+		try(NBTOutputStream out = new NBTOutputStream(bout, getCodec(compression))) {
+			out.writeFromObject(type, obj, "", registry);
+		}
+		return appendRaw(bout.toRecord());
+	}
+	
+	/**
+	 * Reads a record
+	 * 
+	 * @param record the number of the record
+	 * @return the tag
+	 * @throws IOException if the record can not be read
+	 * @throws IndexOutOfBoundsException if the record does not exist
+	 */
+	public NBTTag read(long record) throws IOException {
+		try(NBTInputStream in = open(record)) {
+			return in.readTag();
+		}
+	}
+	
+	/**
+	 * Opens a stream over the decompressed data of a record. The compressed data
+	 * is read from the file before this method returns.
+	 * 
+	 * @param record the number of the record
+	 * @return the stream
+	 * @throws IOException if the record can not be read
+	 * @throws IndexOutOfBoundsException if the record does not exist
+	 */
+	public NBTInputStream open(long record) throws IOException {
+		long position = getOffset(record);
+		return openData(readRaw(position, end));
+	}
+	
+	/**
+	 * Creates a cursor that reads the records in order, starting at a record
+	 * 
+	 * @param record the number of the first record to read, may be equal to
+	 *            {@link #size()} to only read records appended later
+	 * @return the cursor
+	 * @throws IOException if the record headers can not be read
+	 * @throws IndexOutOfBoundsException if the record is after the end of the log
+	 */
+	public Cursor cursor(long record) throws IOException {
+		long size;
+		long end;
+		synchronized(appendLock) {
+			size = this.size;
+			end = this.end;
+		}
+		return new Cursor(record, record == size? end: getOffset(record));
+	}
+	
+	/**
+	 * Forces all appended records to the storage device
+	 * 
+	 * @throws IOException if an I/O exception occurs
+	 */
+	public void sync() throws IOException {
+		channel.force(false);
+	}
+	
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+	
+	/**
+	 * Compresses a tag into the bytes of a record, starting with the record
+	 * header
+	 */
+	ByteBuffer encode(NBTTag tag, byte compression) throws IOException {
+		RecordOutput bout = new RecordOutput(compression);
+		try(NBTOutputStream out = new NBTOutputStream(bout, getCodec(compression))) {
+			out.writeTag(tag, "");
+		}
+		return bout.toRecord();
+	}
+	
+	/**
+	 * Appends the bytes of a record, starting with the record header
+	 */
+	long appendRaw(ByteBuffer data) throws IOException {
+		return appendRaw(new ByteBuffer[] {
+			data
+		}, 1);
+	}
+	
+	/**
+	 * Appends the bytes of several records with one gathering write
+	 * 
+	 * @return the number of the first record
+	 */
+	long appendRaw(ByteBuffer[] records, int count) throws IOException {
+		synchronized(appendLock) {
+			long position = end;
+			try {
+				channel.position(position);
+				long remaining = 0;
+				for(int i = 0; i < count; i++)
+					remaining += records[i].remaining();
+				while(remaining > 0)
+					remaining -= channel.write(records, 0, count);
+			} catch(IOException | RuntimeException e) {
+				channel.truncate(position);
+				throw e;
+			}
+			long first = size;
+			for(int i = 0; i < count; i++) {
+				long record = first + i;
+				if(record % indexInterval == 0) addIndexEntry(record, position);
+				position += records[i].limit();
+			}
+			end = position;
+			size = first + count;
+			return first;
+		}
+	}
+	
+	/**
+	 * Finds the offset of a record by reading the headers after the closest
+	 * index entry before it
+	 */
+	private long getOffset(long record) throws IOException {
+		if(record < 0 || record >= size) throw new IndexOutOfBoundsException("Record " + record + " of " + size);
+		long position;
+		synchronized(appendLock) {
+			position = index[(int) (record / indexInterval)];
+		}
+		ByteBuffer header = ByteBuffer.allocate(4);
+		for(long i = record - record % indexInterval; i < record; i++) {
+			header.clear();
+			readFully(header, position);
+			position += RECORD_HEADER_SIZE + header.getInt(0);
+		}
+		return position;
+	}
+	
+	private void addIndexEntry(long record, long position) {
+		int entry = (int) (record / indexInterval);
+		if(entry == index.length) index = Arrays.copyOf(index, index.length * 2);
+		index[entry] = position;
+	}
+	
+	/**
+	 * Reads the data of a record, starting with the compression type, and checks
+	 * its CRC. The length in the header is checked against the end of the log
+	 * before the data is allocated, so a corrupted header can not make a reader
+	 * allocate more than the log holds.
+	 * 
+	 * @param end the end of the log, read after the record was known to exist
+	 */
+	private ByteBuffer readRaw(long position, long end) throws IOException {
+		ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER_SIZE);
+		readFully(header, position);
+		int length = header.getInt(0);
+		if(length <= 0 || length > end - position - RECORD_HEADER_SIZE) throw new MalformedNBTException(
+			"Illegal record length " + length + " at offset " + position
+		);
+		ByteBuffer data = ByteBuffer.allocate(length);
+		readFully(data, position + RECORD_HEADER_SIZE);
+		CRC32 crc = new CRC32();
+		crc.update(data.array(), 0, length);
+		if((int) crc.getValue() != header.getInt(4)) throw new MalformedNBTException(
+			"Record at offset " + position + " is corrupted"
+		);
+		data.flip();
+		return data;
+	}
+	
+	/**
+	 * Whether the data of a record that ends before the end of the log matches
+	 * its CRC
+	 */
+	private boolean isIntact(long position, long end) throws IOException {
+		try {
+			readRaw(position, end);
+			return true;
+		} catch(MalformedNBTException e) {
+			return false;
+		}
+	}
+	
+	private NBTInputStream openData(ByteBuffer data) throws IOException {
+		byte compression = data.get();
+		return new NBTInputStream(
+			new ByteArrayInputStream(data.array(), data.position(), data.remaining()),
+			getCodec(compression)
+		);
+	}
+	
+	/**
+	 * Gets the codec for a compression type of this format
+	 * 
+	 * @param compression the compression type
+	 * @return the codec
+	 * @throws MalformedNBTException if the type is not known
+	 */
+	private CompressionCodec getCodec(byte compression) {
+		switch(compression) {
+			case COMPRESSION_GZIP:
+				return gzip;
+			case COMPRESSION_ZLIB:
+				return zlib;
+			case COMPRESSION_NONE:
+				return CompressionCodec.NONE;
+			default:
+				throw new MalformedNBTException("Unknown record compression type " + compression);
+		}
+	}
+	
+	private void readFully(ByteBuffer buffer, long position) throws IOException {
+		while(buffer.hasRemaining()) {
+			int read = channel.read(buffer, position);
+			if(read < 0) throw new EOFException();
+			position += read;
+		}
+	}
+	
+	private void writeFully(ByteBuffer buffer, long position) throws IOException {
+		while(buffer.hasRemaining())
+			position += channel.write(buffer, position);
+	}
+	
+	/**
+	 * Reads the records of a log in order. A cursor remembers the offset of the
+	 * next record, so reading the next record does not use the index. When the
+	 * cursor reaches the end of the log, records appended later can still be
+	 * read from it. A cursor is not thread safe.
+	 */
+	public class Cursor {
+		
+		private long record;
+		
+		private long position;
+		
+		private Cursor(long record, long position) {
+			this.record = record;
+			this.position = position;
+		}
+		
+		/**
+		 * Gets the number of the record the next call to {@link #next()} reads
+		 * 
+		 * @return the number of the next record
+		 */
+		public long getRecord() {
+			return record;
+		}
+		
+		/**
+		 * Whether the log has a record after the ones already read by this cursor
+		 * 
+		 * @return true if there is another record
+		 */
+		public boolean hasNext() {
+			return record < size;
+		}
+		
+		/**
+		 * Reads the next record
+		 * 
+		 * @return the tag
+		 * @throws IOException if the record can not be read
+		 * @throws NoSuchElementException if there is no next record
+		 */
+		public NBTTag next() throws IOException {
+			try(NBTInputStream in = nextStream()) {
+				return in.readTag();
+			}
+		}
+		
+		/**
+		 * Opens a stream over the decompressed data of the next record
+		 * 
+		 * @return the stream
+		 * @throws IOException if the record can not be read
+		 * @throws NoSuchElementException if there is no next record
+		 */
+		public NBTInputStream nextStream() throws IOException {
+			if(!hasNext()) throw new NoSuchElementException();
+			ByteBuffer data = readRaw(position, end);
+			position += RECORD_HEADER_SIZE + data.limit();
+			record++;
+			return openData(data);
+		}
+	}
+	
+	/**
+	 * Collects the compressed data of a record after room for its header
+	 */
+	private static class RecordOutput extends ByteArrayOutputStream {
+		
+		public RecordOutput(byte compression) {
+			super(256);
+			count = RECORD_HEADER_SIZE;
+			write(compression);
+		}
+		
+		public ByteBuffer toRecord() {
+			CRC32 crc = new CRC32();
+			crc.update(buf, RECORD_HEADER_SIZE, count - RECORD_HEADER_SIZE);
+			ByteBuffer record = ByteBuffer.wrap(buf, 0, count);
+			record.putInt(0, count - RECORD_HEADER_SIZE).putInt(4, (int) crc.getValue());
+			return record;
+		}
+	}
+}
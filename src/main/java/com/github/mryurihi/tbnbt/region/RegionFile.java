@@ -0,0 +1,622 @@
+/*
+MIT License
+
+Copyright (c) 2017 MrYurihi Redstone
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package com.github.mryurihi.tbnbt.region;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import com.github.mryurihi.tbnbt.compression.CodecPool;
+import com.github.mryurihi.tbnbt.compression.CompressionCodec;
+import com.github.mryurihi.tbnbt.compression.GzipCodec;
+import com.github.mryurihi.tbnbt.compression.ZlibCodec;
+import com.github.mryurihi.tbnbt.exceptions.MalformedNBTException;
+import com.github.mryurihi.tbnbt.stream.NBTInputStream;
+import com.github.mryurihi.tbnbt.stream.NBTKeyTable;
+import com.github.mryurihi.tbnbt.stream.NBTOutputStream;
+import com.github.mryurihi.tbnbt.tag.NBTTag;
+import com.github.mryurihi.tbnbt.tag.NBTTagCompound;
+
+/**
+ * Reads and writes the chunks of an Anvil region file ({@code .mca}). A region
+ * holds 32 by 32 chunks. The file starts with a table of the sector offset and
+ * a table of the timestamp of each chunk, followed by the chunk data in 4 KiB
+ * sectors.<br>
+ * <br>
+ * Chunk coordinates may be given as region local (0 to 31) or as world chunk
+ * coordinates, only the lowest 5 bits are used. This class is thread safe.
+ * Every chunk has its own lock, and chunks are read with positional reads, so
+ * reads of different chunks never wait for each other and only writes to the
+ * same chunk block a read.<br>
+ * <br>
+ * Rewriting chunks leaves unused sectors behind. {@link #compact()} moves the
+ * chunks together in place, in Morton order of their coordinates so that
+ * chunks that are close in the world are close in the file, while the region
+ * stays in use.
+ */
+public class RegionFile implements Closeable {
+	
+	/**
+	 * The size of a sector in bytes
+	 */
+	public static final int SECTOR_SIZE = 4096;
+	
+	public static final byte COMPRESSION_GZIP = 1;
+	public static final byte COMPRESSION_ZLIB = 2;
+	public static final byte COMPRESSION_NONE = 3;
+	
+	private static final int CHUNKS = 1024;
+	private static final int HEADER_SECTORS = 2;
+	private static final int MAX_SECTORS = 255;
+	
+	private final Path path;
+	
+	private final Object channelLock = new Object();
+	
+	private final Object compactLock = new Object();
+	
+	private volatile FileChannel channel;
+	
+	private final int[] offsets = new int[CHUNKS];
+	
+	private final int[] timestamps = new int[CHUNKS];
+	
+	private final ReadWriteLock[] locks = new ReadWriteLock[CHUNKS];
+	
+	private final BitSet usedSectors = new BitSet();
+	
+	private final CompressionCodec gzip;
+	
+	private final CompressionCodec zlib;
+	
+	private volatile NBTKeyTable keyTable;
+	
+	/**
+	 * Opens a region file, creating it if it does not exist
+	 * 
+	 * @param path the file
+	 * @throws IOException if the file can not be opened
+	 */
+	public RegionFile(Path path) throws IOException {
+		this(path, null);
+	}
+	
+	/**
+	 * Opens a region file, creating it if it does not exist. Chunks are
+	 * compressed and decompressed with inflaters and deflaters from a pool.
+	 * 
+	 * @param path the file
+	 * @param pool the pool to borrow from, or null to not use a pool
+	 * @throws IOException if the file can not be opened
+	 */
+	public RegionFile(Path path, CodecPool pool) throws IOException {
+		this.gzip = new GzipCodec(-1, 8192, pool);
+		this.zlib = new ZlibCodec(-1, 8192, pool);
+		this.path = path;
+		for(int i = 0; i < CHUNKS; i++)
+			locks[i] = new ReentrantReadWriteLock();
+		open();
+	}
+	
+	/**
+	 * Rewrites a region file without unused sectors, with the chunks in Morton
+	 * order
+	 * 
+	 * @param path the file
+	 * @throws IOException if the file can not be compacted
+	 * @see #compact()
+	 */
+	public static void compact(Path path) throws IOException {
+		try(RegionFile region = new RegionFile(path)) {
+			region.compact();
+		}
+	}
+	
+	private void open() throws IOException {
+		channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.CREATE);
+		try {
+			readHeader();
+		} catch(IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+	}
+	
+	private void readHeader() throws IOException {
+		if(channel.size() < HEADER_SECTORS * SECTOR_SIZE) {
+			writeFully(ByteBuffer.allocate(HEADER_SECTORS * SECTOR_SIZE), 0);
+		}
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SECTORS * SECTOR_SIZE);
+		readFully(header, 0);
+		header.flip();
+		header.asIntBuffer().get(offsets).get(timestamps);
+		long fileSectors = (channel.size() + SECTOR_SIZE - 1) / SECTOR_SIZE;
+		usedSectors.clear();
+		usedSectors.set(0, HEADER_SECTORS);
+		for(int i = 0; i < CHUNKS; i++) {
+			int offset = offsets[i] >>> 8;
+			int count = offsets[i] & 0xFF;
+			if(offsets[i] == 0) continue;
+			if(offset < HEADER_SECTORS || count == 0 || offset + count > fileSectors) {
+				offsets[i] = 0;
+				continue;
+			}
+			usedSectors.set(offset, offset + count);
+		}
+	}
+	
+	/**
+	 * Whether a chunk is stored in this region
+	 * 
+	 * @param x the x coordinate of the chunk
+	 * @param z the z coordinate of the chunk
+	 * @return true if the chunk exists
+	 */
+	public boolean hasChunk(int x, int z) {
+		int index = getIndex(x, z);
+		locks[index].readLock().lock();
+		try {
+			return offsets[index] != 0;
+		} finally {
+			locks[index].readLock().unlock();
+		}
+	}
+	
+	/**
+	 * Gets the time a chunk was last written
+	 * 
+	 * @param x the x coordinate of the chunk
+	 * @param z the z coordinate of the chunk
+	 * @return the time in seconds since the epoch, or 0 if the chunk does not
+	 *         exist
+	 */
+	public int getTimestamp(int x, int z) {
+		int index = getIndex(x, z);
+		locks[index].readLock().lock();
+		try {
+			return timestamps[index];
+		} finally {
+			locks[index].readLock().unlock();
+		}
+	}
+	
+	/**
+	 * Reads a chunk
+	 * 
+	 * @param x the x coordinate of the chunk
+	 * @param z the z coordinate of the chunk
+	 * @return the chunk, or null if it does not exist
+	 * @throws IOException if the chunk can not be read
+	 */
+	public NBTTagCompound readChunk(int x, int z) throws IOException {
+		try(NBTInputStream in = openChunk(x, z)) {
+			return in == null? null: in.readTag().getAsTagCompound();
+		}
+	}
+	
+	/**
+	 * Opens a stream over the decompressed data of a chunk. The compressed data is
+	 * read from the file before this method returns, so the stream does not keep
+	 * the chunk locked.
+	 * 
+	 * @param x the x coordinate of the chunk
+	 * @param z the z coordinate of the chunk
+	 * @return the stream, or null if the chunk does not exist
+	 * @throws IOException if the chunk can not be read
+	 */
+	public NBTInputStream openChunk(int x, int z) throws IOException {
+		ByteBuffer data = readRaw(getIndex(x, z));
+		if(data == null) return null;
+		byte compression = data.get();
+		NBTInputStream in = new NBTInputStream(
+			new ByteArrayInputStream(data.array(), data.position(), data.remaining()),
+			getCodec(compression)
+		);
+		in.setKeyTable(keyTable);
+		return in;
+	}
+	
+	public NBTKeyTable getKeyTable() {
+		return keyTable;
+	}
+	
+	/**
+	 * Sets the table the keys of the chunks that are read are interned with
+	 * 
+	 * @param keyTable the table, or null to not intern keys
+	 */
+	public void setKeyTable(NBTKeyTable keyTable) {
+		this.keyTable = keyTable;
+	}
+	
+	/**
+	 * Writes a chunk compressed with zlib, replacing it if it exists
+	 * 
+	 * @param x the x coordinate of the chunk
+	 * @param z the z coordinate of the chunk
+	 * @param chunk the chunk
+	 * @throws IOException if the chunk can not be written
+	 */
+	public void writeChunk(int x, int z, NBTTag chunk) throws IOException {
+		writeChunk(x, z, chunk, COMPRESSION_ZLIB);
+	}
+	
+	/**
+	 * Writes a chunk, replacing it if it exists. The chunk's old sectors are
+	 * reused if it still fits in them, otherwise it is moved to the first free
+	 * sectors that are large enough.
+	 * 
+	 * @param x the x coordinate of the chunk
+	 * @param z the z coordinate of the chunk
+	 * @param chunk the chunk
+	 * @param compression the compression to use, {@link #COMPRESSION_GZIP},
+	 *            {@link #COMPRESSION_ZLIB} or {@link #COMPRESSION_NONE}
+	 * @throws IOException if the chunk can not be written
+	 */
+	public void writeChunk(int x, int z, NBTTag chunk, byte compression) throws IOException {
+		ByteArrayOutputStream bout = new ByteArrayOutputStream(SECTOR_SIZE);
+		try(NBTOutputStream out = new NBTOutputStream(bout, getCodec(compression))) {
+			out.writeTag(chunk, "");
+		}
+		writeRaw(getIndex(x, z), compression, bout.toByteArray(), 0, bout.size(), (int) (System.currentTimeMillis() / 1000));
+	}
+	
+	/**
+	 * Removes a chunk from this region. Its sectors are reused by later writes.
+	 * 
+	 * @param x the x coordinate of the chunk
+	 * @param z the z coordinate of the chunk
+	 * @throws IOException if the header can not be written
+	 */
+	public void deleteChunk(int x, int z) throws IOException {
+		int index = getIndex(x, z);
+		locks[index].writeLock().lock();
+		try {
+			int old = offsets[index];
+			if(old == 0) return;
+			writeHeaderEntry(index, 0, 0);
+			synchronized(usedSectors) {
+				usedSectors.clear(old >>> 8, (old >>> 8) + (old & 0xFF));
+			}
+		} finally {
+			locks[index].writeLock().unlock();
+		}
+	}
+	
+	/**
+	 * Gets the amount of sectors in the file that are not used by any chunk
+	 * 
+	 * @return the amount of unused sectors
+	 * @throws IOException if the size of the file can not be read
+	 */
+	public int getUnusedSectors() throws IOException {
+		long fileSectors;
+		synchronized(channelLock) {
+			fileSectors = (channel.size() + SECTOR_SIZE - 1) / SECTOR_SIZE;
+		}
+		synchronized(usedSectors) {
+			return (int) Math.max(0, fileSectors - usedSectors.cardinality());
+		}
+	}
+	
+	/**
+	 * Removes the unused sectors from the file. The chunks are moved to the start
+	 * of the file one after another in Morton order of their coordinates, so
+	 * chunks that are close in the world are close in the file, and the file is
+	 * then truncated.<br>
+	 * <br>
+	 * The file is compacted in place, one chunk at a time. Moving a chunk holds
+	 * the lock of that chunk and briefly the locks of the chunks that are in the
+	 * way, so reads and writes of other chunks go on during compaction. A chunk
+	 * is always copied to its new sectors and the header updated before its old
+	 * sectors are reused, and the file is synced before sectors that were freed
+	 * are overwritten, so a crash leaves every chunk readable. Chunks that are
+	 * written during compaction may end up after the compacted chunks.
+	 * 
+	 * @throws IOException if the file can not be compacted
+	 */
+	public void compact() throws IOException {
+		synchronized(compactLock) {
+			int next = HEADER_SECTORS;
+			for(int morton = 0; morton < CHUNKS; morton++) {
+				int index = getIndex(deinterleave(morton), deinterleave(morton >>> 1));
+				locks[index].writeLock().lock();
+				try {
+					int entry = offsets[index];
+					if(entry == 0 || entry >>> 8 < next) continue;
+					if(entry >>> 8 > next) moveTo(index, next);
+					next += offsets[index] & 0xFF;
+				} finally {
+					locks[index].writeLock().unlock();
+				}
+			}
+			synchronized(usedSectors) {
+				synchronized(channelLock) {
+					long size = (long) Math.max(HEADER_SECTORS, usedSectors.length()) * SECTOR_SIZE;
+					if(channel.size() > size) channel.truncate(size);
+					channel.force(true);
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Moves a chunk to the sectors starting at a target, moving the chunks that
+	 * are in the way to free sectors first. The caller holds the write lock of
+	 * the chunk. The sectors from the target on are reserved while the chunks in
+	 * the way are moved, and old sectors are only freed once the header that no
+	 * longer refers to them has been synced.
+	 */
+	private void moveTo(int index, int target) throws IOException {
+		int count = offsets[index] & 0xFF;
+		int end = target + count;
+		BitSet reserved = new BitSet();
+		synchronized(usedSectors) {
+			for(int sector = target; sector < end; sector++) {
+				if(!usedSectors.get(sector)) {
+					usedSectors.set(sector);
+					reserved.set(sector);
+				}
+			}
+		}
+		List<Integer> moved = new ArrayList<>();
+		try {
+			for(int other = 0; other < CHUNKS; other++) {
+				if(!overlaps(other, target, end)) continue;
+				locks[other].writeLock().lock();
+				try {
+					int entry = offsets[other];
+					if(entry == 0 || !overlaps(other, target, end)) continue;
+					int offset = allocate(entry & 0xFF);
+					try {
+						copySectors(entry, offset);
+						writeHeaderEntry(other, offset << 8 | entry & 0xFF, timestamps[other]);
+					} catch(IOException | RuntimeException e) {
+						free(offset, entry & 0xFF);
+						throw e;
+					}
+					moved.add(entry);
+				} finally {
+					locks[other].writeLock().unlock();
+				}
+			}
+			sync();
+			for(int entry: moved)
+				releaseOutside(entry, target, end, reserved);
+			int entry = offsets[index];
+			copySectors(entry, target);
+			writeHeaderEntry(index, target << 8 | count, timestamps[index]);
+			sync();
+			reserved.clear();
+			releaseOutside(entry, target, end, reserved);
+		} finally {
+			synchronized(usedSectors) {
+				usedSectors.andNot(reserved);
+			}
+		}
+	}
+	
+	/**
+	 * Whether a chunk is stored in any of the sectors from start to end, which is
+	 * checked under the read lock of the chunk unless the caller holds its write
+	 * lock
+	 */
+	private boolean overlaps(int index, int start, int end) {
+		locks[index].readLock().lock();
+		try {
+			int entry = offsets[index];
+			if(entry == 0) return false;
+			int offset = entry >>> 8;
+			return offset < end && offset + (entry & 0xFF) > start;
+		} finally {
+			locks[index].readLock().unlock();
+		}
+	}
+	
+	/**
+	 * Frees the old sectors of a moved chunk, except for those from start to end,
+	 * which stay reserved for the chunk that is moved there
+	 */
+	private void releaseOutside(int entry, int start, int end, BitSet reserved) {
+		int offset = entry >>> 8;
+		synchronized(usedSectors) {
+			for(int sector = offset; sector < offset + (entry & 0xFF); sector++) {
+				if(sector >= start && sector < end) reserved.set(sector);
+				else usedSectors.clear(sector);
+			}
+		}
+	}
+	
+	private void copySectors(int entry, int target) throws IOException {
+		ByteBuffer data = ByteBuffer.allocate((entry & 0xFF) * SECTOR_SIZE);
+		long position = (long) (entry >>> 8) * SECTOR_SIZE;
+		while(data.hasRemaining()) {
+			int read = channel.read(data, position);
+			if(read < 0) break;
+			position += read;
+		}
+		data.clear();
+		writeFully(data, (long) target * SECTOR_SIZE);
+	}
+	
+	/**
+	 * Forces all written chunks to the storage device
+	 * 
+	 * @throws IOException if an I/O exception occurs
+	 */
+	public void sync() throws IOException {
+		synchronized(channelLock) {
+			channel.force(true);
+		}
+	}
+	
+	@Override
+	public void close() throws IOException {
+		synchronized(channelLock) {
+			channel.close();
+		}
+	}
+	
+	/**
+	 * Gets the codec for a compression type of this format
+	 * 
+	 * @param compression the compression type
+	 * @return the codec
+	 * @throws MalformedNBTException if the type is not known
+	 */
+	private CompressionCodec getCodec(byte compression) {
+		switch(compression) {
+			case COMPRESSION_GZIP:
+				return gzip;
+			case COMPRESSION_ZLIB:
+				return zlib;
+			case COMPRESSION_NONE:
+				return CompressionCodec.NONE;
+			default:
+				throw new MalformedNBTException("Unknown chunk compression type " + compression);
+		}
+	}
+	
+	/**
+	 * Reads the stored bytes of a chunk, starting with the compression type
+	 */
+	ByteBuffer readRaw(int index) throws IOException {
+		ByteBuffer data;
+		locks[index].readLock().lock();
+		try {
+			int entry = offsets[index];
+			if(entry == 0) return null;
+			data = ByteBuffer.allocate((entry & 0xFF) * SECTOR_SIZE);
+			long position = (long) (entry >>> 8) * SECTOR_SIZE;
+			while(data.hasRemaining()) {
+				int read = channel.read(data, position);
+				if(read < 0) break;
+				position += read;
+			}
+		} finally {
+			locks[index].readLock().unlock();
+		}
+		data.flip();
+		if(data.remaining() < 5) throw new MalformedNBTException("Chunk data is truncated");
+		int length = data.getInt();
+		if(length <= 0 || length > data.remaining()) throw new MalformedNBTException("Illegal chunk length " + length);
+		data.limit(data.position() + length);
+		return data;
+	}
+	
+	/**
+	 * Stores the bytes of a chunk
+	 */
+	void writeRaw(int index, byte compression, byte[] data, int off, int len, int timestamp) throws IOException {
+		int sectors = (len + 5 + SECTOR_SIZE - 1) / SECTOR_SIZE;
+		if(sectors > MAX_SECTORS) throw new IOException("Chunk of " + len + " bytes is too large for a region file");
+		ByteBuffer buffer = ByteBuffer.allocate(sectors * SECTOR_SIZE);
+		buffer.putInt(len + 1).put(compression).put(data, off, len);
+		buffer.clear();
+		locks[index].writeLock().lock();
+		try {
+			int old = offsets[index];
+			int oldOffset = old >>> 8;
+			int oldCount = old & 0xFF;
+			int offset = old != 0 && sectors <= oldCount? oldOffset: allocate(sectors);
+			try {
+				writeFully(buffer, (long) offset * SECTOR_SIZE);
+				writeHeaderEntry(index, offset << 8 | sectors, timestamp);
+			} catch(IOException | RuntimeException e) {
+				if(offset != oldOffset) free(offset, sectors);
+				throw e;
+			}
+			if(offset == oldOffset) free(oldOffset + sectors, oldCount - sectors);
+			else if(old != 0) free(oldOffset, oldCount);
+		} finally {
+			locks[index].writeLock().unlock();
+		}
+	}
+	
+	private int allocate(int sectors) {
+		synchronized(usedSectors) {
+			int start = usedSectors.nextClearBit(HEADER_SECTORS);
+			while(true) {
+				int end = usedSectors.nextSetBit(start);
+				if(end < 0 || end - start >= sectors) break;
+				start = usedSectors.nextClearBit(end);
+			}
+			usedSectors.set(start, start + sectors);
+			return start;
+		}
+	}
+	
+	private void free(int offset, int sectors) {
+		synchronized(usedSectors) {
+			usedSectors.clear(offset, offset + sectors);
+		}
+	}
+	
+	private void writeHeaderEntry(int index, int entry, int timestamp) throws IOException {
+		ByteBuffer value = ByteBuffer.allocate(4);
+		value.putInt(0, entry);
+		writeFully(value, index * 4L);
+		value.clear();
+		value.putInt(0, timestamp);
+		writeFully(value, SECTOR_SIZE + index * 4L);
+		offsets[index] = entry;
+		timestamps[index] = timestamp;
+	}
+	
+	private void readFully(ByteBuffer buffer, long position) throws IOException {
+		while(buffer.hasRemaining()) {
+			int read = channel.read(buffer, position);
+			if(read < 0) throw new EOFException();
+			position += read;
+		}
+	}
+	
+	private void writeFully(ByteBuffer buffer, long position) throws IOException {
+		while(buffer.hasRemaining())
+			position += channel.write(buffer, position);
+	}
+	
+	static int getIndex(int x, int z) {
+		return (x & 31) + (z & 31) * 32;
+	}
+	
+	private static int deinterleave(int morton) {
+		int value = 0;
+		for(int bit = 0; bit < 5; bit++)
+			value |= (morton >>> (bit * 2) & 1) << bit;
+		return value;
+	}
+}
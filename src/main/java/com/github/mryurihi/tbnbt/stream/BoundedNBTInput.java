@@ -0,0 +1,325 @@
+/*
+MIT License
+
+Copyright (c) 2017 MrYurihi Redstone
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package com.github.mryurihi.tbnbt.stream;
+
+import java.io.DataInput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import com.github.mryurihi.tbnbt.TagType;
+import com.github.mryurihi.tbnbt.exceptions.MalformedNBTException;
+import com.github.mryurihi.tbnbt.exceptions.NBTLimitExceededException;
+import com.github.mryurihi.tbnbt.tag.NBTTag;
+
+/**
+ * An input that reads untrusted NBT data with limits on the amount of bytes,
+ * the nesting depth and the length of arrays and lists. The limits are checked
+ * while the data is read, before anything is allocated for it, so a crafted
+ * length or deeply nested tags fail with a {@link NBTLimitExceededException}
+ * instead of running out of memory or stack.<br>
+ * <br>
+ * 
+ * <pre>
+ * BoundedNBTInput in = new BoundedNBTInput(new NBTInputStream(packet, false), 2 * 1024 * 1024);
+ * NBTTag tag = in.readTag(false);
+ * </pre>
+ * 
+ * The tags, {@link NBTReader} and {@link NBTTag#skipPayload(TagType, DataInput)}
+ * report nesting and array lengths to the input, so the limits apply to
+ * everything read through it.
+ */
+public class BoundedNBTInput implements DataInput {
+	
+	/**
+	 * The default maximum nesting depth, the same as the one used by Minecraft
+	 */
+	public static final int DEFAULT_MAX_DEPTH = 512;
+	
+	private DataInput in;
+	
+	private NBTEncoding encoding;
+	
+	private long maxBytes;
+	
+	private int maxDepth;
+	
+	private int maxArrayElements;
+	
+	private NBTKeyTable keyTable;
+	
+	private long bytesRead;
+	
+	private int depth;
+	
+	/**
+	 * Creates an input with a byte limit, the default depth limit and no limit on
+	 * the length of arrays other than the byte limit
+	 * 
+	 * @param in the input to read from
+	 * @param maxBytes the maximum amount of bytes to read
+	 */
+	public BoundedNBTInput(DataInput in, long maxBytes) {
+		this(in, maxBytes, DEFAULT_MAX_DEPTH, Integer.MAX_VALUE);
+	}
+	
+	/**
+	 * Creates an input with limits
+	 * 
+	 * @param in the input to read from
+	 * @param maxBytes the maximum amount of bytes to read
+	 * @param maxDepth the maximum amount of nested compounds and lists
+	 * @param maxArrayElements the maximum length of an array or list
+	 */
+	public BoundedNBTInput(DataInput in, long maxBytes, int maxDepth, int maxArrayElements) {
+		if(maxBytes < 0) throw new IllegalArgumentException("Illegal byte limit " + maxBytes);
+		if(maxDepth < 0) throw new IllegalArgumentException("Illegal depth limit " + maxDepth);
+		if(maxArrayElements < 0) throw new IllegalArgumentException("Illegal array limit " + maxArrayElements);
+		this.in = in;
+		this.encoding = NBTEncoding.of(in);
+		this.maxBytes = maxBytes;
+		this.maxDepth = maxDepth;
+		this.maxArrayElements = maxArrayElements;
+	}
+	
+	public NBTEncoding getEncoding() {
+		return encoding;
+	}
+	
+	public NBTKeyTable getKeyTable() {
+		return keyTable;
+	}
+	
+	/**
+	 * Sets the table the names of compound entries are interned with
+	 * 
+	 * @param keyTable the table, or null to not intern names
+	 */
+	public void setKeyTable(NBTKeyTable keyTable) {
+		this.keyTable = keyTable;
+	}
+	
+	/**
+	 * Reads the name of a compound entry, interned with the key table if one is
+	 * set
+	 * 
+	 * @return the name
+	 * @throws IOException if an I/O exception occurs
+	 */
+	public String readKey() throws IOException {
+		if(keyTable == null) return readUTF();
+		int length = encoding.isVarInt()? NBTEncoding.readUnsignedVarInt(this): readUnsignedShort();
+		if(length < 0) throw new MalformedNBTException("Illegal string length " + length);
+		checkBytes(length);
+		return keyTable.read(this, length, encoding);
+	}
+	
+	/**
+	 * Gets the amount of bytes that have been read or skipped
+	 * 
+	 * @return the amount of bytes
+	 */
+	public long getBytesRead() {
+		return bytesRead;
+	}
+	
+	/**
+	 * Gets the amount of compounds and lists that are being read
+	 * 
+	 * @return the depth
+	 */
+	public int getDepth() {
+		return depth;
+	}
+	
+	/**
+	 * Reads an NBT tag within the limits
+	 * 
+	 * @param named if the tag is named
+	 * @return The NBTTag
+	 * @throws IOException if an I/O exception occurs
+	 */
+	public NBTTag readTag(boolean named) throws IOException {
+		TagType type;
+		try {
+			type = TagType.getTypeById(readByte());
+		} catch(IllegalArgumentException e) {
+			throw new MalformedNBTException(e);
+		}
+		if(named) NBTTag.skipPayload(TagType.STRING, this);
+		return NBTTag.newTagByType(type, this);
+	}
+	
+	/**
+	 * Reads a named NBT tag within the limits
+	 * 
+	 * @return The NBTTag
+	 * @throws IOException if an I/O exception occurs
+	 */
+	public NBTTag readTag() throws IOException {
+		return readTag(true);
+	}
+	
+	/**
+	 * Called when a compound or list starts
+	 */
+	public void enterNested() {
+		if(depth >= maxDepth) throw new NBTLimitExceededException("Nesting is deeper than " + maxDepth);
+		depth++;
+	}
+	
+	/**
+	 * Called when a compound or list ends
+	 */
+	public void exitNested() {
+		depth--;
+	}
+	
+	/**
+	 * Checks the length of an array or list before it is allocated. The length
+	 * may not exceed the element limit, and the elements must fit in the bytes
+	 * that are left.
+	 * 
+	 * @param length the amount of elements
+	 * @param elementSize the least amount of bytes of each element
+	 */
+	public void checkArrayLength(int length, int elementSize) {
+		if(length < 0) throw new MalformedNBTException("Illegal length " + length);
+		if(length > maxArrayElements) throw new NBTLimitExceededException(
+			"Length " + length + " is larger than " + maxArrayElements
+		);
+		if(encoding.isVarInt()) elementSize = Math.min(elementSize, 1);
+		checkBytes((long) length * elementSize);
+	}
+	
+	private void checkBytes(long bytes) {
+		if(bytes > maxBytes - bytesRead) throw new NBTLimitExceededException(
+			"Data is larger than " + maxBytes + " bytes"
+		);
+	}
+	
+	private void count(long bytes) {
+		checkBytes(bytes);
+		bytesRead += bytes;
+	}
+	
+	@Override
+	public void readFully(byte[] b) throws IOException {
+		readFully(b, 0, b.length);
+	}
+	
+	@Override
+	public void readFully(byte[] b, int off, int len) throws IOException {
+		count(len);
+		in.readFully(b, off, len);
+	}
+	
+	@Override
+	public int skipBytes(int n) throws IOException {
+		checkBytes(n);
+		int skipped = in.skipBytes(n);
+		bytesRead += skipped;
+		return skipped;
+	}
+	
+	@Override
+	public boolean readBoolean() throws IOException {
+		count(1);
+		return in.readBoolean();
+	}
+	
+	@Override
+	public byte readByte() throws IOException {
+		count(1);
+		return in.readByte();
+	}
+	
+	@Override
+	public int readUnsignedByte() throws IOException {
+		count(1);
+		return in.readUnsignedByte();
+	}
+	
+	@Override
+	public short readShort() throws IOException {
+		count(2);
+		return in.readShort();
+	}
+	
+	@Override
+	public int readUnsignedShort() throws IOException {
+		count(2);
+		return in.readUnsignedShort();
+	}
+	
+	@Override
+	public char readChar() throws IOException {
+		count(2);
+		return in.readChar();
+	}
+	
+	@Override
+	public int readInt() throws IOException {
+		if(encoding.isVarInt()) return NBTEncoding.decodeZigZag(NBTEncoding.readUnsignedVarInt(this));
+		count(4);
+		return in.readInt();
+	}
+	
+	@Override
+	public long readLong() throws IOException {
+		if(encoding.isVarInt()) return NBTEncoding.decodeZigZag(NBTEncoding.readUnsignedVarLong(this));
+		count(8);
+		return in.readLong();
+	}
+	
+	@Override
+	public float readFloat() throws IOException {
+		count(4);
+		return in.readFloat();
+	}
+	
+	@Override
+	public double readDouble() throws IOException {
+		count(8);
+		return in.readDouble();
+	}
+	
+	/**
+	 * Not supported, NBT data has no lines
+	 */
+	@Override
+	public String readLine() {
+		throw new UnsupportedOperationException("BoundedNBTInput does not read lines");
+	}
+	
+	@Override
+	public String readUTF() throws IOException {
+		if(encoding == NBTEncoding.BIG_ENDIAN) return ModifiedUTF8.readUTF(this);
+		int length = encoding.isVarInt()? NBTEncoding.readUnsignedVarInt(this): readUnsignedShort();
+		if(length < 0) throw new MalformedNBTException("Illegal string length " + length);
+		checkBytes(length);
+		byte[] bytes = new byte[length];
+		readFully(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+}
@@ -0,0 +1,210 @@
+/*
+MIT License
+
+Copyright (c) 2017 MrYurihi Redstone
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package com.github.mryurihi.tbnbt.stream;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.UTFDataFormatException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Encodes and decodes the modified UTF-8 used by {@link DataInput#readUTF()}
+ * and {@link DataOutput#writeUTF(String)} for NBT strings. Strings that only
+ * contain ASCII characters are copied without decoding. The byte and char
+ * buffers needed for the conversion are kept per thread and reused, so reading
+ * or writing a string only allocates the string itself.
+ */
+public final class ModifiedUTF8 {
+	
+	/**
+	 * The maximum amount of bytes in an encoded string
+	 */
+	public static final int MAX_LENGTH = 0xFFFF;
+	
+	private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+	
+	private ModifiedUTF8() {
+	}
+	
+	/**
+	 * Reads a string with an unsigned 16 bit length prefix
+	 * 
+	 * @param in the input to read from
+	 * @return the string
+	 * @throws IOException if an I/O exception occurs or the string is malformed
+	 */
+	public static String readUTF(DataInput in) throws IOException {
+		int length = in.readUnsignedShort();
+		byte[] bytes = scratchBytes(length);
+		in.readFully(bytes, 0, length);
+		return decode(bytes, 0, length);
+	}
+	
+	/**
+	 * Writes a string with an unsigned 16 bit length prefix using a single write
+	 * 
+	 * @param out the output to write to
+	 * @param s the string
+	 * @throws IOException if an I/O exception occurs or the string is too long
+	 */
+	public static void writeUTF(DataOutput out, String s) throws IOException {
+		int length = encodedLength(s);
+		if(length > MAX_LENGTH) throw new UTFDataFormatException("encoded string too long: " + length + " bytes");
+		byte[] bytes = scratchBytes(length + 2);
+		bytes[0] = (byte) (length >>> 8);
+		bytes[1] = (byte) length;
+		encode(s, bytes, 2);
+		out.write(bytes, 0, length + 2);
+	}
+	
+	/**
+	 * Gets the amount of bytes a string is encoded to
+	 * 
+	 * @param s the string
+	 * @return the length of the encoded string, without the length prefix
+	 */
+	public static int encodedLength(String s) {
+		int length = s.length();
+		for(int i = 0; i < s.length(); i++) {
+			char c = s.charAt(i);
+			if(c == 0 || c >= 0x80) length += c >= 0x800? 2: 1;
+		}
+		return length;
+	}
+	
+	/**
+	 * Encodes a string into an array. The array must have room for
+	 * {@link #encodedLength(String)} bytes.
+	 * 
+	 * @param s the string
+	 * @param dest the array to encode into
+	 * @param offset the position in the array to start at
+	 * @return the position in the array after the encoded string
+	 */
+	public static int encode(String s, byte[] dest, int offset) {
+		int length = s.length();
+		int i = 0;
+		for(; i < length; i++) {
+			char c = s.charAt(i);
+			if(c == 0 || c >= 0x80) break;
+			dest[offset++] = (byte) c;
+		}
+		for(; i < length; i++) {
+			char c = s.charAt(i);
+			if(c != 0 && c < 0x80) dest[offset++] = (byte) c;
+			else if(c >= 0x800) {
+				dest[offset++] = (byte) (0xE0 | c >> 12 & 0x0F);
+				dest[offset++] = (byte) (0x80 | c >> 6 & 0x3F);
+				dest[offset++] = (byte) (0x80 | c & 0x3F);
+			} else {
+				dest[offset++] = (byte) (0xC0 | c >> 6 & 0x1F);
+				dest[offset++] = (byte) (0x80 | c & 0x3F);
+			}
+		}
+		return offset;
+	}
+	
+	/**
+	 * Decodes a string
+	 * 
+	 * @param bytes the array holding the encoded string
+	 * @param offset the position of the string in the array
+	 * @param length the length of the encoded string
+	 * @return the string
+	 * @throws UTFDataFormatException if the bytes are not valid modified UTF-8
+	 */
+	public static String decode(byte[] bytes, int offset, int length) throws UTFDataFormatException {
+		int end = offset + length;
+		int i = offset;
+		while(i < end && bytes[i] >= 0)
+			i++;
+		if(i == end) return new String(bytes, offset, length, StandardCharsets.ISO_8859_1);
+		char[] chars = scratchChars(length);
+		int count = 0;
+		for(int j = offset; j < i; j++)
+			chars[count++] = (char) bytes[j];
+		while(i < end) {
+			int c = bytes[i] & 0xFF;
+			switch(c >> 4) {
+				case 0:
+				case 1:
+				case 2:
+				case 3:
+				case 4:
+				case 5:
+				case 6:
+				case 7:
+					chars[count++] = (char) c;
+					i++;
+					break;
+				case 12:
+				case 13:
+					if(i + 2 > end) throw new UTFDataFormatException("malformed input: partial character at end");
+					int c2 = bytes[i + 1];
+					if((c2 & 0xC0) != 0x80) throw malformed(i + 1 - offset);
+					chars[count++] = (char) ((c & 0x1F) << 6 | c2 & 0x3F);
+					i += 2;
+					break;
+				case 14:
+					if(i + 3 > end) throw new UTFDataFormatException("malformed input: partial character at end");
+					c2 = bytes[i + 1];
+					int c3 = bytes[i + 2];
+					if((c2 & 0xC0) != 0x80 || (c3 & 0xC0) != 0x80) throw malformed(i + 2 - offset);
+					chars[count++] = (char) ((c & 0x0F) << 12 | (c2 & 0x3F) << 6 | c3 & 0x3F);
+					i += 3;
+					break;
+				default:
+					throw malformed(i - offset);
+			}
+		}
+		return new String(chars, 0, count);
+	}
+	
+	/**
+	 * Gets this thread's scratch byte array, with room for at least an amount of
+	 * bytes
+	 */
+	static byte[] scratchBytes(int length) {
+		Scratch scratch = SCRATCH.get();
+		if(scratch.bytes.length < length) scratch.bytes = new byte[Math.max(length, scratch.bytes.length * 2)];
+		return scratch.bytes;
+	}
+	
+	private static char[] scratchChars(int length) {
+		Scratch scratch = SCRATCH.get();
+		if(scratch.chars.length < length) scratch.chars = new char[Math.max(length, scratch.chars.length * 2)];
+		return scratch.chars;
+	}
+	
+	private static UTFDataFormatException malformed(int position) {
+		return new UTFDataFormatException("malformed input around byte " + position);
+	}
+	
+	private static class Scratch {
+		
+		private byte[] bytes = new byte[256];
+		private char[] chars = new char[256];
+	}
+}
@@ -0,0 +1,251 @@
+/*
+MIT License
+
+Copyright (c) 2017 MrYurihi Redstone
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package com.github.mryurihi.tbnbt.stream;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+
+import com.github.mryurihi.tbnbt.exceptions.MalformedNBTException;
+
+/**
+ * Reads and writes the elements of array tags in bulk. A buffer input or output
+ * copies the whole array through an {@link IntBuffer} or {@link LongBuffer}
+ * view of its buffer, other inputs and outputs move the elements in blocks
+ * through a reusable byte array. Arrays in the {@link NBTEncoding#VARINT}
+ * encoding have no fixed element size and are still read one element at a
+ * time.
+ */
+public final class NBTArrays {
+	
+	private static final int BLOCK_SIZE = 8192;
+	
+	private NBTArrays() {
+	}
+	
+	/**
+	 * Reads the length and the elements of a byte array
+	 * 
+	 * @param in the input to read from
+	 * @return the array
+	 * @throws IOException if an I/O exception occurs
+	 */
+	public static byte[] readByteArray(DataInput in) throws IOException {
+		byte[] value = new byte[readLength(in, 1)];
+		in.readFully(value);
+		return value;
+	}
+	
+	/**
+	 * Reads the length and the elements of an int array
+	 * 
+	 * @param in the input to read from
+	 * @return the array
+	 * @throws IOException if an I/O exception occurs
+	 */
+	public static int[] readIntArray(DataInput in) throws IOException {
+		int[] value = new int[readLength(in, 4)];
+		readFully(in, value);
+		return value;
+	}
+	
+	/**
+	 * Reads the length and the elements of a long array
+	 * 
+	 * @param in the input to read from
+	 * @return the array
+	 * @throws IOException if an I/O exception occurs
+	 */
+	public static long[] readLongArray(DataInput in) throws IOException {
+		long[] value = new long[readLength(in, 8)];
+		readFully(in, value);
+		return value;
+	}
+	
+	/**
+	 * Reads ints until an array is full
+	 * 
+	 * @param in the input to read from
+	 * @param dest the array to read into
+	 * @throws IOException if an I/O exception occurs
+	 */
+	public static void readFully(DataInput in, int[] dest) throws IOException {
+		NBTEncoding encoding = NBTEncoding.of(in);
+		if(encoding.isVarInt()) {
+			for(int i = 0; i < dest.length; i++)
+				dest[i] = in.readInt();
+			return;
+		}
+		if(in instanceof NBTBufferInput) {
+			ByteBuffer buffer = ((NBTBufferInput) in).getBuffer();
+			if(dest.length * 4L > buffer.remaining()) throw new EOFException();
+			buffer.asIntBuffer().get(dest);
+			buffer.position(buffer.position() + dest.length * 4);
+			return;
+		}
+		byte[] block = ModifiedUTF8.scratchBytes(BLOCK_SIZE);
+		IntBuffer ints = ByteBuffer.wrap(block).order(encoding.getByteOrder()).asIntBuffer();
+		for(int i = 0; i < dest.length;) {
+			int count = Math.min(dest.length - i, BLOCK_SIZE / 4);
+			in.readFully(block, 0, count * 4);
+			ints.clear();
+			ints.get(dest, i, count);
+			i += count;
+		}
+	}
+	
+	/**
+	 * Reads longs until an array is full
+	 * 
+	 * @param in the input to read from
+	 * @param dest the array to read into
+	 * @throws IOException if an I/O exception occurs
+	 */
+	public static void readFully(DataInput in, long[] dest) throws IOException {
+		NBTEncoding encoding = NBTEncoding.of(in);
+		if(encoding.isVarInt()) {
+			for(int i = 0; i < dest.length; i++)
+				dest[i] = in.readLong();
+			return;
+		}
+		if(in instanceof NBTBufferInput) {
+			ByteBuffer buffer = ((NBTBufferInput) in).getBuffer();
+			if(dest.length * 8L > buffer.remaining()) throw new EOFException();
+			buffer.asLongBuffer().get(dest);
+			buffer.position(buffer.position() + dest.length * 8);
+			return;
+		}
+		byte[] block = ModifiedUTF8.scratchBytes(BLOCK_SIZE);
+		LongBuffer longs = ByteBuffer.wrap(block).order(encoding.getByteOrder()).asLongBuffer();
+		for(int i = 0; i < dest.length;) {
+			int count = Math.min(dest.length - i, BLOCK_SIZE / 8);
+			in.readFully(block, 0, count * 8);
+			longs.clear();
+			longs.get(dest, i, count);
+			i += count;
+		}
+	}
+	
+	/**
+	 * Writes the remaining bytes of a buffer without a length prefix. The
+	 * buffer's position is not changed.
+	 * 
+	 * @param out the output to write to
+	 * @param values the bytes
+	 * @throws IOException if an I/O exception occurs
+	 */
+	public static void write(DataOutput out, ByteBuffer values) throws IOException {
+		if(values.hasArray()) {
+			out.write(values.array(), values.arrayOffset() + values.position(), values.remaining());
+			return;
+		}
+		byte[] block = ModifiedUTF8.scratchBytes(BLOCK_SIZE);
+		ByteBuffer src = values.duplicate();
+		while(src.hasRemaining()) {
+			int count = Math.min(src.remaining(), BLOCK_SIZE);
+			src.get(block, 0, count);
+			out.write(block, 0, count);
+		}
+	}
+	
+	/**
+	 * Writes the remaining ints of a buffer without a length prefix. The buffer's
+	 * position is not changed.
+	 * 
+	 * @param out the output to write to
+	 * @param values the ints
+	 * @throws IOException if an I/O exception occurs
+	 */
+	public static void write(DataOutput out, IntBuffer values) throws IOException {
+		NBTEncoding encoding = NBTEncoding.of(out);
+		if(encoding.isVarInt()) {
+			for(int i = values.position(); i < values.limit(); i++)
+				out.writeInt(values.get(i));
+			return;
+		}
+		if(out instanceof NBTBufferOutput) {
+			((NBTBufferOutput) out).putInts(values.duplicate());
+			return;
+		}
+		byte[] block = ModifiedUTF8.scratchBytes(BLOCK_SIZE);
+		IntBuffer ints = ByteBuffer.wrap(block).order(encoding.getByteOrder()).asIntBuffer();
+		IntBuffer src = values.duplicate();
+		while(src.hasRemaining()) {
+			int count = Math.min(src.remaining(), BLOCK_SIZE / 4);
+			IntBuffer part = src.duplicate();
+			part.limit(part.position() + count);
+			ints.clear();
+			ints.put(part);
+			src.position(src.position() + count);
+			out.write(block, 0, count * 4);
+		}
+	}
+	
+	/**
+	 * Writes the remaining longs of a buffer without a length prefix. The
+	 * buffer's position is not changed.
+	 * 
+	 * @param out the output to write to
+	 * @param values the longs
+	 * @throws IOException if an I/O exception occurs
+	 */
+	public static void write(DataOutput out, LongBuffer values) throws IOException {
+		NBTEncoding encoding = NBTEncoding.of(out);
+		if(encoding.isVarInt()) {
+			for(int i = values.position(); i < values.limit(); i++)
+				out.writeLong(values.get(i));
+			return;
+		}
+		if(out instanceof NBTBufferOutput) {
+			((NBTBufferOutput) out).putLongs(values.duplicate());
+			return;
+		}
+		byte[] block = ModifiedUTF8.scratchBytes(BLOCK_SIZE);
+		LongBuffer longs = ByteBuffer.wrap(block).order(encoding.getByteOrder()).asLongBuffer();
+		LongBuffer src = values.duplicate();
+		while(src.hasRemaining()) {
+			int count = Math.min(src.remaining(), BLOCK_SIZE / 8);
+			LongBuffer part = src.duplicate();
+			part.limit(part.position() + count);
+			longs.clear();
+			longs.put(part);
+			src.position(src.position() + count);
+			out.write(block, 0, count * 8);
+		}
+	}
+	
+	private static int readLength(DataInput in, int elementSize) throws IOException {
+		int length = in.readInt();
+		if(length < 0) throw new MalformedNBTException("Illegal array length " + length);
+		if(in instanceof BoundedNBTInput) ((BoundedNBTInput) in).checkArrayLength(length, elementSize);
+		else if(in instanceof NBTBufferInput && !NBTEncoding.of(in).isVarInt()) {
+			if((long) length * elementSize > ((NBTBufferInput) in).getBuffer().remaining()) throw new EOFException();
+		}
+		return length;
+	}
+}
@@ -0,0 +1,438 @@
+/*
+MIT License
+
+Copyright (c) 2017 MrYurihi Redstone
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package com.github.mryurihi.tbnbt.stream;
+
+import java.io.DataInput;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import com.github.mryurihi.tbnbt.TagType;
+import com.github.mryurihi.tbnbt.adapter.AdapterRegistry;
+import com.github.mryurihi.tbnbt.adapter.NBTParseException;
+import com.github.mryurihi.tbnbt.adapter.TypeWrapper;
+import com.github.mryurihi.tbnbt.exceptions.MalformedNBTException;
+import com.github.mryurihi.tbnbt.tag.LazyNBTTagCompound;
+import com.github.mryurihi.tbnbt.tag.NBTTag;
+
+/**
+ * Reads uncompressed NBT data directly from a {@link ByteBuffer}. Works with
+ * both heap and direct buffers and reads from the buffer's current position,
+ * advancing it as data is consumed.<br>
+ * <br>
+ * Uncompressed files can be read without copying them onto the heap by mapping
+ * them with {@link #map(Path)}. Data in another {@link NBTEncoding} is read by
+ * creating the input with that encoding.
+ */
+public class NBTBufferInput implements DataInput {
+	
+	private ByteBuffer buffer;
+	
+	private boolean arrayViews;
+	
+	private NBTEncoding encoding;
+	
+	private boolean varInt;
+	
+	private NBTKeyTable keyTable;
+	
+	/**
+	 * Creates a new input over a buffer. The buffer's byte order is set to big
+	 * endian.
+	 * 
+	 * @param buffer the buffer to read from
+	 */
+	public NBTBufferInput(ByteBuffer buffer) {
+		this(buffer, NBTEncoding.BIG_ENDIAN);
+	}
+	
+	/**
+	 * Creates a new input over a buffer. The buffer's byte order is set to the
+	 * byte order of the encoding.
+	 * 
+	 * @param buffer the buffer to read from
+	 * @param encoding the encoding of the data
+	 */
+	public NBTBufferInput(ByteBuffer buffer, NBTEncoding encoding) {
+		this.buffer = buffer.order(encoding.getByteOrder());
+		this.encoding = encoding;
+		this.varInt = encoding.isVarInt();
+	}
+	
+	public NBTBufferInput(byte[] data) {
+		this(ByteBuffer.wrap(data));
+	}
+	
+	public NBTBufferInput(byte[] data, NBTEncoding encoding) {
+		this(ByteBuffer.wrap(data), encoding);
+	}
+	
+	public NBTEncoding getEncoding() {
+		return encoding;
+	}
+	
+	public ByteBuffer getBuffer() {
+		return buffer;
+	}
+	
+	/**
+	 * Maps an uncompressed NBT file into memory and creates an input that reads
+	 * from the mapped region. Array tags read from the returned input are views of
+	 * the mapping.
+	 * 
+	 * @param path the file to map
+	 * @return the input
+	 * @throws IOException if the file can not be mapped
+	 */
+	public static NBTBufferInput map(Path path) throws IOException {
+		try(FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			return map(channel, 0, channel.size());
+		}
+	}
+	
+	/**
+	 * Maps a region of a channel into memory and creates an input that reads from
+	 * the mapped region. Array tags read from the returned input are views of the
+	 * mapping. The mapping stays valid after the channel is closed.
+	 * 
+	 * @param channel the channel to map
+	 * @param position the position of the region in the channel
+	 * @param size the size of the region
+	 * @return the input
+	 * @throws IOException if the region can not be mapped
+	 */
+	public static NBTBufferInput map(FileChannel channel, long position, long size) throws IOException {
+		if(size > Integer.MAX_VALUE) throw new IOException("region of " + size + " bytes is too large to map");
+		MappedByteBuffer mapped = channel.map(MapMode.READ_ONLY, position, size);
+		NBTBufferInput in = new NBTBufferInput(mapped);
+		in.setArrayViews(true);
+		return in;
+	}
+	
+	/**
+	 * Whether array tags are read as views of the buffer instead of being copied
+	 * into arrays. Arrays of VarInts can not be viewed, so this is always false
+	 * for {@link NBTEncoding#VARINT}.
+	 * 
+	 * @return true if array tags are read as views
+	 */
+	public boolean isArrayViews() {
+		return arrayViews && !varInt;
+	}
+	
+	/**
+	 * Sets whether array tags are read as views of the buffer instead of being
+	 * copied into arrays. Views share the buffer's content, so the buffer must not
+	 * be reused while the tags are in use.
+	 * 
+	 * @param arrayViews if array tags should be read as views
+	 */
+	public void setArrayViews(boolean arrayViews) {
+		this.arrayViews = arrayViews;
+	}
+	
+	public NBTKeyTable getKeyTable() {
+		return keyTable;
+	}
+	
+	/**
+	 * Sets the table the names of compound entries are interned with
+	 * 
+	 * @param keyTable the table, or null to not intern names
+	 */
+	public void setKeyTable(NBTKeyTable keyTable) {
+		this.keyTable = keyTable;
+	}
+	
+	/**
+	 * Reads the name of a compound entry. If a key table is set, names that are
+	 * already in it are read from the buffer without allocating.
+	 * 
+	 * @return the name
+	 * @throws IOException if the buffer ends before the name does
+	 */
+	public String readKey() throws IOException {
+		if(keyTable == null) return readUTF();
+		int length = varInt? NBTEncoding.readUnsignedVarInt(this): readUnsignedShort();
+		if(length < 0 || length > buffer.remaining()) throw new EOFException();
+		if(!buffer.hasArray()) return keyTable.read(this, length, encoding);
+		int position = buffer.position();
+		buffer.position(position + length);
+		return keyTable.intern(buffer.array(), buffer.arrayOffset() + position, length, encoding);
+	}
+	
+	/**
+	 * Reads a slice of the buffer without copying it
+	 * 
+	 * @param count the amount of elements in the slice
+	 * @param elementSize the size of each element in bytes
+	 * @return a buffer that shares its content with the slice
+	 * @throws IOException if the buffer ends before the slice does
+	 */
+	public ByteBuffer readSlice(int count, int elementSize) throws IOException {
+		if(count < 0) throw new MalformedNBTException("Illegal array length " + count);
+		long length = (long) count * elementSize;
+		if(length > buffer.remaining()) throw new EOFException();
+		ByteBuffer slice = buffer.slice();
+		slice.limit((int) length);
+		buffer.position(buffer.position() + (int) length);
+		return slice.order(buffer.order());
+	}
+	
+	/**
+	 * Reads an NBT tag from the buffer
+	 * 
+	 * @param named if the tag is named
+	 * @return The NBTTag
+	 * @throws IOException if the buffer ends before the tag does
+	 */
+	public NBTTag readTag(boolean named) throws IOException {
+		byte type = readByte();
+		if(named) skipPayload(TagType.STRING);
+		return NBTTag.newTagByType(TagType.getTypeById(type), this);
+	}
+	
+	/**
+	 * Reads a named NBT tag from the buffer
+	 * 
+	 * @return The NBTTag
+	 * @throws IOException if the buffer ends before the tag does
+	 */
+	public NBTTag readTag() throws IOException {
+		return readTag(true);
+	}
+	
+	/**
+	 * Reads an NBT tag from the buffer. If the tag is a compound it is returned as
+	 * a {@link LazyNBTTagCompound}, which only decodes its children when they are
+	 * accessed.
+	 * 
+	 * @param named if the tag is named
+	 * @return The NBTTag
+	 * @throws IOException if the buffer ends before the tag does
+	 */
+	public NBTTag readLazyTag(boolean named) throws IOException {
+		byte type = readByte();
+		if(named) skipPayload(TagType.STRING);
+		if(type == TagType.COMPOUND.getId()) return LazyNBTTagCompound.read(this);
+		return NBTTag.newTagByType(TagType.getTypeById(type), this);
+	}
+	
+	/**
+	 * Reads a named NBT tag from the buffer. If the tag is a compound it is
+	 * returned as a {@link LazyNBTTagCompound}.
+	 * 
+	 * @return The NBTTag
+	 * @throws IOException if the buffer ends before the tag does
+	 */
+	public NBTTag readLazyTag() throws IOException {
+		return readLazyTag(true);
+	}
+	
+	/**
+	 * Skips the payload of a tag without decoding it. Everything except compounds
+	 * and lists of non-primitive tags is skipped by moving the buffer's position.
+	 * 
+	 * @param type the type of the tag
+	 * @throws IOException if the buffer ends before the payload does
+	 * @see NBTTag#skipPayload(TagType, DataInput)
+	 */
+	public void skipPayload(TagType type) throws IOException {
+		NBTTag.skipPayload(type, this);
+	}
+	
+	/**
+	 * Reads an NBT tag from the buffer into an object
+	 * 
+	 * @param type the type of the object to read to
+	 * @param registry the registry to use
+	 * @param <T> the type to write into
+	 * @return the object that has been written to
+	 * @throws IOException if the buffer ends before the tag does
+	 * @throws NBTParseException If an exception occurs while parsing NBT
+	 */
+	@SuppressWarnings("unchecked")
+	public <T> T readToType(TypeWrapper<T> type, AdapterRegistry registry) throws IOException, NBTParseException {
+		TagType id = TagType.getTypeById(readByte());
+		registry.fromString(this);
+		return (T) registry.getAdapterForObject(type).fromNBT(id, this, type, registry);
+	}
+	
+	/**
+	 * Reads an NBT tag from the buffer into an object. Will create a new registry
+	 * object
+	 * 
+	 * @param type the type of the object to read to
+	 * @param <T> the type to read from
+	 * @return the object that has been written to
+	 * @throws IOException if the buffer ends before the tag does
+	 * @throws NBTParseException If an exception occurs while parsing NBT
+	 */
+	public <T> T readToType(TypeWrapper<T> type) throws IOException, NBTParseException {
+		return readToType(type, new AdapterRegistry.Builder().create());
+	}
+	
+	@Override
+	public void readFully(byte[] b) throws IOException {
+		readFully(b, 0, b.length);
+	}
+	
+	@Override
+	public void readFully(byte[] b, int off, int len) throws IOException {
+		try {
+			buffer.get(b, off, len);
+		} catch(BufferUnderflowException e) {
+			throw new EOFException();
+		}
+	}
+	
+	@Override
+	public int skipBytes(int n) {
+		int skipped = Math.max(0, Math.min(n, buffer.remaining()));
+		buffer.position(buffer.position() + skipped);
+		return skipped;
+	}
+	
+	@Override
+	public boolean readBoolean() throws IOException {
+		return readByte() != 0;
+	}
+	
+	@Override
+	public byte readByte() throws IOException {
+		try {
+			return buffer.get();
+		} catch(BufferUnderflowException e) {
+			throw new EOFException();
+		}
+	}
+	
+	@Override
+	public int readUnsignedByte() throws IOException {
+		return readByte() & 0xFF;
+	}
+	
+	@Override
+	public short readShort() throws IOException {
+		try {
+			return buffer.getShort();
+		} catch(BufferUnderflowException e) {
+			throw new EOFException();
+		}
+	}
+	
+	@Override
+	public int readUnsignedShort() throws IOException {
+		return readShort() & 0xFFFF;
+	}
+	
+	@Override
+	public char readChar() throws IOException {
+		try {
+			return buffer.getChar();
+		} catch(BufferUnderflowException e) {
+			throw new EOFException();
+		}
+	}
+	
+	@Override
+	public int readInt() throws IOException {
+		if(varInt) return NBTEncoding.decodeZigZag(NBTEncoding.readUnsignedVarInt(this));
+		try {
+			return buffer.getInt();
+		} catch(BufferUnderflowException e) {
+			throw new EOFException();
+		}
+	}
+	
+	@Override
+	public long readLong() throws IOException {
+		if(varInt) return NBTEncoding.decodeZigZag(NBTEncoding.readUnsignedVarLong(this));
+		try {
+			return buffer.getLong();
+		} catch(BufferUnderflowException e) {
+			throw new EOFException();
+		}
+	}
+	
+	@Override
+	public float readFloat() throws IOException {
+		try {
+			return buffer.getFloat();
+		} catch(BufferUnderflowException e) {
+			throw new EOFException();
+		}
+	}
+	
+	@Override
+	public double readDouble() throws IOException {
+		try {
+			return buffer.getDouble();
+		} catch(BufferUnderflowException e) {
+			throw new EOFException();
+		}
+	}
+	
+	@Override
+	public String readLine() throws IOException {
+		if(!buffer.hasRemaining()) return null;
+		StringBuilder line = new StringBuilder();
+		while(buffer.hasRemaining()) {
+			char c = (char) (buffer.get() & 0xFF);
+			if(c == '\n') break;
+			if(c == '\r') {
+				if(buffer.hasRemaining() && buffer.get(buffer.position()) == '\n') buffer.get();
+				break;
+			}
+			line.append(c);
+		}
+		return line.toString();
+	}
+	
+	@Override
+	public String readUTF() throws IOException {
+		int length = varInt? NBTEncoding.readUnsignedVarInt(this): readUnsignedShort();
+		if(length < 0 || length > buffer.remaining()) throw new EOFException();
+		byte[] bytes;
+		int offset;
+		if(buffer.hasArray()) {
+			bytes = buffer.array();
+			offset = buffer.arrayOffset() + buffer.position();
+		} else {
+			bytes = varInt? new byte[length]: ModifiedUTF8.scratchBytes(length);
+			offset = 0;
+			buffer.duplicate().get(bytes, 0, length);
+		}
+		buffer.position(buffer.position() + length);
+		if(encoding == NBTEncoding.BIG_ENDIAN) return ModifiedUTF8.decode(bytes, offset, length);
+		return new String(bytes, offset, length, StandardCharsets.UTF_8);
+	}
+}
@@ -0,0 +1,346 @@
+/*
+MIT License
+
+Copyright (c) 2017 MrYurihi Redstone
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package com.github.mryurihi.tbnbt.stream;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.UTFDataFormatException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.charset.StandardCharsets;
+
+import com.github.mryurihi.tbnbt.adapter.AdapterRegistry;
+import com.github.mryurihi.tbnbt.adapter.NBTAdapter;
+import com.github.mryurihi.tbnbt.adapter.NBTParseException;
+import com.github.mryurihi.tbnbt.adapter.TypeWrapper;
+import com.github.mryurihi.tbnbt.tag.NBTTag;
+
+/**
+ * Writes uncompressed NBT data directly into a {@link ByteBuffer}. The buffer
+ * grows as needed, keeping the kind (heap or direct) of the buffer it started
+ * with. Data in another {@link NBTEncoding} is written by creating the output
+ * with that encoding.
+ */
+public class NBTBufferOutput implements DataOutput {
+	
+	/**
+	 * The largest buffer that can be allocated, some VMs reserve a few header
+	 * words in an array
+	 */
+	private static final int MAX_CAPACITY = Integer.MAX_VALUE - 8;
+	
+	private ByteBuffer buffer;
+	
+	private NBTEncoding encoding;
+	
+	private boolean varInt;
+	
+	/**
+	 * Creates a new output that writes into a buffer, starting at the buffer's
+	 * current position. If the buffer fills up it is replaced by a larger copy, so
+	 * the written data should be fetched with {@link #getBuffer()}.
+	 * 
+	 * @param buffer the buffer to write to
+	 */
+	public NBTBufferOutput(ByteBuffer buffer) {
+		this(buffer, NBTEncoding.BIG_ENDIAN);
+	}
+	
+	/**
+	 * Creates a new output that writes into a buffer in an encoding. The buffer's
+	 * byte order is set to the byte order of the encoding.
+	 * 
+	 * @param buffer the buffer to write to
+	 * @param encoding the encoding to write
+	 */
+	public NBTBufferOutput(ByteBuffer buffer, NBTEncoding encoding) {
+		this.buffer = buffer.order(encoding.getByteOrder());
+		this.encoding = encoding;
+		this.varInt = encoding.isVarInt();
+	}
+	
+	public NBTBufferOutput(int initialCapacity) {
+		this(ByteBuffer.allocate(initialCapacity));
+	}
+	
+	public NBTBufferOutput(NBTEncoding encoding) {
+		this(ByteBuffer.allocate(256), encoding);
+	}
+	
+	public NBTEncoding getEncoding() {
+		return encoding;
+	}
+	
+	public NBTBufferOutput() {
+		this(256);
+	}
+	
+	/**
+	 * Gets the data that has been written so far. The returned buffer shares its
+	 * content with this output and is positioned at the start of the data.
+	 * 
+	 * @return the written data
+	 */
+	public ByteBuffer getBuffer() {
+		ByteBuffer out = buffer.duplicate().order(buffer.order());
+		out.flip();
+		return out;
+	}
+	
+	/**
+	 * Copies the data that has been written so far into a new array
+	 * 
+	 * @return the written data
+	 */
+	public byte[] toByteArray() {
+		ByteBuffer data = getBuffer();
+		byte[] out = new byte[data.remaining()];
+		data.get(out);
+		return out;
+	}
+	
+	public int size() {
+		return buffer.position();
+	}
+	
+	/**
+	 * Discards all written data so the output can be reused
+	 */
+	public void reset() {
+		buffer.clear();
+	}
+	
+	/**
+	 * Writes an NBTTag to the buffer.
+	 * 
+	 * @param tag the tag to write
+	 * @param name the name of the tag
+	 * @throws IOException if the name is too long to be encoded
+	 */
+	public void writeTag(NBTTag tag, String name) throws IOException {
+		writeByte(tag.getTagType().getId());
+		writeUTF(name);
+		tag.writePayloadBytes(this);
+	}
+	
+	/**
+	 * Writes an NBTTag to the buffer without a name, as used by the network
+	 * protocol
+	 * 
+	 * @param tag the tag to write
+	 * @throws IOException if a string in the tag is too long to be encoded
+	 */
+	public void writeUnnamedTag(NBTTag tag) throws IOException {
+		writeByte(tag.getTagType().getId());
+		tag.writePayloadBytes(this);
+	}
+	
+	/**
+	 * Writes an object to the buffer
+	 * 
+	 * @param type the type of the object
+	 * @param obj the object to be written
+	 * @param registry the registry to use
+	 * @param name the name of the tag to write
+	 * @param <T> the type to write from
+	 * @throws NBTParseException if there is an exception while parsing the data
+	 * @throws IOException if the buffer can not grow large enough
+	 */
+	public <T> void writeFromObject(
+		TypeWrapper<T> type,
+		Object obj,
+		String name,
+		AdapterRegistry registry
+	) throws NBTParseException, IOException {
+		NBTAdapter<?> adapter = registry.getAdapterForObject(type);
+		writeByte(adapter.getId().getId());
+		registry.writeString(this, name);
+		adapter.toNBT(this, obj, type, registry);
+	}
+	
+	/**
+	 * Writes an object to the buffer. Will use a new registry
+	 * 
+	 * @param type the type of the object
+	 * @param obj the object to be written
+	 * @param name the name of the tag to write
+	 * @param <T> the type to write from
+	 * @throws NBTParseException if there is an exception while parsing the data
+	 * @throws IOException if the buffer can not grow large enough
+	 */
+	public <
+		T> void writeFromObject(TypeWrapper<T> type, Object obj, String name) throws NBTParseException, IOException {
+		writeFromObject(type, obj, name, new AdapterRegistry.Builder().create());
+	}
+	
+	private void ensureCapacity(long bytes) throws IOException {
+		if(buffer.remaining() >= bytes) return;
+		long required = buffer.position() + bytes;
+		if(required > MAX_CAPACITY) throw new IOException(
+			"can not grow buffer to " + required + " bytes, at most " + MAX_CAPACITY + " bytes can be written"
+		);
+		int capacity = (int) Math.min(Math.max(buffer.capacity() * 2L, required), MAX_CAPACITY);
+		ByteBuffer grown = buffer.isDirect()? ByteBuffer.allocateDirect(capacity): ByteBuffer.allocate(capacity);
+		buffer.flip();
+		grown.put(buffer);
+		buffer = grown.order(buffer.order());
+	}
+	
+	private void putVarLong(long value) throws IOException {
+		ensureCapacity(10);
+		while((value & ~0x7FL) != 0) {
+			buffer.put((byte) (value & 0x7F | 0x80));
+			value >>>= 7;
+		}
+		buffer.put((byte) value);
+	}
+	
+	void putInts(IntBuffer values) throws IOException {
+		long bytes = values.remaining() * 4L;
+		ensureCapacity(bytes);
+		buffer.asIntBuffer().put(values);
+		buffer.position(buffer.position() + (int) bytes);
+	}
+	
+	void putLongs(LongBuffer values) throws IOException {
+		long bytes = values.remaining() * 8L;
+		ensureCapacity(bytes);
+		buffer.asLongBuffer().put(values);
+		buffer.position(buffer.position() + (int) bytes);
+	}
+	
+	@Override
+	public void write(int b) throws IOException {
+		ensureCapacity(1);
+		buffer.put((byte) b);
+	}
+	
+	@Override
+	public void write(byte[] b) throws IOException {
+		write(b, 0, b.length);
+	}
+	
+	@Override
+	public void write(byte[] b, int off, int len) throws IOException {
+		ensureCapacity(len);
+		buffer.put(b, off, len);
+	}
+	
+	@Override
+	public void writeBoolean(boolean v) throws IOException {
+		write(v? 1: 0);
+	}
+	
+	@Override
+	public void writeByte(int v) throws IOException {
+		write(v);
+	}
+	
+	@Override
+	public void writeShort(int v) throws IOException {
+		ensureCapacity(2);
+		buffer.putShort((short) v);
+	}
+	
+	@Override
+	public void writeChar(int v) throws IOException {
+		ensureCapacity(2);
+		buffer.putChar((char) v);
+	}
+	
+	@Override
+	public void writeInt(int v) throws IOException {
+		if(varInt) {
+			putVarLong(NBTEncoding.encodeZigZag(v) & 0xFFFFFFFFL);
+			return;
+		}
+		ensureCapacity(4);
+		buffer.putInt(v);
+	}
+	
+	@Override
+	public void writeLong(long v) throws IOException {
+		if(varInt) {
+			putVarLong(NBTEncoding.encodeZigZag(v));
+			return;
+		}
+		ensureCapacity(8);
+		buffer.putLong(v);
+	}
+	
+	@Override
+	public void writeFloat(float v) throws IOException {
+		ensureCapacity(4);
+		buffer.putFloat(v);
+	}
+	
+	@Override
+	public void writeDouble(double v) throws IOException {
+		ensureCapacity(8);
+		buffer.putDouble(v);
+	}
+	
+	@Override
+	public void writeBytes(String s) throws IOException {
+		ensureCapacity(s.length());
+		for(int i = 0; i < s.length(); i++)
+			buffer.put((byte) s.charAt(i));
+	}
+	
+	@Override
+	public void writeChars(String s) throws IOException {
+		ensureCapacity(s.length() * 2L);
+		for(int i = 0; i < s.length(); i++)
+			buffer.putChar(s.charAt(i));
+	}
+	
+	@Override
+	public void writeUTF(String s) throws IOException {
+		if(encoding != NBTEncoding.BIG_ENDIAN) {
+			byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+			if(varInt) putVarLong(bytes.length);
+			else if(bytes.length > 0xFFFF) throw new UTFDataFormatException(
+				"encoded string too long: " + bytes.length + " bytes"
+			);
+			else writeShort(bytes.length);
+			write(bytes);
+			return;
+		}
+		int length = ModifiedUTF8.encodedLength(s);
+		if(length > ModifiedUTF8.MAX_LENGTH) throw new UTFDataFormatException(
+			"encoded string too long: " + length + " bytes"
+		);
+		ensureCapacity(length + 2);
+		buffer.putShort((short) length);
+		if(buffer.hasArray()) {
+			int offset = buffer.arrayOffset();
+			buffer.position(ModifiedUTF8.encode(s, buffer.array(), offset + buffer.position()) - offset);
+		} else {
+			byte[] bytes = ModifiedUTF8.scratchBytes(length);
+			ModifiedUTF8.encode(s, bytes, 0);
+			buffer.put(bytes, 0, length);
+		}
+	}
+}
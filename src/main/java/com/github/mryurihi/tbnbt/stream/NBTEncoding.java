@@ -0,0 +1,176 @@
+/*
+MIT License
+
+Copyright (c) 2017 MrYurihi Redstone
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package com.github.mryurihi.tbnbt.stream;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteOrder;
+
+import com.github.mryurihi.tbnbt.exceptions.MalformedNBTException;
+
+/**
+ * How the primitives, lengths and strings of NBT data are encoded. Java edition
+ * uses {@link #BIG_ENDIAN}. Bedrock edition uses {@link #LITTLE_ENDIAN} for
+ * files and {@link #VARINT} on the network.<br>
+ * <br>
+ * The inputs and outputs of this package decode the encoding directly, so the
+ * tag classes read and write every encoding through the same
+ * {@link DataInput} and {@link DataOutput} methods. In the Bedrock encodings
+ * strings are standard UTF-8 instead of modified UTF-8.
+ */
+public enum NBTEncoding {
+	
+	/**
+	 * Big endian primitives, 16 bit string lengths and modified UTF-8 strings
+	 */
+	BIG_ENDIAN(ByteOrder.BIG_ENDIAN, false),
+	
+	/**
+	 * Little endian primitives, 16 bit string lengths and UTF-8 strings
+	 */
+	LITTLE_ENDIAN(ByteOrder.LITTLE_ENDIAN, false),
+	
+	/**
+	 * Little endian shorts, floats and doubles, ZigZag VarInt ints, longs and
+	 * lengths, and UTF-8 strings with an unsigned VarInt length
+	 */
+	VARINT(ByteOrder.LITTLE_ENDIAN, true);
+	
+	private final ByteOrder byteOrder;
+	
+	private final boolean varInt;
+	
+	private NBTEncoding(ByteOrder byteOrder, boolean varInt) {
+		this.byteOrder = byteOrder;
+		this.varInt = varInt;
+	}
+	
+	public ByteOrder getByteOrder() {
+		return byteOrder;
+	}
+	
+	/**
+	 * Whether ints, longs and lengths are encoded as variable length integers
+	 * 
+	 * @return true if ints are VarInts
+	 */
+	public boolean isVarInt() {
+		return varInt;
+	}
+	
+	/**
+	 * Gets the encoding of an input or output of this package. Any other input or
+	 * output is assumed to be {@link #BIG_ENDIAN}, as required by
+	 * {@link DataInput} and {@link DataOutput}.
+	 * 
+	 * @param io the input or output
+	 * @return its encoding
+	 */
+	public static NBTEncoding of(Object io) {
+		if(io instanceof NBTBufferInput) return ((NBTBufferInput) io).getEncoding();
+		if(io instanceof NBTInputStream) return ((NBTInputStream) io).getEncoding();
+		if(io instanceof NBTBufferOutput) return ((NBTBufferOutput) io).getEncoding();
+		if(io instanceof NBTOutputStream) return ((NBTOutputStream) io).getEncoding();
+		if(io instanceof BoundedNBTInput) return ((BoundedNBTInput) io).getEncoding();
+		return BIG_ENDIAN;
+	}
+	
+	/**
+	 * Reads the length prefix of a string in the encoding of an input
+	 * 
+	 * @param in the input
+	 * @return the length of the string in bytes
+	 * @throws IOException if an I/O exception occurs
+	 */
+	public static int readStringLength(DataInput in) throws IOException {
+		return of(in).isVarInt()? readUnsignedVarInt(in): in.readUnsignedShort();
+	}
+	
+	/**
+	 * Reads an unsigned VarInt of up to 5 bytes
+	 * 
+	 * @param in the input
+	 * @return the value
+	 * @throws IOException if an I/O exception occurs
+	 */
+	public static int readUnsignedVarInt(DataInput in) throws IOException {
+		int value = 0;
+		for(int shift = 0; shift < 35; shift += 7) {
+			byte b = in.readByte();
+			value |= (b & 0x7F) << shift;
+			if(b >= 0) return value;
+		}
+		throw new MalformedNBTException("VarInt is too long");
+	}
+	
+	/**
+	 * Reads an unsigned VarInt of up to 10 bytes
+	 * 
+	 * @param in the input
+	 * @return the value
+	 * @throws IOException if an I/O exception occurs
+	 */
+	public static long readUnsignedVarLong(DataInput in) throws IOException {
+		long value = 0;
+		for(int shift = 0; shift < 70; shift += 7) {
+			byte b = in.readByte();
+			value |= (long) (b & 0x7F) << shift;
+			if(b >= 0) return value;
+		}
+		throw new MalformedNBTException("VarLong is too long");
+	}
+	
+	public static void writeUnsignedVarInt(DataOutput out, int value) throws IOException {
+		while((value & ~0x7F) != 0) {
+			out.writeByte(value & 0x7F | 0x80);
+			value >>>= 7;
+		}
+		out.writeByte(value);
+	}
+	
+	public static void writeUnsignedVarLong(DataOutput out, long value) throws IOException {
+		while((value & ~0x7FL) != 0) {
+			out.writeByte((int) value & 0x7F | 0x80);
+			value >>>= 7;
+		}
+		out.writeByte((int) value);
+	}
+	
+	public static int encodeZigZag(int value) {
+		return value << 1 ^ value >> 31;
+	}
+	
+	public static int decodeZigZag(int value) {
+		return value >>> 1 ^ -(value & 1);
+	}
+	
+	public static long encodeZigZag(long value) {
+		return value << 1 ^ value >> 63;
+	}
+	
+	public static long decodeZigZag(long value) {
+		return value >>> 1 ^ -(value & 1);
+	}
+}
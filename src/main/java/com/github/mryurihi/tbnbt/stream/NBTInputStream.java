@@ -23,38 +23,129 @@ SOFTWARE.
 */
 package com.github.mryurihi.tbnbt.stream;
 
+import java.io.DataInput;
 import java.io.DataInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.zip.GZIPInputStream;
+import java.nio.charset.StandardCharsets;
 
 import com.github.mryurihi.tbnbt.TagType;
 import com.github.mryurihi.tbnbt.adapter.AdapterRegistry;
 import com.github.mryurihi.tbnbt.adapter.NBTParseException;
 import com.github.mryurihi.tbnbt.adapter.TypeWrapper;
+import com.github.mryurihi.tbnbt.compression.CompressionCodec;
 import com.github.mryurihi.tbnbt.tag.NBTTag;
-import com.github.mryurihi.tbnbt.tag.NBTTagString;
 
 /**
- * An input stream that reads NBT data.
+ * An input stream that reads NBT data. The stream is also a {@link DataInput}
+ * over the decompressed data, so it can be walked with an {@link NBTReader}.
+ * Data in another {@link NBTEncoding} is decoded by the stream's
+ * {@link DataInput} methods themselves.<br>
+ * <br>
+ * A stream can be created with a read-ahead buffer for sources that deliver
+ * data slowly, like pipes and sockets. A background thread then reads and
+ * decompresses the data into one of two buffers while the stream decodes the
+ * other. The thread ends when the source ends or the stream is closed.
  * 
  * @author MrYurihi Redstone
  */
-public class NBTInputStream extends InputStream {
+public class NBTInputStream extends InputStream implements DataInput {
 	
 	private DataInputStream dis;
 	
+	private NBTEncoding encoding;
+	
+	private boolean littleEndian;
+	
+	private boolean varInt;
+	
+	private NBTKeyTable keyTable;
+	
+	/**
+	 * Creates a stream that reads data in an encoding, compressed with a codec
+	 * 
+	 * @param is the stream to read from
+	 * @param codec the codec the data is compressed with
+	 * @param encoding the encoding of the data
+	 * @throws IOException if the compressed data can not be read
+	 */
+	public NBTInputStream(InputStream is, CompressionCodec codec, NBTEncoding encoding) throws IOException {
+		this(is, codec, encoding, 0);
+	}
+	
+	/**
+	 * Creates a stream that reads data in an encoding, compressed with a codec,
+	 * with a read-ahead buffer
+	 * 
+	 * @param is the stream to read from
+	 * @param codec the codec the data is compressed with
+	 * @param encoding the encoding of the data
+	 * @param readAheadSize the size of each of the two read-ahead buffers, or 0
+	 *        to read on the calling thread
+	 * @throws IOException if the compressed data can not be read
+	 */
+	public NBTInputStream(
+		InputStream is,
+		CompressionCodec codec,
+		NBTEncoding encoding,
+		int readAheadSize
+	) throws IOException {
+		if(readAheadSize < 0) throw new IllegalArgumentException("Illegal read-ahead size " + readAheadSize);
+		InputStream data = codec.decompress(is);
+		dis = new DataInputStream(readAheadSize == 0? data: new ReadAheadInputStream(is, data, readAheadSize));
+		this.encoding = encoding;
+		this.littleEndian = encoding != NBTEncoding.BIG_ENDIAN;
+		this.varInt = encoding.isVarInt();
+	}
+	
+	/**
+	 * Creates a stream that reads data compressed with a codec
+	 * 
+	 * @param is the stream to read from
+	 * @param codec the codec the data is compressed with
+	 * @throws IOException if the compressed data can not be read
+	 */
+	public NBTInputStream(InputStream is, CompressionCodec codec) throws IOException {
+		this(is, codec, NBTEncoding.BIG_ENDIAN);
+	}
+	
 	public NBTInputStream(InputStream is, boolean compressed) throws IOException {
-		if(compressed) {
-			is = new GZIPInputStream(is);
-		}
-		dis = new DataInputStream(is);
+		this(is, compressed? CompressionCodec.GZIP: CompressionCodec.NONE);
 	}
 	
 	public NBTInputStream(InputStream is) throws IOException {
 		this(is, true);
 	}
 	
+	public NBTEncoding getEncoding() {
+		return encoding;
+	}
+	
+	public NBTKeyTable getKeyTable() {
+		return keyTable;
+	}
+	
+	/**
+	 * Sets the table the names of compound entries are interned with
+	 * 
+	 * @param keyTable the table, or null to not intern names
+	 */
+	public void setKeyTable(NBTKeyTable keyTable) {
+		this.keyTable = keyTable;
+	}
+	
+	/**
+	 * Reads the name of a compound entry, interned with the key table if one is
+	 * set
+	 * 
+	 * @return the name
+	 * @throws IOException if an I/O exception occurs
+	 */
+	public String readKey() throws IOException {
+		if(keyTable == null) return readUTF();
+		return keyTable.read(dis, varInt? NBTEncoding.readUnsignedVarInt(dis): readUnsignedShort(), encoding);
+	}
+	
 	/**
 	 * Reads an NBT tag from this stream
 	 * 
@@ -64,8 +155,8 @@ public class NBTInputStream extends InputStream {
 	 */
 	public NBTTag readTag(boolean named) throws IOException {
 		byte type = dis.readByte();
-		if(named) new NBTTagString("").readPayloadBytes(dis);
-		return NBTTag.newTagByType(TagType.getTypeById(type), dis);
+		if(named) NBTTag.skipPayload(TagType.STRING, this);
+		return NBTTag.newTagByType(TagType.getTypeById(type), this);
 	}
 	
 	/**
@@ -78,6 +169,17 @@ public class NBTInputStream extends InputStream {
 		return readTag(true);
 	}
 	
+	/**
+	 * Skips the payload of a tag without decoding it
+	 * 
+	 * @param type the type of the tag
+	 * @throws IOException if the stream ends before the payload does
+	 * @see NBTTag#skipPayload(TagType, DataInput)
+	 */
+	public void skipPayload(TagType type) throws IOException {
+		NBTTag.skipPayload(type, this);
+	}
+	
 	/**
 	 * Reads an NBT tag from this stream into an object
 	 * 
@@ -91,8 +193,8 @@ public class NBTInputStream extends InputStream {
 	@SuppressWarnings("unchecked")
 	public <T> T readToType(TypeWrapper<T> type, AdapterRegistry registry) throws IOException, NBTParseException {
 		TagType id = TagType.getTypeById(dis.readByte());
-		registry.fromString(dis);
-		return (T) registry.getAdapterForObject(type).fromNBT(id, dis, type, registry);
+		registry.fromString(this);
+		return (T) registry.getAdapterForObject(type).fromNBT(id, this, type, registry);
 	}
 	
 	/**
@@ -119,4 +221,94 @@ public class NBTInputStream extends InputStream {
 		return dis.read();
 	}
 	
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException {
+		return dis.read(b, off, len);
+	}
+	
+	@Override
+	public void readFully(byte[] b) throws IOException {
+		dis.readFully(b);
+	}
+	
+	@Override
+	public void readFully(byte[] b, int off, int len) throws IOException {
+		dis.readFully(b, off, len);
+	}
+	
+	@Override
+	public int skipBytes(int n) throws IOException {
+		return dis.skipBytes(n);
+	}
+	
+	@Override
+	public boolean readBoolean() throws IOException {
+		return dis.readBoolean();
+	}
+	
+	@Override
+	public byte readByte() throws IOException {
+		return dis.readByte();
+	}
+	
+	@Override
+	public int readUnsignedByte() throws IOException {
+		return dis.readUnsignedByte();
+	}
+	
+	@Override
+	public short readShort() throws IOException {
+		short v = dis.readShort();
+		return littleEndian? Short.reverseBytes(v): v;
+	}
+	
+	@Override
+	public int readUnsignedShort() throws IOException {
+		return readShort() & 0xFFFF;
+	}
+	
+	@Override
+	public char readChar() throws IOException {
+		char v = dis.readChar();
+		return littleEndian? Character.reverseBytes(v): v;
+	}
+	
+	@Override
+	public int readInt() throws IOException {
+		if(varInt) return NBTEncoding.decodeZigZag(NBTEncoding.readUnsignedVarInt(dis));
+		int v = dis.readInt();
+		return littleEndian? Integer.reverseBytes(v): v;
+	}
+	
+	@Override
+	public long readLong() throws IOException {
+		if(varInt) return NBTEncoding.decodeZigZag(NBTEncoding.readUnsignedVarLong(dis));
+		long v = dis.readLong();
+		return littleEndian? Long.reverseBytes(v): v;
+	}
+	
+	@Override
+	public float readFloat() throws IOException {
+		return littleEndian? Float.intBitsToFloat(Integer.reverseBytes(dis.readInt())): dis.readFloat();
+	}
+	
+	@Override
+	public double readDouble() throws IOException {
+		return littleEndian? Double.longBitsToDouble(Long.reverseBytes(dis.readLong())): dis.readDouble();
+	}
+	
+	@SuppressWarnings("deprecation")
+	@Override
+	public String readLine() throws IOException {
+		return dis.readLine();
+	}
+	
+	@Override
+	public String readUTF() throws IOException {
+		if(!littleEndian) return ModifiedUTF8.readUTF(dis);
+		byte[] bytes = new byte[varInt? NBTEncoding.readUnsignedVarInt(dis): readUnsignedShort()];
+		dis.readFully(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+	
 }
@@ -0,0 +1,201 @@
+/*
+MIT License
+
+Copyright (c) 2017 MrYurihi Redstone
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package com.github.mryurihi.tbnbt.stream;
+
+import java.io.DataInput;
+import java.io.IOException;
+import java.io.UTFDataFormatException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A table of compound keys that is shared while decoding NBT data, so that the
+ * same key read from many compounds is the same {@link String}. Keys are looked
+ * up with their encoded bytes, so a key that is already in the table is read
+ * without allocating anything.<br>
+ * <br>
+ * A table is used by setting it on an input, for example with
+ * {@link NBTBufferInput#setKeyTable(NBTKeyTable)}. The table is a cache:
+ * every key has two slots it can be stored in, and once the table is full a new
+ * key replaces one of the keys in its slots. Keys that are read often stay in
+ * the table, and an input with many distinct keys can not fill it for good.
+ * Slots are chosen with a hash that is seeded randomly for each table, so keys
+ * that collide can not be prepared in advance.<br>
+ * <br>
+ * The table can be shared between threads. Slots are updated with
+ * compare-and-set, so concurrent inserts never exceed the maximum amount of
+ * keys.
+ */
+public class NBTKeyTable {
+	
+	/**
+	 * The default maximum amount of keys in a table
+	 */
+	public static final int DEFAULT_MAX_KEYS = 4096;
+	
+	/**
+	 * Keys with more encoded bytes than this are not added to a table
+	 */
+	public static final int MAX_KEY_LENGTH = 64;
+	
+	private final AtomicReferenceArray<Entry> entries;
+	
+	private final int maxKeys;
+	
+	private final int seed = ThreadLocalRandom.current().nextInt();
+	
+	private final AtomicInteger size = new AtomicInteger();
+	
+	public NBTKeyTable() {
+		this(DEFAULT_MAX_KEYS);
+	}
+	
+	/**
+	 * Creates a table
+	 * 
+	 * @param maxKeys the maximum amount of keys in the table. The table has one
+	 *            slot for each key, rounded down to a power of two.
+	 */
+	public NBTKeyTable(int maxKeys) {
+		if(maxKeys < 1 || maxKeys > 1 << 28) throw new IllegalArgumentException("Illegal maximum key count " + maxKeys);
+		this.maxKeys = maxKeys;
+		this.entries = new AtomicReferenceArray<>(Math.max(2, Integer.highestOneBit(maxKeys)));
+	}
+	
+	/**
+	 * Reads the name of a compound entry. The name is looked up in the key table
+	 * of the input if it has one.
+	 * 
+	 * @param in the input to read from
+	 * @return the name
+	 * @throws IOException if an I/O exception occurs
+	 */
+	public static String readKey(DataInput in) throws IOException {
+		if(in instanceof NBTBufferInput) return ((NBTBufferInput) in).readKey();
+		if(in instanceof NBTInputStream) return ((NBTInputStream) in).readKey();
+		if(in instanceof BoundedNBTInput) return ((BoundedNBTInput) in).readKey();
+		return in.readUTF();
+	}
+	
+	/**
+	 * Gets the amount of keys in the table
+	 * 
+	 * @return the amount of keys
+	 */
+	public int size() {
+		return size.get();
+	}
+	
+	/**
+	 * Gets the key for encoded bytes, adding it to the table if it is not in it
+	 * yet. If the table is full the key replaces a key in one of its slots.
+	 * 
+	 * @param bytes the array holding the encoded key
+	 * @param offset the position of the key in the array
+	 * @param length the length of the encoded key
+	 * @param encoding the encoding of the key
+	 * @return the key
+	 * @throws UTFDataFormatException if the bytes are not valid modified UTF-8
+	 */
+	public String intern(byte[] bytes, int offset, int length, NBTEncoding encoding) throws UTFDataFormatException {
+		boolean modified = encoding == NBTEncoding.BIG_ENDIAN;
+		int hash = hash(bytes, offset, length, modified);
+		int first = hash & entries.length() - 2;
+		for(int i = first; i <= first + 1; i++) {
+			Entry entry = entries.get(i);
+			if(
+				entry != null && entry.hash == hash && entry.modified == modified
+				&& entry.matches(bytes, offset, length)
+			) return entry.key;
+		}
+		String key = modified? ModifiedUTF8.decode(bytes, offset, length): new String(
+			bytes, offset, length, StandardCharsets.UTF_8
+		);
+		if(length > MAX_KEY_LENGTH) return key;
+		byte[] copy = new byte[length];
+		System.arraycopy(bytes, offset, copy, 0, length);
+		Entry entry = new Entry(hash, modified, copy, key);
+		for(int i = first; i <= first + 1; i++) {
+			if(entries.get(i) == null && reserve()) {
+				if(entries.compareAndSet(i, null, entry)) return key;
+				size.decrementAndGet();
+			}
+		}
+		int victim = first + (hash >>> 31);
+		if(entries.get(victim) == null) victim ^= 1;
+		Entry old = entries.get(victim);
+		if(old != null) entries.compareAndSet(victim, old, entry);
+		return key;
+	}
+	
+	private boolean reserve() {
+		if(size.incrementAndGet() <= maxKeys) return true;
+		size.decrementAndGet();
+		return false;
+	}
+	
+	private int hash(byte[] bytes, int offset, int length, boolean modified) {
+		int hash = modified? seed: ~seed;
+		for(int i = offset; i < offset + length; i++)
+			hash = (hash ^ bytes[i]) * 0x01000193;
+		hash ^= hash >>> 16;
+		hash *= 0x85EBCA6B;
+		hash ^= hash >>> 13;
+		hash *= 0xC2B2AE35;
+		return hash ^ hash >>> 16;
+	}
+	
+	/**
+	 * Reads the encoded bytes of a key from an input and interns them
+	 */
+	String read(DataInput in, int length, NBTEncoding encoding) throws IOException {
+		byte[] bytes = length <= ModifiedUTF8.MAX_LENGTH? ModifiedUTF8.scratchBytes(length): new byte[length];
+		in.readFully(bytes, 0, length);
+		return intern(bytes, 0, length, encoding);
+	}
+	
+	private static class Entry {
+		
+		private final int hash;
+		private final boolean modified;
+		private final byte[] bytes;
+		private final String key;
+		
+		public Entry(int hash, boolean modified, byte[] bytes, String key) {
+			this.hash = hash;
+			this.modified = modified;
+			this.bytes = bytes;
+			this.key = key;
+		}
+		
+		private boolean matches(byte[] other, int offset, int length) {
+			if(bytes.length != length) return false;
+			for(int i = 0; i < length; i++)
+				if(bytes[i] != other[offset + i]) return false;
+			return true;
+		}
+	}
+}
@@ -23,38 +23,145 @@ SOFTWARE.
 */
 package com.github.mryurihi.tbnbt.stream;
 
+import java.io.DataOutput;
 import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
-import java.util.zip.GZIPOutputStream;
+import java.io.UTFDataFormatException;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
 
 import com.github.mryurihi.tbnbt.adapter.AdapterRegistry;
 import com.github.mryurihi.tbnbt.adapter.NBTAdapter;
 import com.github.mryurihi.tbnbt.adapter.NBTParseException;
 import com.github.mryurihi.tbnbt.adapter.TypeWrapper;
+import com.github.mryurihi.tbnbt.compression.CompressionCodec;
 import com.github.mryurihi.tbnbt.tag.NBTTag;
-import com.github.mryurihi.tbnbt.tag.NBTTagString;
 
 /**
- * An output stream that writes NBT data
+ * An output stream that writes NBT data. The stream is also a
+ * {@link DataOutput} for the uncompressed data, so tags can be written to it
+ * with an {@link NBTWriter}. Data in another {@link NBTEncoding} is encoded by
+ * the stream's {@link DataOutput} methods themselves.<br>
+ * <br>
+ * The uncompressed data is collected in a write buffer, so the stream does not
+ * need to be wrapped in a {@link java.io.BufferedOutputStream}. Buffered data
+ * is passed on when the buffer is full, on {@link #flush()} and on
+ * {@link #close()}. A compressing codec may keep some of the data until the
+ * stream is closed.
  * 
  * @author MrYurihi Redstone
  */
-public class NBTOutputStream extends OutputStream {
+public class NBTOutputStream extends OutputStream implements DataOutput {
+	
+	/**
+	 * The default size of the write buffer
+	 */
+	public static final int DEFAULT_BUFFER_SIZE = 8192;
 	
 	private DataOutputStream dos;
 	
+	private NBTEncoding encoding;
+	
+	private boolean littleEndian;
+	
+	private boolean varInt;
+	
+	/**
+	 * Creates a stream that writes data in an encoding and compresses it with a
+	 * codec
+	 * 
+	 * @param out the stream to write to
+	 * @param codec the codec to compress the data with
+	 * @param encoding the encoding to write
+	 * @param bufferSize the size of the write buffer
+	 * @throws IOException if the compressed data can not be written
+	 */
+	public NBTOutputStream(
+		OutputStream out,
+		CompressionCodec codec,
+		NBTEncoding encoding,
+		int bufferSize
+	) throws IOException {
+		this(new OutputBuffer(codec.compress(out), bufferSize), encoding);
+	}
+	
+	/**
+	 * Creates a stream that writes data in an encoding to a channel and
+	 * compresses it with a codec. Uncompressed data is written to the channel
+	 * directly, and if the channel is a
+	 * {@link java.nio.channels.GatheringByteChannel} a large write and the
+	 * buffered data before it are written with one gathering write. The channel
+	 * must be in blocking mode.
+	 * 
+	 * @param channel the channel to write to
+	 * @param codec the codec to compress the data with
+	 * @param encoding the encoding to write
+	 * @param bufferSize the size of the write buffer
+	 * @throws IOException if the compressed data can not be written
+	 */
+	public NBTOutputStream(
+		WritableByteChannel channel,
+		CompressionCodec codec,
+		NBTEncoding encoding,
+		int bufferSize
+	) throws IOException {
+		this(
+			codec == CompressionCodec.NONE? new OutputBuffer(channel, bufferSize): new OutputBuffer(
+				codec.compress(Channels.newOutputStream(channel)), bufferSize
+			),
+			encoding
+		);
+	}
+	
+	public NBTOutputStream(WritableByteChannel channel, CompressionCodec codec) throws IOException {
+		this(channel, codec, NBTEncoding.BIG_ENDIAN, DEFAULT_BUFFER_SIZE);
+	}
+	
+	/**
+	 * Creates a stream that writes data in an encoding and compresses it with a
+	 * codec
+	 * 
+	 * @param out the stream to write to
+	 * @param codec the codec to compress the data with
+	 * @param encoding the encoding to write
+	 * @throws IOException if the compressed data can not be written
+	 */
+	public NBTOutputStream(OutputStream out, CompressionCodec codec, NBTEncoding encoding) throws IOException {
+		this(out, codec, encoding, DEFAULT_BUFFER_SIZE);
+	}
+	
+	private NBTOutputStream(OutputBuffer buffer, NBTEncoding encoding) {
+		dos = new DataOutputStream(buffer);
+		this.encoding = encoding;
+		this.littleEndian = encoding != NBTEncoding.BIG_ENDIAN;
+		this.varInt = encoding.isVarInt();
+	}
+	
+	/**
+	 * Creates a stream that compresses the data with a codec
+	 * 
+	 * @param out the stream to write to
+	 * @param codec the codec to compress the data with
+	 * @throws IOException if the compressed data can not be written
+	 */
+	public NBTOutputStream(OutputStream out, CompressionCodec codec) throws IOException {
+		this(out, codec, NBTEncoding.BIG_ENDIAN);
+	}
+	
 	public NBTOutputStream(OutputStream out, boolean compressed) throws IOException {
-		if(compressed) {
-			out = new GZIPOutputStream(out);
-		}
-		dos = new DataOutputStream(out);
+		this(out, compressed? CompressionCodec.GZIP: CompressionCodec.NONE);
 	}
 	
 	public NBTOutputStream(OutputStream out) throws IOException {
 		this(out, true);
 	}
 	
+	public NBTEncoding getEncoding() {
+		return encoding;
+	}
+	
 	/**
 	 * Writes an NBTTag to the stream.
 	 * 
@@ -64,12 +171,28 @@ public class NBTOutputStream extends OutputStream {
 	 */
 	public void writeTag(NBTTag tag, String name) throws IOException {
 		dos.writeByte(tag.getTagType().getId());
-		new NBTTagString("").writePayloadBytes(dos);
-		tag.writePayloadBytes(dos);
+		writeUTF(name);
+		tag.writePayloadBytes(this);
+	}
+	
+	/**
+	 * Writes an NBTTag to the stream without a name, as used by the network
+	 * protocol. Such tags are read with {@link NBTInputStream#readTag(boolean)}.
+	 * Any amount of tags can be written one after another.
+	 * 
+	 * @param tag the tag to write
+	 * @throws IOException if there are any I/O exceptions while writing data
+	 */
+	public void writeUnnamedTag(NBTTag tag) throws IOException {
+		dos.writeByte(tag.getTagType().getId());
+		tag.writePayloadBytes(this);
 	}
 	
 	/**
-	 * Writes an object to the stream
+	 * Writes an object to the stream. The stream is not closed, so more tags can
+	 * be written after it. Unlike in 0.1, the caller has to close the stream after
+	 * the last write, otherwise buffered data and the end of the compressed data
+	 * are never written.
 	 * 
 	 * @param type the type of the object
 	 * @param obj the object to be written
@@ -87,9 +210,8 @@ public class NBTOutputStream extends OutputStream {
 	) throws NBTParseException, IOException {
 		NBTAdapter<?> adapter = registry.getAdapterForObject(type);
 		dos.writeByte(adapter.getId().getId());
-		registry.writeString(dos, name);
-		adapter.toNBT(dos, obj, type, registry);
-		dos.close();
+		registry.writeString(this, name);
+		adapter.toNBT(this, obj, type, registry);
 	}
 	
 	/**
@@ -125,8 +247,90 @@ public class NBTOutputStream extends OutputStream {
 		dos.close();
 	}
 	
+	/**
+	 * Passes the buffered data on to the codec and flushes the underlying stream
+	 */
+	@Override
+	public void flush() throws IOException {
+		dos.flush();
+	}
+	
 	@Override
 	public void write(int b) throws IOException {
 		dos.write(b);
 	}
+	
+	@Override
+	public void write(byte[] b, int off, int len) throws IOException {
+		dos.write(b, off, len);
+	}
+	
+	@Override
+	public void writeBoolean(boolean v) throws IOException {
+		dos.writeBoolean(v);
+	}
+	
+	@Override
+	public void writeByte(int v) throws IOException {
+		dos.writeByte(v);
+	}
+	
+	@Override
+	public void writeShort(int v) throws IOException {
+		dos.writeShort(littleEndian? Short.reverseBytes((short) v): v);
+	}
+	
+	@Override
+	public void writeChar(int v) throws IOException {
+		dos.writeChar(littleEndian? Character.reverseBytes((char) v): v);
+	}
+	
+	@Override
+	public void writeInt(int v) throws IOException {
+		if(varInt) NBTEncoding.writeUnsignedVarInt(dos, NBTEncoding.encodeZigZag(v));
+		else dos.writeInt(littleEndian? Integer.reverseBytes(v): v);
+	}
+	
+	@Override
+	public void writeLong(long v) throws IOException {
+		if(varInt) NBTEncoding.writeUnsignedVarLong(dos, NBTEncoding.encodeZigZag(v));
+		else dos.writeLong(littleEndian? Long.reverseBytes(v): v);
+	}
+	
+	@Override
+	public void writeFloat(float v) throws IOException {
+		if(littleEndian) dos.writeInt(Integer.reverseBytes(Float.floatToIntBits(v)));
+		else dos.writeFloat(v);
+	}
+	
+	@Override
+	public void writeDouble(double v) throws IOException {
+		if(littleEndian) dos.writeLong(Long.reverseBytes(Double.doubleToLongBits(v)));
+		else dos.writeDouble(v);
+	}
+	
+	@Override
+	public void writeBytes(String s) throws IOException {
+		dos.writeBytes(s);
+	}
+	
+	@Override
+	public void writeChars(String s) throws IOException {
+		dos.writeChars(s);
+	}
+	
+	@Override
+	public void writeUTF(String s) throws IOException {
+		if(!littleEndian) {
+			ModifiedUTF8.writeUTF(dos, s);
+			return;
+		}
+		byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+		if(varInt) NBTEncoding.writeUnsignedVarInt(dos, bytes.length);
+		else if(bytes.length > 0xFFFF) throw new UTFDataFormatException(
+			"encoded string too long: " + bytes.length + " bytes"
+		);
+		else writeShort(bytes.length);
+		dos.write(bytes);
+	}
 }
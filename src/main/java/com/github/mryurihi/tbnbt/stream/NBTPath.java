@@ -0,0 +1,203 @@
+/*
+MIT License
+
+Copyright (c) 2017 MrYurihi Redstone
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package com.github.mryurihi.tbnbt.stream;
+
+import java.io.DataInput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.github.mryurihi.tbnbt.TagType;
+import com.github.mryurihi.tbnbt.tag.NBTTag;
+
+/**
+ * A compiled path that selects tags from an NBT document while it is read.
+ * Only the selected tags are decoded, everything else is skipped. A path is a
+ * list of compound entry names separated by dots, each optionally followed by
+ * list indexes. {@code *} matches any name and {@code [*]} matches any
+ * index <br>
+ * <br>
+ * 
+ * <pre>
+ * NBTPath path = NBTPath.compile("Level.Sections[*].BlockStates");
+ * for(File file: files) {
+ * 	try(NBTInputStream in = new NBTInputStream(new FileInputStream(file))) {
+ * 		List&lt;NBTTag&gt; states = path.select(in);
+ * 	}
+ * }
+ * </pre>
+ * 
+ * Paths start at the root compound, the name of the root tag is ignored. A
+ * compiled path is immutable and can be used for any amount of documents and
+ * threads.
+ */
+public class NBTPath {
+	
+	private static final int NAME = 0;
+	private static final int ANY_NAME = 1;
+	private static final int INDEX = 2;
+	private static final int ANY_INDEX = 3;
+	
+	private final String path;
+	
+	private final Step[] steps;
+	
+	private NBTPath(String path, Step[] steps) {
+		this.path = path;
+		this.steps = steps;
+	}
+	
+	/**
+	 * Compiles a path
+	 * 
+	 * @param path the path, like {@code Level.Sections[*].BlockStates}
+	 * @return the compiled path
+	 * @throws IllegalArgumentException if the path is not valid
+	 */
+	public static NBTPath compile(String path) {
+		List<Step> steps = new ArrayList<>();
+		int i = 0;
+		while(i < path.length()) {
+			if(!steps.isEmpty()) {
+				if(path.charAt(i) != '.') throw new IllegalArgumentException("Expected '.' at " + i + " in " + path);
+				i++;
+			}
+			int start = i;
+			while(i < path.length() && path.charAt(i) != '.' && path.charAt(i) != '[')
+				i++;
+			String name = path.substring(start, i);
+			if(name.isEmpty()) throw new IllegalArgumentException("Empty name at " + start + " in " + path);
+			steps.add(name.equals("*")? new Step(ANY_NAME, null, 0): new Step(NAME, name, 0));
+			while(i < path.length() && path.charAt(i) == '[') {
+				int end = path.indexOf(']', i);
+				if(end < 0) throw new IllegalArgumentException("Unclosed '[' at " + i + " in " + path);
+				String index = path.substring(i + 1, end);
+				if(index.equals("*")) steps.add(new Step(ANY_INDEX, null, 0));
+				else {
+					try {
+						int value = Integer.parseInt(index);
+						if(value < 0) throw new NumberFormatException();
+						steps.add(new Step(INDEX, null, value));
+					} catch(NumberFormatException e) {
+						throw new IllegalArgumentException("Illegal index '" + index + "' at " + i + " in " + path);
+					}
+				}
+				i = end + 1;
+			}
+		}
+		if(steps.isEmpty()) throw new IllegalArgumentException("Empty path");
+		return new NBTPath(path, steps.toArray(new Step[steps.size()]));
+	}
+	
+	/**
+	 * Reads a document with a named root tag and returns the tags that match this
+	 * path, in the order they appear in the document. The whole document is
+	 * consumed.
+	 * 
+	 * @param in the input to read from
+	 * @return the matching tags
+	 * @throws IOException if an I/O exception occurs
+	 */
+	public List<NBTTag> select(DataInput in) throws IOException {
+		return select(new NBTReader(in));
+	}
+	
+	/**
+	 * Reads the next value of a reader and returns the tags inside it that match
+	 * this path, in the order they appear. The value is consumed completely.
+	 * 
+	 * @param reader the reader to read from
+	 * @return the matching tags
+	 * @throws IOException if an I/O exception occurs
+	 */
+	public List<NBTTag> select(NBTReader reader) throws IOException {
+		List<NBTTag> out = new ArrayList<>();
+		select(reader, 0, out);
+		return out;
+	}
+	
+	/**
+	 * Returns the first tag that matches this path. The whole document is still
+	 * consumed.
+	 * 
+	 * @param in the input to read from
+	 * @return the first matching tag, or null if there is none
+	 * @throws IOException if an I/O exception occurs
+	 */
+	public NBTTag selectFirst(DataInput in) throws IOException {
+		List<NBTTag> out = select(in);
+		return out.isEmpty()? null: out.get(0);
+	}
+	
+	@Override
+	public String toString() {
+		return path;
+	}
+	
+	private void select(NBTReader reader, int step, List<NBTTag> out) throws IOException {
+		if(step == steps.length) {
+			out.add(reader.nextTag());
+			return;
+		}
+		Step current = steps[step];
+		TagType type = reader.peek();
+		if(current.kind == NAME || current.kind == ANY_NAME) {
+			if(type != TagType.COMPOUND) {
+				reader.skipValue();
+				return;
+			}
+			reader.beginCompound();
+			while(reader.hasNext()) {
+				String name = reader.nextName();
+				if(current.kind == ANY_NAME || current.name.equals(name)) select(reader, step + 1, out);
+				else reader.skipValue();
+			}
+			reader.endCompound();
+		} else {
+			if(type != TagType.LIST) {
+				reader.skipValue();
+				return;
+			}
+			reader.beginList();
+			for(int i = 0; reader.hasNext(); i++) {
+				if(current.kind == ANY_INDEX || current.index == i) select(reader, step + 1, out);
+				else reader.skipValue();
+			}
+			reader.endList();
+		}
+	}
+	
+	private static class Step {
+		
+		private final int kind;
+		private final String name;
+		private final int index;
+		
+		public Step(int kind, String name, int index) {
+			this.kind = kind;
+			this.name = name;
+			this.index = index;
+		}
+	}
+}
@@ -0,0 +1,390 @@
+/*
+MIT License
+
+Copyright (c) 2017 MrYurihi Redstone
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package com.github.mryurihi.tbnbt.stream;
+
+import java.io.DataInput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.github.mryurihi.tbnbt.TagType;
+import com.github.mryurihi.tbnbt.exceptions.MalformedNBTException;
+import com.github.mryurihi.tbnbt.tag.NBTTag;
+
+/**
+ * A pull parser that reads NBT data one token at a time without building a
+ * tree of tags. A document with a compound root is read like this <br>
+ * <br>
+ * 
+ * <pre>
+ * NBTReader reader = new NBTReader(new NBTInputStream(in));
+ * reader.beginCompound();
+ * while(reader.hasNext()) {
+ * 	TagType type = reader.nextTagType();
+ * 	String name = reader.nextName();
+ * 	if(name.equals("DataVersion")) version = reader.nextInt();
+ * 	else reader.skipValue();
+ * }
+ * reader.endCompound();
+ * </pre>
+ * 
+ * Reading the name of a compound entry is optional, the value methods skip it
+ * if it has not been read. The value methods throw an
+ * {@link IllegalStateException} if the next value is not of the requested type.
+ */
+public class NBTReader {
+	
+	private DataInput in;
+	
+	private List<Scope> stack = new ArrayList<>();
+	
+	private Scope scope;
+	
+	/**
+	 * Creates a reader for a document with a named root tag
+	 * 
+	 * @param in the input to read from
+	 */
+	public NBTReader(DataInput in) {
+		this(in, true);
+	}
+	
+	/**
+	 * Creates a reader
+	 * 
+	 * @param in the input to read from
+	 * @param named if the root tag is named
+	 */
+	public NBTReader(DataInput in, boolean named) {
+		this.in = in;
+		this.scope = new Scope(Scope.ROOT);
+		this.scope.named = named;
+	}
+	
+	/**
+	 * Gets the type of the next value without consuming it. Returns
+	 * {@link TagType#END} when the current compound or list has no more values.
+	 * 
+	 * @return the type of the next value
+	 * @throws IOException if an I/O exception occurs
+	 */
+	public TagType peek() throws IOException {
+		if(scope.next == null) {
+			if(scope.kind == Scope.LIST) scope.next = scope.remaining > 0? scope.elementType: TagType.END;
+			else {
+				scope.next = readType();
+				scope.nameRead = scope.kind == Scope.ROOT && !scope.named;
+			}
+		}
+		return scope.next;
+	}
+	
+	/**
+	 * Reads the type of the next tag. In a compound this is followed by
+	 * {@link #nextName()} and one of the value methods.
+	 * 
+	 * @return the type of the next tag, or {@link TagType#END} if the current
+	 *         compound or list has no more values
+	 * @throws IOException if an I/O exception occurs
+	 */
+	public TagType nextTagType() throws IOException {
+		return peek();
+	}
+	
+	/**
+	 * Whether the current compound or list has more values
+	 * 
+	 * @return true if there is another value
+	 * @throws IOException if an I/O exception occurs
+	 */
+	public boolean hasNext() throws IOException {
+		return peek() != TagType.END;
+	}
+	
+	/**
+	 * Reads the name of the next tag
+	 * 
+	 * @return the name
+	 * @throws IOException if an I/O exception occurs
+	 */
+	public String nextName() throws IOException {
+		if(scope.kind == Scope.LIST) throw new IllegalStateException("List elements do not have names");
+		if(peek() == TagType.END) throw new IllegalStateException("There is no next tag");
+		if(scope.nameRead) throw new IllegalStateException("The name of the next tag has already been read");
+		scope.nameRead = true;
+		return NBTKeyTable.readKey(in);
+	}
+	
+	public byte nextByte() throws IOException {
+		beforeValue(TagType.BYTE);
+		return in.readByte();
+	}
+	
+	public short nextShort() throws IOException {
+		beforeValue(TagType.SHORT);
+		return in.readShort();
+	}
+	
+	public int nextInt() throws IOException {
+		beforeValue(TagType.INT);
+		return in.readInt();
+	}
+	
+	public long nextLong() throws IOException {
+		beforeValue(TagType.LONG);
+		return in.readLong();
+	}
+	
+	public float nextFloat() throws IOException {
+		beforeValue(TagType.FLOAT);
+		return in.readFloat();
+	}
+	
+	public double nextDouble() throws IOException {
+		beforeValue(TagType.DOUBLE);
+		return in.readDouble();
+	}
+	
+	public String nextString() throws IOException {
+		beforeValue(TagType.STRING);
+		return in.readUTF();
+	}
+	
+	public byte[] nextByteArray() throws IOException {
+		beforeValue(TagType.BYTE_ARRAY);
+		return NBTArrays.readByteArray(in);
+	}
+	
+	public int[] nextIntArray() throws IOException {
+		beforeValue(TagType.INT_ARRAY);
+		return NBTArrays.readIntArray(in);
+	}
+	
+	public long[] nextLongArray() throws IOException {
+		beforeValue(TagType.LONG_ARRAY);
+		return NBTArrays.readLongArray(in);
+	}
+	
+	/**
+	 * Reads the next value, whatever its type, as an {@link NBTTag}
+	 * 
+	 * @return the tag
+	 * @throws IOException if an I/O exception occurs
+	 */
+	public NBTTag nextTag() throws IOException {
+		TagType type = peek();
+		beforeValue(type);
+		return NBTTag.newTagByType(type, in);
+	}
+	
+	/**
+	 * Starts reading a compound. Its entries are read until {@link #hasNext()}
+	 * returns false, then {@link #endCompound()} has to be called.
+	 * 
+	 * @throws IOException if an I/O exception occurs
+	 */
+	public void beginCompound() throws IOException {
+		beforeValue(TagType.COMPOUND);
+		push(new Scope(Scope.COMPOUND));
+	}
+	
+	/**
+	 * Finishes reading a compound. All of its entries have to be read or skipped.
+	 * 
+	 * @throws IOException if an I/O exception occurs
+	 */
+	public void endCompound() throws IOException {
+		if(scope.kind != Scope.COMPOUND) throw new IllegalStateException("Not in a compound");
+		if(peek() != TagType.END) throw new IllegalStateException("The compound has more entries");
+		pop();
+	}
+	
+	/**
+	 * Starts reading a list. Its elements are read until {@link #hasNext()}
+	 * returns false, then {@link #endList()} has to be called. The type of the
+	 * elements is returned by {@link #peek()}.
+	 * 
+	 * @return the amount of elements in the list
+	 * @throws IOException if an I/O exception occurs
+	 */
+	public int beginList() throws IOException {
+		beforeValue(TagType.LIST);
+		Scope list = new Scope(Scope.LIST);
+		list.elementType = readType();
+		list.remaining = in.readInt();
+		if(list.remaining < 0) throw new MalformedNBTException("Illegal list length " + list.remaining);
+		if(in instanceof BoundedNBTInput) ((BoundedNBTInput) in).checkArrayLength(
+			list.remaining, list.elementType == TagType.END? 0: 1
+		);
+		push(list);
+		return list.remaining;
+	}
+	
+	/**
+	 * Finishes reading a list. All of its elements have to be read or skipped.
+	 */
+	public void endList() {
+		if(scope.kind != Scope.LIST) throw new IllegalStateException("Not in a list");
+		if(scope.remaining != 0) throw new IllegalStateException("The list has " + scope.remaining + " more elements");
+		pop();
+	}
+	
+	/**
+	 * Skips the next value, including all of its children
+	 * 
+	 * @throws IOException if an I/O exception occurs
+	 */
+	public void skipValue() throws IOException {
+		TagType type = peek();
+		beforeValue(type);
+		NBTTag.skipPayload(type, in);
+	}
+	
+	/**
+	 * Reads the next value and reports it to a visitor. Compounds and lists are
+	 * walked completely. Compound entries the visitor skips are jumped over
+	 * without being decoded.
+	 * 
+	 * @param visitor the visitor to report the value to
+	 * @throws IOException if an I/O exception occurs
+	 */
+	public void accept(NBTVisitor visitor) throws IOException {
+		TagType type = peek();
+		if(type == TagType.END) throw new IllegalStateException("There is no next value");
+		if(
+			scope.kind == Scope.COMPOUND && !scope.nameRead
+			&& visitor.visitCompoundEntry(type, nextName()) == NBTVisitor.Result.SKIP
+		) {
+			skipValue();
+			return;
+		}
+		switch(type) {
+			case BYTE:
+				visitor.visitByte(nextByte());
+				break;
+			case SHORT:
+				visitor.visitShort(nextShort());
+				break;
+			case INT:
+				visitor.visitInt(nextInt());
+				break;
+			case LONG:
+				visitor.visitLong(nextLong());
+				break;
+			case FLOAT:
+				visitor.visitFloat(nextFloat());
+				break;
+			case DOUBLE:
+				visitor.visitDouble(nextDouble());
+				break;
+			case STRING:
+				visitor.visitString(nextString());
+				break;
+			case BYTE_ARRAY:
+				visitor.visitByteArray(nextByteArray());
+				break;
+			case INT_ARRAY:
+				visitor.visitIntArray(nextIntArray());
+				break;
+			case LONG_ARRAY:
+				visitor.visitLongArray(nextLongArray());
+				break;
+			case COMPOUND:
+				beginCompound();
+				visitor.visitCompoundStart();
+				while(hasNext())
+					accept(visitor);
+				endCompound();
+				visitor.visitCompoundEnd();
+				break;
+			case LIST:
+				int size = beginList();
+				visitor.visitListStart(scope.elementType, size);
+				while(hasNext())
+					accept(visitor);
+				endList();
+				visitor.visitListEnd();
+				break;
+			default:
+				throw new MalformedNBTException("Unexpected tag type " + type);
+		}
+	}
+	
+	/**
+	 * Gets the amount of compounds and lists that have been started but not
+	 * finished
+	 * 
+	 * @return the depth
+	 */
+	public int getDepth() {
+		return stack.size();
+	}
+	
+	private void beforeValue(TagType type) throws IOException {
+		TagType next = peek();
+		if(next == TagType.END) throw new IllegalStateException("There is no next value");
+		if(next != type) throw new IllegalStateException("Expected " + type + " but was " + next);
+		if(scope.kind == Scope.LIST) scope.remaining--;
+		else if(!scope.nameRead) NBTTag.skipPayload(TagType.STRING, in);
+		scope.next = null;
+	}
+	
+	private void push(Scope next) {
+		if(in instanceof BoundedNBTInput) ((BoundedNBTInput) in).enterNested();
+		stack.add(scope);
+		scope = next;
+	}
+	
+	private void pop() {
+		if(in instanceof BoundedNBTInput) ((BoundedNBTInput) in).exitNested();
+		scope = stack.remove(stack.size() - 1);
+	}
+	
+	private TagType readType() throws IOException {
+		byte id = in.readByte();
+		try {
+			return TagType.getTypeById(id);
+		} catch(IllegalArgumentException e) {
+			throw new MalformedNBTException(e);
+		}
+	}
+	
+	private static class Scope {
+		
+		private static final int ROOT = 0;
+		private static final int COMPOUND = 1;
+		private static final int LIST = 2;
+		
+		private int kind;
+		private boolean named;
+		private TagType next;
+		private boolean nameRead;
+		private TagType elementType;
+		private int remaining;
+		
+		public Scope(int kind) {
+			this.kind = kind;
+		}
+	}
+}
@@ -0,0 +1,106 @@
+/*
+MIT License
+
+Copyright (c) 2017 MrYurihi Redstone
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package com.github.mryurihi.tbnbt.stream;
+
+import com.github.mryurihi.tbnbt.TagType;
+
+/**
+ * Receives the values of an NBT document as it is read by
+ * {@link NBTReader#accept(NBTVisitor)}. All methods do nothing by default, so
+ * only the callbacks that are needed have to be implemented.<br>
+ * <br>
+ * Returning {@link Result#SKIP} from {@link #visitCompoundEntry(TagType, String)}
+ * makes the reader jump over the entry using its length prefixes, so none of
+ * its content is decoded and none of the other callbacks are called for it.
+ */
+public interface NBTVisitor {
+	
+	/**
+	 * What the reader should do with a compound entry
+	 */
+	public enum Result {
+		/**
+		 * Read the entry and report its value to the visitor
+		 */
+		CONTINUE,
+		/**
+		 * Skip the entry without decoding it
+		 */
+		SKIP
+	}
+	
+	/**
+	 * Called before the value of each compound entry
+	 * 
+	 * @param type the type of the entry
+	 * @param name the name of the entry
+	 * @return whether the entry should be read or skipped
+	 */
+	public default Result visitCompoundEntry(TagType type, String name) {
+		return Result.CONTINUE;
+	}
+	
+	public default void visitByte(byte value) {}
+	
+	public default void visitShort(short value) {}
+	
+	public default void visitInt(int value) {}
+	
+	public default void visitLong(long value) {}
+	
+	public default void visitFloat(float value) {}
+	
+	public default void visitDouble(double value) {}
+	
+	public default void visitString(String value) {}
+	
+	public default void visitByteArray(byte[] value) {}
+	
+	public default void visitIntArray(int[] value) {}
+	
+	public default void visitLongArray(long[] value) {}
+	
+	/**
+	 * Called when a compound starts, before any of its entries
+	 */
+	public default void visitCompoundStart() {}
+	
+	/**
+	 * Called after the last entry of a compound
+	 */
+	public default void visitCompoundEnd() {}
+	
+	/**
+	 * Called when a list starts, before any of its elements
+	 * 
+	 * @param elementType the type of the elements
+	 * @param size the amount of elements
+	 */
+	public default void visitListStart(TagType elementType, int size) {}
+	
+	/**
+	 * Called after the last element of a list
+	 */
+	public default void visitListEnd() {}
+}
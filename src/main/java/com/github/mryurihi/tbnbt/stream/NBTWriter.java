@@ -0,0 +1,300 @@
+/*
+MIT License
+
+Copyright (c) 2017 MrYurihi Redstone
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package com.github.mryurihi.tbnbt.stream;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.github.mryurihi.tbnbt.TagType;
+import com.github.mryurihi.tbnbt.tag.NBTTag;
+
+/**
+ * Writes NBT data one token at a time without building a tree of tags. A
+ * document is written like this <br>
+ * <br>
+ * 
+ * <pre>
+ * NBTWriter writer = new NBTWriter(new NBTOutputStream(out));
+ * writer.beginCompound("");
+ * writer.name("DataVersion").value(1631);
+ * writer.name("Pos").beginList(TagType.DOUBLE, 3).value(x).value(y).value(z).endList();
+ * writer.endCompound();
+ * </pre>
+ * 
+ * The writer checks the structure as it is written. Values in a compound need
+ * a name, values in a list must have the list's element type and a list must
+ * get exactly as many elements as it was started with. An
+ * {@link IllegalStateException} is thrown otherwise.
+ */
+public class NBTWriter {
+	
+	private DataOutput out;
+	
+	private List<Scope> stack = new ArrayList<>();
+	
+	private Scope scope;
+	
+	/**
+	 * Creates a writer for a document with a named root tag
+	 * 
+	 * @param out the output to write to
+	 */
+	public NBTWriter(DataOutput out) {
+		this(out, true);
+	}
+	
+	/**
+	 * Creates a writer
+	 * 
+	 * @param out the output to write to
+	 * @param named if the root tag is named
+	 */
+	public NBTWriter(DataOutput out, boolean named) {
+		this.out = out;
+		this.scope = new Scope(Scope.ROOT);
+		this.scope.named = named;
+	}
+	
+	/**
+	 * Sets the name of the next value in a compound
+	 * 
+	 * @param name the name
+	 * @return this
+	 */
+	public NBTWriter name(String name) {
+		if(scope.kind == Scope.LIST) throw new IllegalStateException("List elements do not have names");
+		if(scope.name != null) throw new IllegalStateException("A name has already been set for the next value");
+		scope.name = name;
+		return this;
+	}
+	
+	public NBTWriter value(byte value) throws IOException {
+		beforeValue(TagType.BYTE);
+		out.writeByte(value);
+		return this;
+	}
+	
+	public NBTWriter value(short value) throws IOException {
+		beforeValue(TagType.SHORT);
+		out.writeShort(value);
+		return this;
+	}
+	
+	public NBTWriter value(int value) throws IOException {
+		beforeValue(TagType.INT);
+		out.writeInt(value);
+		return this;
+	}
+	
+	public NBTWriter value(long value) throws IOException {
+		beforeValue(TagType.LONG);
+		out.writeLong(value);
+		return this;
+	}
+	
+	public NBTWriter value(float value) throws IOException {
+		beforeValue(TagType.FLOAT);
+		out.writeFloat(value);
+		return this;
+	}
+	
+	public NBTWriter value(double value) throws IOException {
+		beforeValue(TagType.DOUBLE);
+		out.writeDouble(value);
+		return this;
+	}
+	
+	public NBTWriter value(String value) throws IOException {
+		beforeValue(TagType.STRING);
+		out.writeUTF(value);
+		return this;
+	}
+	
+	public NBTWriter value(byte[] value) throws IOException {
+		beforeValue(TagType.BYTE_ARRAY);
+		out.writeInt(value.length);
+		out.write(value);
+		return this;
+	}
+	
+	public NBTWriter value(int[] value) throws IOException {
+		beforeValue(TagType.INT_ARRAY);
+		out.writeInt(value.length);
+		NBTArrays.write(out, IntBuffer.wrap(value));
+		return this;
+	}
+	
+	public NBTWriter value(long[] value) throws IOException {
+		beforeValue(TagType.LONG_ARRAY);
+		out.writeInt(value.length);
+		NBTArrays.write(out, LongBuffer.wrap(value));
+		return this;
+	}
+	
+	/**
+	 * Writes a whole tag as the next value
+	 * 
+	 * @param tag the tag
+	 * @return this
+	 * @throws IOException if an I/O exception occurs
+	 */
+	public NBTWriter value(NBTTag tag) throws IOException {
+		beforeValue(tag.getTagType());
+		tag.writePayloadBytes(out);
+		return this;
+	}
+	
+	/**
+	 * Starts a compound with a name. Same as {@code name(name).beginCompound()}
+	 * 
+	 * @param name the name of the compound
+	 * @return this
+	 * @throws IOException if an I/O exception occurs
+	 */
+	public NBTWriter beginCompound(String name) throws IOException {
+		return name(name).beginCompound();
+	}
+	
+	/**
+	 * Starts a compound. In a compound the name has to be set with
+	 * {@link #name(String)} first.
+	 * 
+	 * @return this
+	 * @throws IOException if an I/O exception occurs
+	 */
+	public NBTWriter beginCompound() throws IOException {
+		beforeValue(TagType.COMPOUND);
+		push(new Scope(Scope.COMPOUND));
+		return this;
+	}
+	
+	/**
+	 * Finishes the current compound
+	 * 
+	 * @return this
+	 * @throws IOException if an I/O exception occurs
+	 */
+	public NBTWriter endCompound() throws IOException {
+		if(scope.kind != Scope.COMPOUND) throw new IllegalStateException("Not in a compound");
+		if(scope.name != null) throw new IllegalStateException("Name '" + scope.name + "' has no value");
+		out.writeByte(TagType.END.getId());
+		pop();
+		return this;
+	}
+	
+	/**
+	 * Starts a list. In a compound the name has to be set with
+	 * {@link #name(String)} first.
+	 * 
+	 * @param elementType the type of the elements
+	 * @param size the amount of elements that will be written
+	 * @return this
+	 * @throws IOException if an I/O exception occurs
+	 */
+	public NBTWriter beginList(TagType elementType, int size) throws IOException {
+		if(size < 0) throw new IllegalArgumentException("Illegal list size " + size);
+		if(elementType == TagType.END && size != 0) throw new IllegalArgumentException("Only empty lists can have type END");
+		beforeValue(TagType.LIST);
+		out.writeByte(elementType.getId());
+		out.writeInt(size);
+		Scope list = new Scope(Scope.LIST);
+		list.elementType = elementType;
+		list.remaining = size;
+		push(list);
+		return this;
+	}
+	
+	/**
+	 * Finishes the current list. All of its elements have to be written.
+	 * 
+	 * @return this
+	 */
+	public NBTWriter endList() {
+		if(scope.kind != Scope.LIST) throw new IllegalStateException("Not in a list");
+		if(scope.remaining != 0) throw new IllegalStateException("The list is missing " + scope.remaining + " elements");
+		pop();
+		return this;
+	}
+	
+	/**
+	 * Gets the amount of compounds and lists that have been started but not
+	 * finished
+	 * 
+	 * @return the depth
+	 */
+	public int getDepth() {
+		return stack.size();
+	}
+	
+	private void beforeValue(TagType type) throws IOException {
+		switch(scope.kind) {
+			case Scope.LIST:
+				if(type != scope.elementType) throw new IllegalStateException(
+					"Expected an element of type " + scope.elementType + " but was " + type
+				);
+				if(scope.remaining == 0) throw new IllegalStateException("The list is already full");
+				scope.remaining--;
+				break;
+			case Scope.COMPOUND:
+				if(scope.name == null) throw new IllegalStateException("A value in a compound needs a name");
+				out.writeByte(type.getId());
+				out.writeUTF(scope.name);
+				break;
+			default:
+				out.writeByte(type.getId());
+				if(scope.named) out.writeUTF(scope.name == null? "": scope.name);
+		}
+		scope.name = null;
+	}
+	
+	private void push(Scope next) {
+		stack.add(scope);
+		scope = next;
+	}
+	
+	private void pop() {
+		scope = stack.remove(stack.size() - 1);
+	}
+	
+	private static class Scope {
+		
+		private static final int ROOT = 0;
+		private static final int COMPOUND = 1;
+		private static final int LIST = 2;
+		
+		private int kind;
+		private boolean named;
+		private String name;
+		private TagType elementType;
+		private int remaining;
+		
+		public Scope(int kind) {
+			this.kind = kind;
+		}
+	}
+}
@@ -0,0 +1,125 @@
+/*
+MIT License
+
+Copyright (c) 2017 MrYurihi Redstone
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package com.github.mryurihi.tbnbt.stream;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * The write buffer of an {@link NBTOutputStream}. Small writes are collected in
+ * an array and passed on when the array is full or the buffer is flushed.
+ * Writes larger than the array are passed on directly, and if the target is a
+ * {@link GatheringByteChannel} the buffered bytes and the large write are
+ * passed on with a single gathering write.
+ */
+class OutputBuffer extends OutputStream {
+	
+	private final OutputStream out;
+	
+	private final WritableByteChannel channel;
+	
+	private final byte[] buf;
+	
+	private int count;
+	
+	OutputBuffer(OutputStream out, int size) {
+		this(out, null, size);
+	}
+	
+	OutputBuffer(WritableByteChannel channel, int size) {
+		this(null, channel, size);
+	}
+	
+	private OutputBuffer(OutputStream out, WritableByteChannel channel, int size) {
+		if(size <= 0) throw new IllegalArgumentException("Illegal buffer size " + size);
+		this.out = out;
+		this.channel = channel;
+		this.buf = new byte[size];
+	}
+	
+	@Override
+	public void write(int b) throws IOException {
+		if(count == buf.length) flushBuffer();
+		buf[count++] = (byte) b;
+	}
+	
+	@Override
+	public void write(byte[] b, int off, int len) throws IOException {
+		if(len > buf.length - count) {
+			if(len >= buf.length) {
+				writeThrough(b, off, len);
+				return;
+			}
+			flushBuffer();
+		}
+		System.arraycopy(b, off, buf, count, len);
+		count += len;
+	}
+	
+	@Override
+	public void flush() throws IOException {
+		flushBuffer();
+		if(out != null) out.flush();
+	}
+	
+	@Override
+	public void close() throws IOException {
+		try {
+			flushBuffer();
+		} finally {
+			if(out != null) out.close();
+			else channel.close();
+		}
+	}
+	
+	private void writeThrough(byte[] b, int off, int len) throws IOException {
+		if(channel instanceof GatheringByteChannel && count > 0) {
+			ByteBuffer[] buffers = {
+				ByteBuffer.wrap(buf, 0, count), ByteBuffer.wrap(b, off, len)
+			};
+			while(buffers[1].hasRemaining())
+				((GatheringByteChannel) channel).write(buffers);
+			count = 0;
+			return;
+		}
+		flushBuffer();
+		if(out != null) out.write(b, off, len);
+		else writeFully(ByteBuffer.wrap(b, off, len));
+	}
+	
+	private void flushBuffer() throws IOException {
+		if(count == 0) return;
+		if(out != null) out.write(buf, 0, count);
+		else writeFully(ByteBuffer.wrap(buf, 0, count));
+		count = 0;
+	}
+	
+	private void writeFully(ByteBuffer data) throws IOException {
+		while(data.hasRemaining())
+			channel.write(data);
+	}
+}
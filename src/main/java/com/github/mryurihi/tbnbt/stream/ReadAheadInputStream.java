@@ -0,0 +1,209 @@
+/*
+MIT License
+
+Copyright (c) 2017 MrYurihi Redstone
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package com.github.mryurihi.tbnbt.stream;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * The read-ahead buffer of an {@link NBTInputStream}. A background thread reads
+ * the source into one of two buffers while the stream consumes the other, so
+ * waiting for the source and decompressing it overlap with decoding. A buffer
+ * is handed over after every read of the source that returns data, so data
+ * arriving slowly through a pipe or socket is not held back until the buffer
+ * is full.<br>
+ * <br>
+ * Closing the stream interrupts the background thread and closes the source,
+ * which ends a read that is blocked on a pipe or socket, and then waits a
+ * limited time for the thread to stop. The decompressing stream on top of the
+ * source may hold pooled inflaters and buffers, so it is only closed once the
+ * thread is no longer reading from it. If the thread is still blocked after the
+ * wait, it is left behind as a daemon thread and closes the decompressing
+ * stream itself when its read returns.
+ */
+class ReadAheadInputStream extends InputStream {
+	
+	/**
+	 * How long closing the stream waits for the background thread to stop
+	 */
+	private static final long CLOSE_TIMEOUT_MILLIS = 1000;
+	
+	private final InputStream source;
+	
+	private final InputStream in;
+	
+	private final AtomicBoolean inClosed = new AtomicBoolean();
+	
+	private final BlockingQueue<Chunk> filled = new ArrayBlockingQueue<>(2);
+	
+	private final BlockingQueue<Chunk> free = new ArrayBlockingQueue<>(2);
+	
+	private final Thread reader;
+	
+	private Chunk current;
+	
+	private int position;
+	
+	private volatile boolean closed;
+	
+	/**
+	 * @param source the stream that is read from, which can be closed while it is
+	 *        being read
+	 * @param in the stream on top of the source that is read by the background
+	 *        thread, for example a decompressing stream
+	 * @param size the size of each of the two buffers
+	 */
+	ReadAheadInputStream(InputStream source, InputStream in, int size) {
+		if(size <= 0) throw new IllegalArgumentException("Illegal buffer size " + size);
+		this.source = source;
+		this.in = in;
+		free.add(new Chunk(size));
+		free.add(new Chunk(size));
+		reader = new Thread(this::fill, "NBT read-ahead");
+		reader.setDaemon(true);
+		reader.start();
+	}
+	
+	@Override
+	public int read() throws IOException {
+		if(!ensureAvailable()) return -1;
+		return current.data[position++] & 0xff;
+	}
+	
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException {
+		if(len == 0) return 0;
+		if(!ensureAvailable()) return -1;
+		int count = Math.min(len, current.length - position);
+		System.arraycopy(current.data, position, b, off, count);
+		position += count;
+		return count;
+	}
+	
+	@Override
+	public int available() throws IOException {
+		return current == null || current.length < 0? 0: current.length - position;
+	}
+	
+	@Override
+	public void close() throws IOException {
+		if(closed) return;
+		closed = true;
+		reader.interrupt();
+		IOException failure = null;
+		try {
+			source.close();
+		} catch(IOException e) {
+			failure = e;
+		}
+		try {
+			reader.join(CLOSE_TIMEOUT_MILLIS);
+		} catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		if(!reader.isAlive()) {
+			try {
+				closeIn();
+			} catch(IOException e) {
+				if(failure == null) failure = e;
+			}
+		}
+		if(failure != null) throw failure;
+	}
+	
+	/**
+	 * Closes the stream the background thread reads once, from whichever of the
+	 * closing thread and the background thread is done last
+	 */
+	private void closeIn() throws IOException {
+		if(inClosed.compareAndSet(false, true)) in.close();
+	}
+	
+	private boolean ensureAvailable() throws IOException {
+		if(closed) throw new IOException("Stream closed");
+		while(current == null || position >= current.length) {
+			if(current != null) {
+				if(current.length < 0) {
+					Throwable error = current.error;
+					if(error == null) return false;
+					if(error instanceof IOException) throw (IOException) error;
+					if(error instanceof RuntimeException) throw (RuntimeException) error;
+					if(error instanceof Error) throw (Error) error;
+					throw new IOException(error);
+				}
+				free.add(current);
+			}
+			try {
+				current = filled.take();
+			} catch(InterruptedException e) {
+				current = null;
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException();
+			}
+			position = 0;
+		}
+		return true;
+	}
+	
+	private void fill() {
+		try {
+			while(!closed) {
+				Chunk chunk = free.take();
+				try {
+					chunk.length = in.read(chunk.data, 0, chunk.data.length);
+				} catch(Throwable e) {
+					chunk.length = -1;
+					chunk.error = e;
+				}
+				filled.put(chunk);
+				if(chunk.length < 0) return;
+			}
+		} catch(InterruptedException e) {
+			// closed while waiting for a free buffer
+		} finally {
+			if(closed) {
+				try {
+					closeIn();
+				} catch(IOException e) {
+					// nobody is left to report it to
+				}
+			}
+		}
+	}
+	
+	private static class Chunk {
+		
+		private final byte[] data;
+		private int length;
+		private Throwable error;
+		
+		public Chunk(int size) {
+			this.data = new byte[size];
+		}
+	}
+}
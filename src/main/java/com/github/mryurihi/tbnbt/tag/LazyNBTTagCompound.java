@@ -0,0 +1,256 @@
+/*
+MIT License
+
+Copyright (c) 2017 MrYurihi Redstone
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package com.github.mryurihi.tbnbt.tag;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import com.github.mryurihi.tbnbt.TagType;
+import com.github.mryurihi.tbnbt.exceptions.MalformedNBTException;
+import com.github.mryurihi.tbnbt.stream.NBTBufferInput;
+import com.github.mryurihi.tbnbt.stream.NBTEncoding;
+import com.github.mryurihi.tbnbt.stream.NBTKeyTable;
+
+/**
+ * An {@link NBTTagCompound} that is read from a buffer without decoding its
+ * children. Reading the compound only records where each child starts in the
+ * buffer. A child is decoded the first time it is accessed, and children that
+ * are never accessed are written back by copying their bytes, as long as the
+ * output has the same {@link NBTEncoding} as the buffer.<br>
+ * <br>
+ * The compound keeps a reference to the buffer it was read from, so the
+ * buffer's content must not change while the compound is in use. Like
+ * {@link NBTTagCompound}, this class is not thread safe.
+ */
+public class LazyNBTTagCompound extends NBTTagCompound {
+	
+	private ByteBuffer source;
+	
+	private boolean arrayViews;
+	
+	private NBTEncoding encoding;
+	
+	private NBTKeyTable keyTable;
+	
+	private Map<String, NBTTag> value = new HashMap<>();
+	
+	private Map<String, Child> pending = new HashMap<>();
+	
+	LazyNBTTagCompound() {
+	}
+	
+	/**
+	 * Reads the payload of a compound tag from an input without decoding its
+	 * children. The input is left positioned after the end of the compound.
+	 * 
+	 * @param in the input to read from
+	 * @return the compound
+	 * @throws IOException if the buffer ends before the compound does
+	 */
+	public static LazyNBTTagCompound read(NBTBufferInput in) throws IOException {
+		LazyNBTTagCompound compound = new LazyNBTTagCompound();
+		compound.readLazily(in);
+		return compound;
+	}
+	
+	private void readLazily(NBTBufferInput in) throws IOException {
+		source = in.getBuffer().duplicate();
+		arrayViews = in.isArrayViews();
+		encoding = in.getEncoding();
+		keyTable = in.getKeyTable();
+		value = new HashMap<>();
+		pending = new HashMap<>();
+		byte type = in.readByte();
+		while(type != 0) {
+			TagType tagType = getType(type);
+			String name = in.readKey();
+			int start = in.getBuffer().position();
+			NBTTag.skipPayload(tagType, in);
+			pending.put(name, new Child(tagType, start, in.getBuffer().position()));
+			type = in.readByte();
+		}
+	}
+	
+	/**
+	 * Gets the amount of children that have not been decoded yet
+	 * 
+	 * @return the amount of children that are still only stored as bytes
+	 */
+	public int getPendingCount() {
+		return pending.size();
+	}
+	
+	@Override
+	public Map<String, NBTTag> getValue() {
+		if(!pending.isEmpty()) {
+			for(Entry<String, Child> entry: pending.entrySet())
+				value.put(entry.getKey(), materialize(entry.getValue()));
+			pending.clear();
+		}
+		return value;
+	}
+	
+	@Override
+	public boolean isEmpty() {
+		return value.isEmpty() && pending.isEmpty();
+	}
+	
+	@Override
+	public boolean containsKey(Object key) {
+		return value.containsKey(key) || pending.containsKey(key);
+	}
+	
+	@Override
+	public NBTTag get(Object key) {
+		NBTTag tag = value.get(key);
+		if(tag == null) {
+			Child child = pending.remove(key);
+			if(child != null) {
+				tag = materialize(child);
+				value.put((String) key, tag);
+			}
+		}
+		return tag;
+	}
+	
+	@Override
+	public NBTTag put(String key, NBTTag value) {
+		Child child = pending.remove(key);
+		NBTTag old = this.value.put(key, value);
+		return child == null? old: materialize(child);
+	}
+	
+	@Override
+	public void writePayloadBytes(DataOutput out) throws IOException {
+		if(!pending.isEmpty() && NBTEncoding.of(out) != encoding) getValue();
+		for(Entry<String, NBTTag> entry: value.entrySet()) {
+			out.writeByte((byte) entry.getValue().getTagType().getId());
+			out.writeUTF(entry.getKey());
+			entry.getValue().writePayloadBytes(out);
+		}
+		for(Entry<String, Child> entry: pending.entrySet()) {
+			Child child = entry.getValue();
+			out.writeByte((byte) child.type.getId());
+			out.writeUTF(entry.getKey());
+			int length = child.end - child.start;
+			if(source.hasArray()) out.write(source.array(), source.arrayOffset() + child.start, length);
+			else {
+				ByteBuffer data = source.duplicate();
+				data.position(child.start);
+				byte[] chunk = new byte[Math.min(length, 8192)];
+				while(length > 0) {
+					int count = Math.min(chunk.length, length);
+					data.get(chunk, 0, count);
+					out.write(chunk, 0, count);
+					length -= count;
+				}
+			}
+		}
+		out.writeByte(0);
+	}
+	
+	/**
+	 * Reads the payload of a compound tag. From an {@link NBTBufferInput} only
+	 * the positions of the children are recorded, like
+	 * {@link #read(NBTBufferInput)} does. Any other input can not be read again
+	 * later, so the children are decoded right away, like {@link NBTTagCompound}
+	 * does.
+	 */
+	@Override
+	public NBTTag readPayloadBytes(DataInput in) throws IOException {
+		if(in instanceof NBTBufferInput) readLazily((NBTBufferInput) in);
+		else {
+			super.readPayloadBytes(in);
+			source = null;
+			value = super.getValue();
+			pending = new HashMap<>();
+		}
+		return this;
+	}
+	
+	@Override
+	public String toString() {
+		return getValue().toString();
+	}
+	
+	@Override
+	protected boolean equalsTag(NBTTag tag) {
+		return tag.getTagType().equals(TagType.COMPOUND) && tag.getAsTagCompound().getValue().equals(getValue());
+	}
+	
+	private NBTTag materialize(Child child) {
+		ByteBuffer data = source.duplicate();
+		data.position(child.start);
+		NBTBufferInput in = new NBTBufferInput(data, encoding);
+		in.setArrayViews(arrayViews);
+		in.setKeyTable(keyTable);
+		try {
+			switch(child.type) {
+				case COMPOUND:
+					return read(in);
+				case LIST:
+					TagType elementType = getType(in.readByte());
+					if(elementType != TagType.COMPOUND) {
+						in.getBuffer().position(child.start);
+						return NBTTag.newTagByType(TagType.LIST, in);
+					}
+					int length = in.readInt();
+					NBTTagList list = new NBTTagList(TagType.COMPOUND);
+					for(int i = 0; i < length; i++)
+						list.add(read(in));
+					return list;
+				default:
+					return NBTTag.newTagByType(child.type, in);
+			}
+		} catch(IOException e) {
+			throw new MalformedNBTException(e);
+		}
+	}
+	
+	private static TagType getType(byte id) {
+		try {
+			return TagType.getTypeById(id);
+		} catch(IllegalArgumentException e) {
+			throw new MalformedNBTException(e);
+		}
+	}
+	
+	private static class Child {
+		
+		private TagType type;
+		private int start;
+		private int end;
+		
+		public Child(TagType type, int start, int end) {
+			this.type = type;
+			this.start = start;
+			this.end = end;
+		}
+	}
+}
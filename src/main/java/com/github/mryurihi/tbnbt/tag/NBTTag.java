@@ -23,11 +23,14 @@ SOFTWARE.
 */
 package com.github.mryurihi.tbnbt.tag;
 
-import java.io.DataInputStream;
-import java.io.DataOutputStream;
+import java.io.DataInput;
+import java.io.DataOutput;
 import java.io.IOException;
 
 import com.github.mryurihi.tbnbt.TagType;
+import com.github.mryurihi.tbnbt.exceptions.MalformedNBTException;
+import com.github.mryurihi.tbnbt.stream.BoundedNBTInput;
+import com.github.mryurihi.tbnbt.stream.NBTEncoding;
 
 public abstract class NBTTag {
 	
@@ -37,7 +40,7 @@ public abstract class NBTTag {
 	 * @param out the stream to write to
 	 * @throws IOException if an I/O exception occurs
 	 */
-	abstract public void writePayloadBytes(DataOutputStream out) throws IOException;
+	abstract public void writePayloadBytes(DataOutput out) throws IOException;
 	
 	/**
 	 * reads the payload bytes for this object
@@ -46,7 +49,7 @@ public abstract class NBTTag {
 	 * @return this
 	 * @throws IOException if an I/O exception occurs
 	 */
-	abstract public NBTTag readPayloadBytes(DataInputStream in) throws IOException;
+	abstract public NBTTag readPayloadBytes(DataInput in) throws IOException;
 	
 	/**
 	 * Gets the type of the tag
@@ -187,7 +190,7 @@ public abstract class NBTTag {
 	 * @return the created tag
 	 * @throws IOException if an I/O exception occurs
 	 */
-	public static NBTTag newTagByType(TagType type, DataInputStream in) throws IOException {
+	public static NBTTag newTagByType(TagType type, DataInput in) throws IOException {
 		switch(type) {
 			case BYTE:
 				return new NBTTagByte().readPayloadBytes(in);
@@ -217,4 +220,125 @@ public abstract class NBTTag {
 				return null;
 		}
 	}
+	
+	/**
+	 * Skips the payload of a tag without decoding it. Primitives, arrays, strings
+	 * and lists of primitives are skipped with a single skip using their size or
+	 * length prefix, compounds and other lists are walked structurally. In the
+	 * {@link NBTEncoding#VARINT} encoding ints and longs have no fixed size, so
+	 * they are read instead.
+	 * 
+	 * @param type the type of the tag
+	 * @param in the input to skip in
+	 * @throws IOException if the input ends before the payload does
+	 */
+	public static void skipPayload(TagType type, DataInput in) throws IOException {
+		skipPayload(type, in, NBTEncoding.of(in).isVarInt());
+	}
+	
+	private static void skipPayload(TagType type, DataInput in, boolean varInt) throws IOException {
+		int size = getPayloadSize(type, varInt);
+		if(size > 0) {
+			skipFully(in, size);
+			return;
+		}
+		switch(type) {
+			case BYTE_ARRAY:
+				skipFully(in, checkLength(in.readInt()));
+				break;
+			case INT:
+				in.readInt();
+				break;
+			case LONG:
+				in.readLong();
+				break;
+			case INT_ARRAY:
+				int count = checkLength(in.readInt());
+				if(!varInt) skipFully(in, count * 4L);
+				else for(int i = 0; i < count; i++)
+					in.readInt();
+				break;
+			case LONG_ARRAY:
+				count = checkLength(in.readInt());
+				if(!varInt) skipFully(in, count * 8L);
+				else for(int i = 0; i < count; i++)
+					in.readLong();
+				break;
+			case STRING:
+				skipFully(in, varInt? NBTEncoding.readUnsignedVarInt(in): in.readUnsignedShort());
+				break;
+			case LIST:
+				TagType elementType = getType(in.readByte());
+				int length = checkLength(in.readInt());
+				int elementSize = getPayloadSize(elementType, varInt);
+				if(elementSize > 0) skipFully(in, (long) length * elementSize);
+				else {
+					BoundedNBTInput bounded = in instanceof BoundedNBTInput? (BoundedNBTInput) in: null;
+					if(bounded != null) {
+						bounded.checkArrayLength(length, elementType == TagType.END? 0: 1);
+						bounded.enterNested();
+					}
+					for(int i = 0; i < length; i++)
+						skipPayload(elementType, in, varInt);
+					if(bounded != null) bounded.exitNested();
+				}
+				break;
+			case COMPOUND:
+				BoundedNBTInput bounded = in instanceof BoundedNBTInput? (BoundedNBTInput) in: null;
+				if(bounded != null) bounded.enterNested();
+				byte next = in.readByte();
+				while(next != 0) {
+					skipFully(in, varInt? NBTEncoding.readUnsignedVarInt(in): in.readUnsignedShort());
+					skipPayload(getType(next), in, varInt);
+					next = in.readByte();
+				}
+				if(bounded != null) bounded.exitNested();
+				break;
+			default:
+				throw new MalformedNBTException("Unexpected tag type " + type);
+		}
+	}
+	
+	private static int getPayloadSize(TagType type, boolean varInt) {
+		switch(type) {
+			case BYTE:
+				return 1;
+			case SHORT:
+				return 2;
+			case INT:
+				return varInt? -1: 4;
+			case FLOAT:
+				return 4;
+			case LONG:
+				return varInt? -1: 8;
+			case DOUBLE:
+				return 8;
+			default:
+				return -1;
+		}
+	}
+	
+	private static int checkLength(int length) {
+		if(length < 0) throw new MalformedNBTException("Illegal length " + length);
+		return length;
+	}
+	
+	private static TagType getType(byte id) {
+		try {
+			return TagType.getTypeById(id);
+		} catch(IllegalArgumentException e) {
+			throw new MalformedNBTException(e);
+		}
+	}
+	
+	private static void skipFully(DataInput in, long bytes) throws IOException {
+		while(bytes > 0) {
+			int skipped = in.skipBytes((int) Math.min(bytes, Integer.MAX_VALUE));
+			if(skipped <= 0) {
+				in.readByte();
+				skipped = 1;
+			}
+			bytes -= skipped;
+		}
+	}
 }
@@ -23,18 +23,23 @@ SOFTWARE.
 */
 package com.github.mryurihi.tbnbt.tag;
 
-import java.io.DataInputStream;
-import java.io.DataOutputStream;
+import java.io.DataInput;
+import java.io.DataOutput;
 import java.io.IOException;
-import java.util.Arrays;
+import java.nio.ByteBuffer;
+import java.util.Objects;
 import java.util.stream.IntStream;
 
 import com.github.mryurihi.tbnbt.TagType;
+import com.github.mryurihi.tbnbt.stream.NBTArrays;
+import com.github.mryurihi.tbnbt.stream.NBTBufferInput;
 
 public class NBTTagByteArray extends NBTTag {
 	
 	private byte[] value;
 	
+	private ByteBuffer view;
+	
 	public NBTTagByteArray(byte[] value) {
 		this.value = value;
 	}
@@ -42,26 +47,85 @@ public class NBTTagByteArray extends NBTTag {
 	NBTTagByteArray() {
 	}
 	
+	/**
+	 * Creates a byte array tag that is backed by the remaining bytes of a buffer
+	 * instead of an array. The buffer is not copied until {@link #getValue()} is
+	 * called.
+	 * 
+	 * @param view the buffer holding the array data
+	 * @return the tag
+	 */
+	public static NBTTagByteArray view(ByteBuffer view) {
+		NBTTagByteArray tag = new NBTTagByteArray();
+		tag.view = view.slice();
+		return tag;
+	}
+	
+	/**
+	 * Gets the value of this tag. If the tag is backed by a buffer view, the view
+	 * is copied into an array on the first call and the tag is detached from the
+	 * buffer: it no longer refers to it and {@link #isView()} returns false. This
+	 * changes the tag, so a view that is shared between threads must not be read
+	 * with this method without synchronization. {@link #getBuffer()},
+	 * {@code equals} and {@code toString} read a view without detaching it.
+	 * 
+	 * @return the value
+	 */
 	public byte[] getValue() {
+		if(view != null) {
+			value = new byte[view.remaining()];
+			view.duplicate().get(value);
+			view = null;
+		}
 		return value;
 	}
 	
 	public void setValue(byte[] value) {
 		this.value = value;
+		this.view = null;
+	}
+	
+	/**
+	 * Gets the value of this tag as a buffer without copying it. If the tag is
+	 * backed by a buffer view, a duplicate of the view is returned, otherwise the
+	 * array is wrapped.
+	 * 
+	 * @return the value as a buffer
+	 */
+	public ByteBuffer getBuffer() {
+		if(view != null) return view.duplicate();
+		return value == null? null: ByteBuffer.wrap(value);
+	}
+	
+	/**
+	 * Whether this tag is backed by a buffer view instead of an array
+	 * 
+	 * @return true if the tag is a view
+	 */
+	public boolean isView() {
+		return view != null;
 	}
 	
 	@Override
-	public void writePayloadBytes(DataOutputStream out) throws IOException {
+	public void writePayloadBytes(DataOutput out) throws IOException {
+		if(view != null) {
+			out.writeInt(view.remaining());
+			NBTArrays.write(out, view);
+			return;
+		}
 		out.writeInt(value.length);
-		for(byte b: value)
-			out.writeByte(b);
+		out.write(value);
 	}
 	
 	@Override
-	public NBTTag readPayloadBytes(DataInputStream in) throws IOException {
-		value = new byte[in.readInt()];
-		for(int i = 0; i < value.length; i++)
-			value[i] = in.readByte();
+	public NBTTag readPayloadBytes(DataInput in) throws IOException {
+		if(in instanceof NBTBufferInput && ((NBTBufferInput) in).isArrayViews()) {
+			view = ((NBTBufferInput) in).readSlice(in.readInt(), 1);
+			value = null;
+			return this;
+		}
+		view = null;
+		value = NBTArrays.readByteArray(in);
 		return this;
 	}
 	
@@ -72,9 +136,10 @@ public class NBTTagByteArray extends NBTTag {
 	
 	@Override
 	public String toString() {
+		ByteBuffer buffer = getBuffer();
 		return new StringBuilder("[B;").append(
-			String.join(", ", IntStream.range(0, value.length) // Slightly different because ByteStream does not exist
-				.mapToObj(i -> String.valueOf(value[i]))
+			String.join(", ", IntStream.range(buffer.position(), buffer.limit())
+				.mapToObj(i -> String.valueOf(buffer.get(i)))
 				.toArray(len -> new String[len])
 			)
 		).append("]").toString();
@@ -82,6 +147,6 @@ public class NBTTagByteArray extends NBTTag {
 	
 	@Override
 	protected boolean equalsTag(NBTTag tag) {
-		return tag.getTagType().equals(TagType.BYTE_ARRAY) && Arrays.equals(tag.getAsTagByteArray().getValue(), value);
+		return tag.getTagType().equals(TagType.BYTE_ARRAY) && Objects.equals(tag.getAsTagByteArray().getBuffer(), getBuffer());
 	}
 }
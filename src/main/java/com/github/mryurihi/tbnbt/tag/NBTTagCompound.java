@@ -23,14 +23,16 @@ SOFTWARE.
 */
 package com.github.mryurihi.tbnbt.tag;
 
-import java.io.DataInputStream;
-import java.io.DataOutputStream;
+import java.io.DataInput;
+import java.io.DataOutput;
 import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Map.Entry;
 
 import com.github.mryurihi.tbnbt.TagType;
+import com.github.mryurihi.tbnbt.stream.BoundedNBTInput;
+import com.github.mryurihi.tbnbt.stream.NBTKeyTable;
 
 public class NBTTagCompound extends NBTTag {
 	
@@ -65,7 +67,7 @@ public class NBTTagCompound extends NBTTag {
 	}
 	
 	@Override
-	public void writePayloadBytes(DataOutputStream out) throws IOException {
+	public void writePayloadBytes(DataOutput out) throws IOException {
 		for(Entry<String, NBTTag> entry: value.entrySet()) {
 			out.writeByte((byte) entry.getValue().getTagType().getId());
 			new NBTTagString(entry.getKey()).writePayloadBytes(out);
@@ -75,16 +77,19 @@ public class NBTTagCompound extends NBTTag {
 	}
 	
 	@Override
-	public NBTTag readPayloadBytes(DataInputStream in) throws IOException {
+	public NBTTag readPayloadBytes(DataInput in) throws IOException {
+		BoundedNBTInput bounded = in instanceof BoundedNBTInput? (BoundedNBTInput) in: null;
+		if(bounded != null) bounded.enterNested();
 		value = new HashMap<>();
 		byte type = in.readByte();
 		while(type != 0) {
 			value.put(
-				new NBTTagString().readPayloadBytes(in).getAsTagString().getValue(),
+				NBTKeyTable.readKey(in),
 				NBTTag.newTagByType(TagType.getTypeById(type), in)
 			);
 			type = in.readByte();
 		}
+		if(bounded != null) bounded.exitNested();
 		return this;
 	}
 	
@@ -23,8 +23,8 @@ SOFTWARE.
 */
 package com.github.mryurihi.tbnbt.tag;
 
-import java.io.DataInputStream;
-import java.io.DataOutputStream;
+import java.io.DataInput;
+import java.io.DataOutput;
 import java.io.IOException;
 
 import com.github.mryurihi.tbnbt.TagType;
@@ -49,12 +49,12 @@ public class NBTTagFloat extends NBTTag {
 	}
 	
 	@Override
-	public void writePayloadBytes(DataOutputStream out) throws IOException {
+	public void writePayloadBytes(DataOutput out) throws IOException {
 		out.writeFloat(value);
 	}
 	
 	@Override
-	public NBTTag readPayloadBytes(DataInputStream in) throws IOException {
+	public NBTTag readPayloadBytes(DataInput in) throws IOException {
 		this.value = in.readFloat();
 		return this;
 	}
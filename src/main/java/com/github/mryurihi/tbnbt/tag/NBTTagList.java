@@ -23,8 +23,8 @@ SOFTWARE.
 */
 package com.github.mryurihi.tbnbt.tag;
 
-import java.io.DataInputStream;
-import java.io.DataOutputStream;
+import java.io.DataInput;
+import java.io.DataOutput;
 import java.io.IOException;
 import java.util.Iterator;
 import java.util.List;
@@ -32,6 +32,7 @@ import java.util.Objects;
 
 import com.github.mryurihi.tbnbt.TagType;
 import com.github.mryurihi.tbnbt.exceptions.MalformedNBTException;
+import com.github.mryurihi.tbnbt.stream.BoundedNBTInput;
 import com.github.mryurihi.tbnbt.tag.internal.NBTListBacker;
 
 public class NBTTagList extends NBTTag implements Iterable<NBTTag> {
@@ -77,7 +78,7 @@ public class NBTTagList extends NBTTag implements Iterable<NBTTag> {
 	}
 	
 	@Override
-	public void writePayloadBytes(DataOutputStream out) throws IOException {
+	public void writePayloadBytes(DataOutput out) throws IOException {
 		out.writeByte(typeId.getId());
 		out.writeInt(value.size());
 		for(NBTTag t: value)
@@ -85,14 +86,20 @@ public class NBTTagList extends NBTTag implements Iterable<NBTTag> {
 	}
 	
 	@Override
-	public NBTTag readPayloadBytes(DataInputStream in) throws IOException {
+	public NBTTag readPayloadBytes(DataInput in) throws IOException {
 		try {
 			byte id = in.readByte();
 			int length = in.readInt();
 			typeId = TagType.getTypeById(id);
+			BoundedNBTInput bounded = in instanceof BoundedNBTInput? (BoundedNBTInput) in: null;
+			if(bounded != null) {
+				bounded.checkArrayLength(length, typeId == TagType.END? 0: 1);
+				bounded.enterNested();
+			}
 			value = new NBTListBacker();
 			for(int i = 0; i < length; i++)
 				value.add(NBTTag.newTagByType(typeId, in));
+			if(bounded != null) bounded.exitNested();
 			return this;
 		} catch(IllegalArgumentException e) {
 			throw new MalformedNBTException(e);
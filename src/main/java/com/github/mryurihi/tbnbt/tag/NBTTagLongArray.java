@@ -23,18 +23,23 @@ SOFTWARE.
 */
 package com.github.mryurihi.tbnbt.tag;
 
-import java.io.DataInputStream;
-import java.io.DataOutputStream;
+import java.io.DataInput;
+import java.io.DataOutput;
 import java.io.IOException;
-import java.util.Arrays;
-import java.util.stream.LongStream;
+import java.nio.LongBuffer;
+import java.util.Objects;
+import java.util.stream.IntStream;
 
 import com.github.mryurihi.tbnbt.TagType;
+import com.github.mryurihi.tbnbt.stream.NBTArrays;
+import com.github.mryurihi.tbnbt.stream.NBTBufferInput;
 
 public class NBTTagLongArray extends NBTTag {
 	
 	private long[] value;
 	
+	private LongBuffer view;
+	
 	public NBTTagLongArray(long[] value) {
 		this.value = value;
 	}
@@ -42,26 +47,85 @@ public class NBTTagLongArray extends NBTTag {
 	NBTTagLongArray() {
 	}
 	
+	/**
+	 * Creates a long array tag that is backed by the remaining elements of a buffer
+	 * instead of an array. The buffer is not copied until {@link #getValue()} is
+	 * called.
+	 * 
+	 * @param view the buffer holding the array data
+	 * @return the tag
+	 */
+	public static NBTTagLongArray view(LongBuffer view) {
+		NBTTagLongArray tag = new NBTTagLongArray();
+		tag.view = view.slice();
+		return tag;
+	}
+	
+	/**
+	 * Gets the value of this tag. If the tag is backed by a buffer view, the view
+	 * is copied into an array on the first call and the tag is detached from the
+	 * buffer: it no longer refers to it and {@link #isView()} returns false. This
+	 * changes the tag, so a view that is shared between threads must not be read
+	 * with this method without synchronization. {@link #getBuffer()},
+	 * {@code equals} and {@code toString} read a view without detaching it.
+	 * 
+	 * @return the value
+	 */
 	public long[] getValue() {
+		if(view != null) {
+			value = new long[view.remaining()];
+			view.duplicate().get(value);
+			view = null;
+		}
 		return value;
 	}
 	
 	public void setValue(long[] value) {
 		this.value = value;
+		this.view = null;
+	}
+	
+	/**
+	 * Gets the value of this tag as a buffer without copying it. If the tag is
+	 * backed by a buffer view, a duplicate of the view is returned, otherwise the
+	 * array is wrapped.
+	 * 
+	 * @return the value as a buffer
+	 */
+	public LongBuffer getBuffer() {
+		if(view != null) return view.duplicate();
+		return value == null? null: LongBuffer.wrap(value);
+	}
+	
+	/**
+	 * Whether this tag is backed by a buffer view instead of an array
+	 * 
+	 * @return true if the tag is a view
+	 */
+	public boolean isView() {
+		return view != null;
 	}
 	
 	@Override
-	public void writePayloadBytes(DataOutputStream out) throws IOException {
+	public void writePayloadBytes(DataOutput out) throws IOException {
+		if(view != null) {
+			out.writeInt(view.remaining());
+			NBTArrays.write(out, view);
+			return;
+		}
 		out.writeInt(value.length);
-		for(long l: value)
-			out.writeLong(l);
+		NBTArrays.write(out, LongBuffer.wrap(value));
 	}
 	
 	@Override
-	public NBTTag readPayloadBytes(DataInputStream in) throws IOException {
-		value = new long[in.readInt()];
-		for(int i = 0; i < value.length; i++)
-			value[i] = in.readLong();
+	public NBTTag readPayloadBytes(DataInput in) throws IOException {
+		if(in instanceof NBTBufferInput && ((NBTBufferInput) in).isArrayViews()) {
+			view = ((NBTBufferInput) in).readSlice(in.readInt(), 8).asLongBuffer();
+			value = null;
+			return this;
+		}
+		view = null;
+		value = NBTArrays.readLongArray(in);
 		return this;
 	}
 	
@@ -72,13 +136,17 @@ public class NBTTagLongArray extends NBTTag {
 	
 	@Override
 	public String toString() {
+		LongBuffer buffer = getBuffer();
 		return new StringBuilder("[L;").append(
-			String.join(", ", LongStream.of(value).mapToObj(l -> String.valueOf(l)).toArray(len -> new String[len]))
+			String.join(", ", IntStream.range(buffer.position(), buffer.limit())
+				.mapToObj(i -> String.valueOf(buffer.get(i)))
+				.toArray(len -> new String[len])
+			)
 		).append("]").toString();
 	}
 	
 	@Override
 	protected boolean equalsTag(NBTTag tag) {
-		return tag.getTagType().equals(TagType.LONG_ARRAY) && Arrays.equals(tag.getAsTagLongArray().getValue(), value);
+		return tag.getTagType().equals(TagType.LONG_ARRAY) && Objects.equals(tag.getAsTagLongArray().getBuffer(), getBuffer());
 	}
 }
@@ -0,0 +1,123 @@
+/*
+MIT License
+
+Copyright (c) 2017 MrYurihi Redstone
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package com.github.mryurihi.tbnbt;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+
+import com.github.mryurihi.tbnbt.tag.NBTTagCompound;
+import com.github.mryurihi.tbnbt.tag.NBTTagInt;
+import com.github.mryurihi.tbnbt.tag.NBTTagList;
+import com.github.mryurihi.tbnbt.tag.NBTTagLongArray;
+import com.github.mryurihi.tbnbt.tag.NBTTagString;
+
+/**
+ * Sample tags and temporary files shared by the tests
+ */
+public final class TestFixtures {
+	
+	private TestFixtures() {
+	}
+	
+	/**
+	 * Creates a small compound that is told apart from other records by its value
+	 * 
+	 * @param value the value of the record
+	 * @return the record
+	 */
+	public static NBTTagCompound record(int value) {
+		NBTTagCompound record = new NBTTagCompound(new HashMap<>());
+		record.put("value", new NBTTagInt(value));
+		record.put("event", new NBTTagString("event " + value));
+		return record;
+	}
+	
+	/**
+	 * Creates a chunk with the layout of a Minecraft chunk: a {@code Level}
+	 * compound holding three {@code Sections} and {@code xPos}, next to
+	 * {@code DataVersion} and {@code Name}
+	 * 
+	 * @return the chunk
+	 */
+	public static NBTTagCompound chunk() {
+		NBTTagList sections = new NBTTagList(TagType.COMPOUND);
+		for(int i = 0; i < 3; i++) {
+			NBTTagCompound section = new NBTTagCompound(new HashMap<>());
+			section.put("Y", new NBTTagInt(i));
+			section.put("BlockStates", new NBTTagLongArray(new long[] {
+				i, i + 1
+			}));
+			sections.add(section);
+		}
+		NBTTagCompound level = new NBTTagCompound(new HashMap<>());
+		level.put("Sections", sections);
+		level.put("xPos", new NBTTagInt(4));
+		NBTTagCompound root = new NBTTagCompound(new HashMap<>());
+		root.put("Level", level);
+		root.put("DataVersion", new NBTTagInt(1631));
+		root.put("Name", new NBTTagString("chunk"));
+		return root;
+	}
+	
+	/**
+	 * Gets the path of a temporary file that does not exist yet and is deleted
+	 * when the JVM exits
+	 * 
+	 * @param suffix the suffix of the file name
+	 * @return the path
+	 * @throws IOException if an I/O exception occurs
+	 */
+	public static Path tempFile(String suffix) throws IOException {
+		Path file = Files.createTempFile("tbnbt", suffix);
+		Files.delete(file);
+		file.toFile().deleteOnExit();
+		return file;
+	}
+	
+	/**
+	 * Creates an empty temporary directory
+	 * 
+	 * @return the directory
+	 * @throws IOException if an I/O exception occurs
+	 */
+	public static Path tempDirectory() throws IOException {
+		Path directory = Files.createTempDirectory("tbnbt");
+		directory.toFile().deleteOnExit();
+		return directory;
+	}
+	
+	/**
+	 * Deletes a directory and the files in it
+	 * 
+	 * @param directory the directory
+	 */
+	public static void delete(Path directory) {
+		for(File file: directory.toFile().listFiles())
+			file.delete();
+		directory.toFile().delete();
+	}
+}
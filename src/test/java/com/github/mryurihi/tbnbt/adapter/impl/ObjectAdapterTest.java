@@ -0,0 +1,126 @@
+/*
+MIT License
+
+Copyright (c) 2017 MrYurihi Redstone
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package com.github.mryurihi.tbnbt.adapter.impl;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.HashMap;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import com.github.mryurihi.tbnbt.TagType;
+import com.github.mryurihi.tbnbt.adapter.NBTParseException;
+import com.github.mryurihi.tbnbt.adapter.TypeWrapper;
+import com.github.mryurihi.tbnbt.compression.CompressionCodec;
+import com.github.mryurihi.tbnbt.stream.NBTBufferInput;
+import com.github.mryurihi.tbnbt.stream.NBTBufferOutput;
+import com.github.mryurihi.tbnbt.stream.NBTInputStream;
+import com.github.mryurihi.tbnbt.tag.NBTTag;
+import com.github.mryurihi.tbnbt.tag.NBTTagCompound;
+import com.github.mryurihi.tbnbt.tag.NBTTagInt;
+import com.github.mryurihi.tbnbt.tag.NBTTagIntArray;
+import com.github.mryurihi.tbnbt.tag.NBTTagList;
+import com.github.mryurihi.tbnbt.tag.NBTTagString;
+
+class ObjectAdapterTest {
+	
+	private static NBTTagCompound nested() {
+		NBTTagCompound entry = new NBTTagCompound(new HashMap<>());
+		entry.put("id", new NBTTagString("stone"));
+		entry.put("ints", new NBTTagIntArray(new int[] {
+			1, 2, 3
+		}));
+		NBTTagList entries = new NBTTagList(TagType.COMPOUND);
+		entries.add(entry);
+		entries.add(entry);
+		NBTTagCompound tag = new NBTTagCompound(new HashMap<>());
+		tag.put("entries", entries);
+		tag.put("count", new NBTTagInt(2));
+		return tag;
+	}
+	
+	private static NBTTagList lists() {
+		NBTTagList inner = new NBTTagList(TagType.STRING);
+		inner.add(new NBTTagString("a"));
+		inner.add(new NBTTagString("b"));
+		NBTTagList list = new NBTTagList(TagType.LIST);
+		list.add(inner);
+		list.add(new NBTTagList(TagType.END));
+		return list;
+	}
+	
+	private static void writeField(NBTBufferOutput out, String name, NBTTag tag) throws IOException {
+		out.writeByte(tag.getTagType().getId());
+		out.writeUTF(name);
+		tag.writePayloadBytes(out);
+	}
+	
+	/**
+	 * Writes a compound with the unknown fields between the known ones, so the
+	 * known fields can only be read if the unknown ones are skipped completely
+	 */
+	private static byte[] sample() throws IOException {
+		NBTBufferOutput out = new NBTBufferOutput();
+		out.writeByte(TagType.COMPOUND.getId());
+		out.writeUTF("");
+		writeField(out, "before", new NBTTagInt(7));
+		writeField(out, "nested", nested());
+		writeField(out, "lists", lists());
+		writeField(out, "after", new NBTTagString("end"));
+		out.writeByte(0);
+		byte[] bytes = new byte[out.getBuffer().remaining()];
+		out.getBuffer().get(bytes);
+		return bytes;
+	}
+	
+	@Nested
+	class testFromNBT {
+		
+		@Test
+		void shouldSkipUnknownFieldsInBuffer() throws IOException, NBTParseException {
+			Known known = new NBTBufferInput(sample()).readToType(TypeWrapper.of(Known.class));
+			assertEquals(7, known.before);
+			assertEquals("end", known.after);
+		}
+		
+		@Test
+		void shouldSkipUnknownFieldsInStream() throws IOException, NBTParseException {
+			NBTInputStream in = new NBTInputStream(new ByteArrayInputStream(sample()), CompressionCodec.NONE);
+			Known known = in.readToType(TypeWrapper.of(Known.class));
+			in.close();
+			assertEquals(7, known.before);
+			assertEquals("end", known.after);
+		}
+	}
+	
+	static class Known {
+		
+		int before;
+		
+		String after;
+	}
+}
@@ -0,0 +1,194 @@
+/*
+MIT License
+
+Copyright (c) 2017 MrYurihi Redstone
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package com.github.mryurihi.tbnbt.compression;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipException;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+class CodecPoolTest {
+	
+	private static byte[] sampleData() {
+		byte[] data = new byte[100000];
+		Random random = new Random(1);
+		for(int i = 0; i < data.length; i++)
+			data[i] = (byte) (random.nextInt(16) + 'a');
+		return data;
+	}
+	
+	private static byte[] compress(CompressionCodec codec, byte[] data) throws IOException {
+		ByteArrayOutputStream bout = new ByteArrayOutputStream();
+		OutputStream out = codec.compress(bout);
+		out.write(data);
+		out.close();
+		return bout.toByteArray();
+	}
+	
+	private static byte[] decompress(CompressionCodec codec, byte[] data) throws IOException {
+		ByteArrayOutputStream bout = new ByteArrayOutputStream();
+		InputStream in = codec.decompress(new ByteArrayInputStream(data));
+		byte[] buffer = new byte[4096];
+		int read;
+		while((read = in.read(buffer)) != -1)
+			bout.write(buffer, 0, read);
+		in.close();
+		return bout.toByteArray();
+	}
+	
+	@Nested
+	class testReuse {
+		
+		@Test
+		void shouldReuseAfterClose() throws IOException {
+			CodecPool pool = new CodecPool();
+			CompressionCodec codec = new ZlibCodec(Deflater.DEFAULT_COMPRESSION, 4096, pool);
+			byte[] data = sampleData();
+			for(int i = 0; i < 10; i++)
+				assertArrayEquals(data, decompress(codec, compress(codec, data)));
+			assertEquals(1, pool.getDeflatersCreated());
+			assertEquals(9, pool.getDeflatersReused());
+			assertEquals(1, pool.getInflatersCreated());
+			assertEquals(9, pool.getInflatersReused());
+			assertEquals(1, pool.getBuffersCreated());
+			assertEquals(19, pool.getBuffersReused());
+		}
+		
+		@Test
+		void shouldReleaseBeyondIdleLimit() throws IOException {
+			CodecPool pool = new CodecPool(0);
+			CompressionCodec codec = new DeflateCodec(Deflater.BEST_SPEED, 4096, pool);
+			byte[] data = sampleData();
+			assertArrayEquals(data, decompress(codec, compress(codec, data)));
+			assertArrayEquals(data, decompress(codec, compress(codec, data)));
+			assertEquals(2, pool.getDeflatersCreated());
+			assertEquals(0, pool.getDeflatersReused());
+		}
+	}
+	
+	@Nested
+	class testGzip {
+		
+		@Test
+		void shouldMatchJdkGzip() throws IOException {
+			CompressionCodec codec = new GzipCodec(Deflater.DEFAULT_COMPRESSION, 512, new CodecPool());
+			byte[] data = sampleData();
+			ByteArrayOutputStream bout = new ByteArrayOutputStream();
+			GZIPOutputStream out = new GZIPOutputStream(bout);
+			out.write(data);
+			out.close();
+			byte[] jdk = bout.toByteArray();
+			byte[] pooled = compress(codec, data);
+			assertArrayEquals(Arrays.copyOfRange(jdk, 10, jdk.length), Arrays.copyOfRange(pooled, 10, pooled.length));
+			assertArrayEquals(data, decompress(codec, bout.toByteArray()));
+			assertArrayEquals(data, decompress(CompressionCodec.GZIP, compress(codec, data)));
+		}
+		
+		@Test
+		void shouldReadHeaderFields() throws IOException {
+			byte[] data = sampleData();
+			byte[] compressed = compress(CompressionCodec.GZIP, data);
+			ByteArrayOutputStream bout = new ByteArrayOutputStream();
+			bout.write(compressed, 0, 3);
+			bout.write(4 | 8 | 16);
+			bout.write(compressed, 4, 6);
+			bout.write(new byte[] {
+				2, 0, 'x', 'y'
+			});
+			bout.write(new byte[] {
+				'n', 0, 'c', 0
+			});
+			bout.write(compressed, 10, compressed.length - 10);
+			CompressionCodec codec = new GzipCodec(Deflater.DEFAULT_COMPRESSION, 64, new CodecPool());
+			assertArrayEquals(data, decompress(codec, bout.toByteArray()));
+			assertArrayEquals(data, decompress(CompressionCodec.GZIP, bout.toByteArray()));
+		}
+		
+		@Test
+		void shouldReadConcatenatedMembers() throws IOException {
+			byte[] data = sampleData();
+			byte[] compressed = compress(CompressionCodec.GZIP, data);
+			ByteArrayOutputStream bout = new ByteArrayOutputStream();
+			for(int i = 0; i < 3; i++)
+				bout.write(compressed);
+			ByteArrayOutputStream expected = new ByteArrayOutputStream();
+			for(int i = 0; i < 3; i++)
+				expected.write(data);
+			for(int bufferSize: new int[] {
+				64, 512, 1 << 20
+			}) {
+				CompressionCodec codec = new GzipCodec(Deflater.DEFAULT_COMPRESSION, bufferSize, new CodecPool());
+				assertArrayEquals(expected.toByteArray(), decompress(codec, bout.toByteArray()));
+			}
+			assertArrayEquals(expected.toByteArray(), decompress(CompressionCodec.GZIP, bout.toByteArray()));
+		}
+		
+		@Test
+		void shouldRejectTrailingData() throws IOException {
+			byte[] compressed = compress(CompressionCodec.GZIP, sampleData());
+			byte[] trailing = Arrays.copyOf(compressed, compressed.length + 12);
+			CompressionCodec codec = new GzipCodec(Deflater.DEFAULT_COMPRESSION, 512, new CodecPool());
+			assertThrows(ZipException.class, () -> decompress(codec, trailing));
+		}
+		
+		@Test
+		void shouldNotCloseSourceOnBadHeader() throws IOException {
+			CodecPool pool = new CodecPool();
+			CompressionCodec codec = new GzipCodec(Deflater.DEFAULT_COMPRESSION, 512, pool);
+			boolean[] closed = new boolean[1];
+			InputStream source = new ByteArrayInputStream(new byte[] {
+				1, 2, 3, 4, 5, 6, 7, 8, 9, 10
+			}) {
+				
+				@Override
+				public void close() {
+					closed[0] = true;
+				}
+			};
+			assertThrows(ZipException.class, () -> codec.decompress(source));
+			assertFalse(closed[0]);
+			assertArrayEquals(sampleData(), decompress(codec, compress(codec, sampleData())));
+			assertEquals(1, pool.getInflatersCreated());
+		}
+		
+		@Test
+		void shouldRejectCorruptTrailer() throws IOException {
+			byte[] compressed = compress(CompressionCodec.GZIP, sampleData());
+			compressed[compressed.length - 5]++;
+			CompressionCodec codec = new GzipCodec(Deflater.DEFAULT_COMPRESSION, 512, new CodecPool());
+			assertThrows(ZipException.class, () -> decompress(codec, compressed));
+		}
+	}
+}
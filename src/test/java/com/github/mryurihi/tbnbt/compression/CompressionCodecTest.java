@@ -0,0 +1,151 @@
+/*
+MIT License
+
+Copyright (c) 2017 MrYurihi Redstone
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package com.github.mryurihi.tbnbt.compression;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.zip.Deflater;
+import java.util.zip.InflaterInputStream;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import com.github.mryurihi.tbnbt.stream.NBTInputStream;
+import com.github.mryurihi.tbnbt.stream.NBTOutputStream;
+import com.github.mryurihi.tbnbt.tag.NBTTagCompound;
+import com.github.mryurihi.tbnbt.tag.NBTTagIntArray;
+import com.github.mryurihi.tbnbt.tag.NBTTagString;
+
+class CompressionCodecTest {
+	
+	private static NBTTagCompound sampleTag() {
+		NBTTagCompound tag = new NBTTagCompound(new HashMap<>());
+		tag.put("name", new NBTTagString("sample"));
+		tag.put("ints", new NBTTagIntArray(new int[1000]));
+		return tag;
+	}
+	
+	private static byte[] write(CompressionCodec codec) throws IOException {
+		ByteArrayOutputStream bout = new ByteArrayOutputStream();
+		NBTOutputStream out = new NBTOutputStream(bout, codec);
+		out.writeTag(sampleTag(), "");
+		out.close();
+		return bout.toByteArray();
+	}
+	
+	@Nested
+	class testRoundTrip {
+		
+		@Test
+		void shouldRoundTripAllCodecs() throws IOException {
+			CompressionCodec[] codecs = {
+				CompressionCodec.GZIP, CompressionCodec.ZLIB, CompressionCodec.DEFLATE, CompressionCodec.NONE,
+				new GzipCodec(Deflater.BEST_SPEED, 512), new ZlibCodec(Deflater.BEST_COMPRESSION, 64)
+			};
+			for(CompressionCodec codec: codecs) {
+				byte[] data = write(codec);
+				NBTInputStream in = new NBTInputStream(new ByteArrayInputStream(data), codec);
+				assertEquals(sampleTag(), in.readTag());
+				in.close();
+			}
+		}
+		
+		@Test
+		void shouldWriteStandardZlib() throws IOException {
+			byte[] data = write(CompressionCodec.ZLIB);
+			NBTInputStream in = new NBTInputStream(new InflaterInputStream(new ByteArrayInputStream(data)), false);
+			assertEquals(sampleTag(), in.readTag());
+		}
+		
+		@Test
+		void shouldKeepBooleanConstructors() throws IOException {
+			ByteArrayOutputStream bout = new ByteArrayOutputStream();
+			NBTOutputStream out = new NBTOutputStream(bout, true);
+			out.writeTag(sampleTag(), "");
+			out.close();
+			assertArrayEquals(write(CompressionCodec.GZIP), bout.toByteArray());
+			NBTInputStream in = new NBTInputStream(new ByteArrayInputStream(write(CompressionCodec.NONE)), false);
+			assertEquals(sampleTag(), in.readTag());
+		}
+	}
+	
+	@Nested
+	class testAutoDetect {
+		
+		@Test
+		void shouldReadAllFormats() throws IOException {
+			CompressionCodec[] codecs = {
+				CompressionCodec.GZIP, CompressionCodec.ZLIB, CompressionCodec.NONE, new ZlibCodec(Deflater.BEST_SPEED, 512),
+				new ZlibCodec(Deflater.NO_COMPRESSION, 512)
+			};
+			for(CompressionCodec codec: codecs) {
+				NBTInputStream in = new NBTInputStream(new ByteArrayInputStream(write(codec)), CompressionCodec.AUTO);
+				assertEquals(sampleTag(), in.readTag());
+				in.close();
+			}
+		}
+		
+		@Test
+		void shouldDetectHeaders() {
+			AutoDetectCodec codec = new AutoDetectCodec();
+			assertTrue(codec.detect(0x1f, 0x8b) instanceof GzipCodec);
+			assertTrue(codec.detect(0x78, 0x9c) instanceof ZlibCodec);
+			assertTrue(codec.detect(0x78, 0x01) instanceof ZlibCodec);
+			assertSame(CompressionCodec.NONE, codec.detect(10, 0));
+			assertSame(CompressionCodec.NONE, codec.detect(-1, -1));
+			assertSame(CompressionCodec.NONE, codec.detect(0x08, 0x1d));
+		}
+		
+		@Test
+		void shouldReadStringLookingLikeZlib() throws IOException {
+			char[] name = new char[0x1d00];
+			Arrays.fill(name, 'a');
+			ByteArrayOutputStream bout = new ByteArrayOutputStream();
+			NBTOutputStream out = new NBTOutputStream(bout, CompressionCodec.NONE);
+			out.writeTag(new NBTTagString("value"), new String(name));
+			out.close();
+			byte[] bytes = bout.toByteArray();
+			assertEquals(0, ((bytes[0] << 8) | bytes[1]) % 31);
+			NBTInputStream in = new NBTInputStream(new ByteArrayInputStream(bytes), CompressionCodec.AUTO);
+			assertEquals(new NBTTagString("value"), in.readTag());
+			in.close();
+		}
+	}
+	
+	@Nested
+	class testArguments {
+		
+		@Test
+		void shouldRejectIllegalArguments() {
+			assertThrows(IllegalArgumentException.class, () -> new GzipCodec(10, 512));
+			assertThrows(IllegalArgumentException.class, () -> new ZlibCodec(-2, 512));
+			assertThrows(IllegalArgumentException.class, () -> new DeflateCodec(1, 0));
+		}
+	}
+}
@@ -0,0 +1,154 @@
+/*
+MIT License
+
+Copyright (c) 2017 MrYurihi Redstone
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package com.github.mryurihi.tbnbt.compression;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import com.github.mryurihi.tbnbt.stream.NBTInputStream;
+import com.github.mryurihi.tbnbt.stream.NBTOutputStream;
+import com.github.mryurihi.tbnbt.tag.NBTTagCompound;
+import com.github.mryurihi.tbnbt.tag.NBTTagIntArray;
+
+class ParallelGzipCodecTest {
+	
+	private static byte[] sampleData(int length) {
+		byte[] data = new byte[length];
+		Random random = new Random(1);
+		for(int i = 0; i < data.length; i++)
+			data[i] = (byte) (random.nextInt(8) + 'a');
+		return data;
+	}
+	
+	private static byte[] gunzip(byte[] data) throws IOException {
+		ByteArrayOutputStream bout = new ByteArrayOutputStream();
+		InputStream in = new GZIPInputStream(new ByteArrayInputStream(data));
+		byte[] buffer = new byte[4096];
+		int read;
+		while((read = in.read(buffer)) != -1)
+			bout.write(buffer, 0, read);
+		return bout.toByteArray();
+	}
+	
+	@Nested
+	class testCompress {
+		
+		@Test
+		void shouldWriteSingleGzipMember() throws IOException {
+			ExecutorService executor = Executors.newFixedThreadPool(4);
+			try {
+				CompressionCodec codec = new ParallelGzipCodec(Deflater.DEFAULT_COMPRESSION, 4096, executor);
+				for(int length: new int[] {
+					0, 1, 4096, 4097, 100000
+				}) {
+					byte[] data = sampleData(length);
+					ByteArrayOutputStream bout = new ByteArrayOutputStream();
+					OutputStream out = codec.compress(bout);
+					out.write(data, 0, length / 2);
+					for(int i = length / 2; i < length; i++)
+						out.write(data[i]);
+					out.close();
+					assertArrayEquals(data, gunzip(bout.toByteArray()));
+				}
+			} finally {
+				executor.shutdown();
+			}
+		}
+		
+		@Test
+		void shouldCompressBlocksOnSeveralThreads() throws IOException, InterruptedException {
+			Set<Thread> workers = ConcurrentHashMap.newKeySet();
+			CyclicBarrier together = new CyclicBarrier(2);
+			AtomicInteger started = new AtomicInteger();
+			AtomicReference<Throwable> failure = new AtomicReference<>();
+			ExecutorService executor = new ThreadPoolExecutor(4, 4, 0, TimeUnit.SECONDS, new LinkedBlockingQueue<>()) {
+				
+				@Override
+				protected void beforeExecute(Thread thread, Runnable task) {
+					workers.add(thread);
+					// the first two blocks only go on once both are being compressed
+					if(started.incrementAndGet() <= 2) {
+						try {
+							together.await(10, TimeUnit.SECONDS);
+						} catch(Exception e) {
+							failure.set(e);
+						}
+					}
+				}
+			};
+			try {
+				CodecPool pool = new CodecPool();
+				CompressionCodec codec = new ParallelGzipCodec(Deflater.DEFAULT_COMPRESSION, 4096, executor, pool);
+				byte[] data = sampleData(100000);
+				ByteArrayOutputStream bout = new ByteArrayOutputStream();
+				OutputStream out = codec.compress(bout);
+				out.write(data);
+				out.close();
+				assertArrayEquals(data, gunzip(bout.toByteArray()));
+				assertNull(failure.get());
+				assertTrue(workers.size() >= 2);
+				assertTrue(pool.getDeflatersReused() > 0);
+				assertTrue(pool.getDeflatersCreated() <= 4);
+			} finally {
+				executor.shutdown();
+			}
+		}
+		
+		@Test
+		void shouldBeReadableByNBTInputStream() throws IOException {
+			NBTTagCompound tag = new NBTTagCompound(new HashMap<>());
+			int[] ints = new int[50000];
+			for(int i = 0; i < ints.length; i++)
+				ints[i] = i % 100;
+			tag.put("ints", new NBTTagIntArray(ints));
+			ByteArrayOutputStream bout = new ByteArrayOutputStream();
+			NBTOutputStream out = new NBTOutputStream(bout, new ParallelGzipCodec());
+			out.writeTag(tag, "");
+			out.close();
+			assertEquals(tag, new NBTInputStream(new ByteArrayInputStream(bout.toByteArray())).readTag());
+		}
+	}
+}
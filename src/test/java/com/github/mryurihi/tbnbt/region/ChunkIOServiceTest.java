@@ -0,0 +1,180 @@
+/*
+MIT License
+
+Copyright (c) 2017 MrYurihi Redstone
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package com.github.mryurihi.tbnbt.region;
+
+import static com.github.mryurihi.tbnbt.TestFixtures.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import com.github.mryurihi.tbnbt.tag.NBTTagCompound;
+import com.github.mryurihi.tbnbt.tag.NBTTagInt;
+
+class ChunkIOServiceTest {
+	
+	@Nested
+	class testWrite {
+		
+		@Test
+		void shouldWriteAndReadChunks() throws Exception {
+			Path directory = tempDirectory();
+			try(ChunkIOService service = new ChunkIOService(directory, 2)) {
+				List<CompletableFuture<Void>> writes = new ArrayList<>();
+				for(int x = -40; x < 40; x += 7)
+					writes.add(service.writeChunk(x, -x, record(x)));
+				for(CompletableFuture<Void> write: writes)
+					write.get();
+				assertNull(service.readChunk(1000, 1000).get());
+			}
+			try(ChunkIOService service = new ChunkIOService(directory, 2)) {
+				for(int x = -40; x < 40; x += 7)
+					assertEquals(record(x), service.readChunk(x, -x).get());
+			}
+			assertTrue(Files.exists(directory.resolve("r.-2.1.mca")));
+			delete(directory);
+		}
+		
+		@Test
+		void shouldCoalesceWrites() throws Exception {
+			Path directory = tempDirectory();
+			try(ChunkIOService service = new ChunkIOService(directory, 1)) {
+				for(int i = 0; i < 100; i++) {
+					service.writeChunk(5, 5, record(i));
+					assertEquals(record(i), service.readChunk(5, 5).get());
+				}
+				service.flush().get();
+				assertEquals(record(99), service.readChunk(5, 5).get());
+			}
+			try(RegionFile region = new RegionFile(directory.resolve("r.0.0.mca"))) {
+				assertEquals(record(99), region.readChunk(5, 5));
+			}
+			delete(directory);
+		}
+		
+		@Test
+		void shouldWriteQueuedChunksOnClose() throws Exception {
+			Path directory = tempDirectory();
+			ChunkIOService service = new ChunkIOService(directory, 1);
+			CompletableFuture<Void> write = service.writeChunk(0, 0, record(1));
+			service.close();
+			assertTrue(write.isDone());
+			assertThrows(IllegalStateException.class, () -> service.writeChunk(0, 0, record(2)));
+			try(RegionFile region = new RegionFile(directory.resolve("r.0.0.mca"))) {
+				assertEquals(record(1), region.readChunk(0, 0));
+			}
+			delete(directory);
+		}
+		
+		@Test
+		void shouldReadCopiesOfQueuedChunks() throws Exception {
+			Path directory = tempDirectory();
+			try(ChunkIOService service = new ChunkIOService(directory, 1)) {
+				NBTTagCompound chunk = record(1);
+				CompletableFuture<Void> write = service.writeChunk(0, 0, chunk);
+				NBTTagCompound read = service.readChunk(0, 0).get();
+				assertNotSame(chunk, read);
+				read.put("value", new NBTTagInt(2));
+				write.get();
+				assertEquals(record(1), service.readChunk(0, 0).get());
+			}
+			delete(directory);
+		}
+	}
+	
+	@Nested
+	class testRegions {
+		
+		@Test
+		void shouldNotCreateMissingRegions() throws Exception {
+			Path directory = tempDirectory();
+			try(ChunkIOService service = new ChunkIOService(directory, 2)) {
+				for(int x = -64; x < 64; x += 16)
+					assertNull(service.readChunk(x, x).get());
+				assertEquals(0, service.getOpenRegions());
+			}
+			assertEquals(0, directory.toFile().list().length);
+			delete(directory);
+		}
+		
+		@Test
+		void shouldLimitOpenRegions() throws Exception {
+			Path directory = tempDirectory();
+			try(ChunkIOService service = new ChunkIOService(directory, 2, 2)) {
+				for(int round = 0; round < 2; round++) {
+					for(int region = 0; region < 6; region++) {
+						service.writeChunk(region * 32, 0, record(region)).get();
+						assertTrue(service.getOpenRegions() <= 2);
+					}
+				}
+				for(int region = 0; region < 6; region++)
+					assertEquals(record(region), service.readChunk(region * 32, 0).get());
+				assertTrue(service.getOpenRegions() <= 2);
+			}
+			delete(directory);
+		}
+		
+		@Test
+		void shouldFailReadsRacingClose() throws Exception {
+			Path directory = tempDirectory();
+			for(int attempt = 0; attempt < 20; attempt++) {
+				ChunkIOService service = new ChunkIOService(directory, 2);
+				service.writeChunk(0, 0, record(1)).get();
+				List<CompletableFuture<NBTTagCompound>> reads = new ArrayList<>();
+				AtomicReference<Throwable> failure = new AtomicReference<>();
+				Thread reader = new Thread(() -> {
+					try {
+						while(true)
+							reads.add(service.readChunk(0, 0));
+					} catch(IllegalStateException e) {
+						// the service has been closed
+					} catch(Throwable e) {
+						failure.set(e);
+					}
+				});
+				reader.start();
+				Thread.sleep(5);
+				service.close();
+				reader.join();
+				assertNull(failure.get());
+				for(CompletableFuture<NBTTagCompound> read: reads) {
+					try {
+						assertEquals(record(1), read.get());
+					} catch(ExecutionException e) {
+						assertTrue(e.getCause() instanceof IllegalStateException);
+					}
+				}
+			}
+			delete(directory);
+		}
+	}
+}
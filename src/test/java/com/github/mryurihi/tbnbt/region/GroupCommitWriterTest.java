@@ -0,0 +1,137 @@
+/*
+MIT License
+
+Copyright (c) 2017 MrYurihi Redstone
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package com.github.mryurihi.tbnbt.region;
+
+import static com.github.mryurihi.tbnbt.TestFixtures.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import com.github.mryurihi.tbnbt.tag.NBTTag;
+
+class GroupCommitWriterTest {
+	
+	@Nested
+	class testAppend {
+		
+		@Test
+		void shouldCommitConcurrentAppends() throws Exception {
+			try(NBTRecordLog log = new NBTRecordLog(tempFile(".nbtlog"))) {
+				List<CompletableFuture<Long>> futures = new ArrayList<>();
+				try(GroupCommitWriter writer = new GroupCommitWriter(log, 16, 1, TimeUnit.MILLISECONDS)) {
+					List<Thread> threads = new ArrayList<>();
+					for(int t = 0; t < 4; t++) {
+						int thread = t;
+						threads.add(new Thread(() -> {
+							for(int i = 0; i < 100; i++) {
+								try {
+									CompletableFuture<Long> future = writer.append(record(thread * 100 + i));
+									synchronized(futures) {
+										futures.add(future);
+									}
+								} catch(IOException e) {
+									throw new RuntimeException(e);
+								}
+							}
+						}));
+					}
+					for(Thread thread: threads)
+						thread.start();
+					for(Thread thread: threads)
+						thread.join();
+				}
+				Set<Integer> values = new HashSet<>();
+				for(CompletableFuture<Long> future: futures) {
+					assertTrue(future.isDone());
+					NBTTag record = log.read(future.get());
+					values.add(record.getAsTagCompound().get("value").getAsTagInt().getValue());
+				}
+				assertEquals(400, log.size());
+				assertEquals(400, values.size());
+			}
+		}
+		
+		@Test
+		void shouldCommitFullBatchWithoutWaiting() throws Exception {
+			try(
+				NBTRecordLog log = new NBTRecordLog(tempFile(".nbtlog"));
+				GroupCommitWriter writer = new GroupCommitWriter(log, 4, 1, TimeUnit.HOURS)
+			) {
+				List<CompletableFuture<Long>> futures = new ArrayList<>();
+				for(int i = 0; i < 4; i++)
+					futures.add(writer.append(record(i)));
+				for(int i = 0; i < 4; i++)
+					assertEquals(i, (long) futures.get(i).get(10, TimeUnit.SECONDS));
+				CompletableFuture<Long> waiting = writer.append(record(4));
+				assertThrows(TimeoutException.class, () -> waiting.get(50, TimeUnit.MILLISECONDS));
+				writer.close();
+				assertEquals(4, (long) waiting.get());
+				assertEquals(record(4), log.read(4));
+			}
+		}
+		
+		@Test
+		void shouldStopAfterSyncFailure() throws IOException, InterruptedException {
+			try(NBTRecordLog log = new NBTRecordLog(tempFile(".nbtlog")) {
+				
+				@Override
+				public void sync() throws IOException {
+					throw new IOException("Disk failure");
+				}
+			}) {
+				GroupCommitWriter writer = new GroupCommitWriter(log);
+				CompletableFuture<Long> future = writer.append(record(0));
+				ExecutionException e = assertThrows(ExecutionException.class, () -> future.get());
+				assertTrue(e.getCause().getMessage().startsWith("Records 0 to 0 were written"));
+				assertEquals(1, log.size());
+				writer.close();
+				IllegalStateException rejected = assertThrows(IllegalStateException.class, () -> writer.append(record(1)));
+				assertEquals("Disk failure", rejected.getCause().getCause().getMessage());
+			}
+		}
+		
+		@Test
+		void shouldFailAfterLogIsClosed() throws IOException, InterruptedException {
+			NBTRecordLog log = new NBTRecordLog(tempFile(".nbtlog"));
+			try(GroupCommitWriter writer = new GroupCommitWriter(log)) {
+				log.close();
+				CompletableFuture<Long> future = writer.append(record(0));
+				assertThrows(ExecutionException.class, () -> future.get());
+				writer.close();
+				assertThrows(IllegalStateException.class, () -> writer.append(record(1)));
+			}
+		}
+	}
+}
@@ -0,0 +1,287 @@
+/*
+MIT License
+
+Copyright (c) 2017 MrYurihi Redstone
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package com.github.mryurihi.tbnbt.region;
+
+import static com.github.mryurihi.tbnbt.TestFixtures.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import com.github.mryurihi.tbnbt.adapter.AdapterRegistry;
+import com.github.mryurihi.tbnbt.adapter.NBTParseException;
+import com.github.mryurihi.tbnbt.adapter.TypeWrapper;
+import com.github.mryurihi.tbnbt.exceptions.MalformedNBTException;
+
+class NBTRecordLogTest {
+	
+	static class Event {
+		
+		int value;
+	}
+	
+	@Nested
+	class testAppend {
+		
+		@Test
+		void shouldReadRecordsByNumber() throws IOException {
+			Path file = tempFile(".nbtlog");
+			try(NBTRecordLog log = new NBTRecordLog(file, 4, null)) {
+				for(int i = 0; i < 50; i++)
+					assertEquals(i, log.append(record(i), (byte) (i % 3 + 1)));
+				assertEquals(50, log.size());
+				assertEquals(record(13), log.read(13));
+			}
+			try(NBTRecordLog log = new NBTRecordLog(file, 4, null)) {
+				assertEquals(50, log.size());
+				for(int i = 49; i >= 0; i--)
+					assertEquals(record(i), log.read(i));
+				assertThrows(IndexOutOfBoundsException.class, () -> log.read(50));
+				log.append(record(50));
+				assertEquals(record(50), log.read(50));
+			}
+		}
+		
+		@Test
+		void shouldAppendObjects() throws IOException, NBTParseException {
+			try(NBTRecordLog log = new NBTRecordLog(tempFile(".nbtlog"))) {
+				Event event = new Event();
+				event.value = 5;
+				log.append(TypeWrapper.of(Event.class), event, NBTRecordLog.COMPRESSION_NONE, new AdapterRegistry.Builder().create());
+				log.append(TypeWrapper.of(Event.class), event, NBTRecordLog.COMPRESSION_GZIP, new AdapterRegistry.Builder().create());
+				assertEquals(5, log.read(1).getAsTagCompound().get("value").getAsTagInt().getValue());
+			}
+		}
+		
+		@Test
+		void shouldRejectOtherFiles() throws IOException {
+			Path file = tempFile(".nbtlog");
+			Files.write(file, new byte[] {
+				1, 2, 3, 4, 5, 6, 7, 8
+			});
+			assertThrows(MalformedNBTException.class, () -> new NBTRecordLog(file));
+		}
+	}
+	
+	@Nested
+	class testClose {
+		
+		@Test
+		void shouldFailReadsRacingClose() throws IOException, InterruptedException {
+			NBTRecordLog log = new NBTRecordLog(tempFile(".nbtlog"));
+			for(int i = 0; i < 100; i++)
+				log.append(record(i));
+			AtomicReference<Throwable> failure = new AtomicReference<>();
+			CountDownLatch started = new CountDownLatch(4);
+			Thread[] readers = new Thread[4];
+			for(int i = 0; i < readers.length; i++) {
+				readers[i] = new Thread(() -> {
+					started.countDown();
+					try {
+						for(int record = 0;; record = (record + 1) % 100)
+							assertEquals(record(record), log.read(record));
+					} catch(IOException e) {
+						// expected once the log is closed
+					} catch(Throwable e) {
+						failure.set(e);
+					}
+				});
+				readers[i].start();
+			}
+			started.await();
+			log.close();
+			for(Thread reader: readers)
+				reader.join(10000);
+			for(Thread reader: readers)
+				assertFalse(reader.isAlive());
+			assertNull(failure.get());
+		}
+	}
+	
+	@Nested
+	class testRecovery {
+		
+		@Test
+		void shouldCutOffPartialRecord() throws IOException {
+			Path file = tempFile(".nbtlog");
+			try(NBTRecordLog log = new NBTRecordLog(file)) {
+				log.append(record(0));
+				log.append(record(1));
+			}
+			long size = Files.size(file);
+			try(FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+				channel.truncate(size - 3);
+			}
+			try(NBTRecordLog log = new NBTRecordLog(file)) {
+				assertEquals(1, log.size());
+				assertEquals(record(0), log.read(0));
+				log.append(record(2));
+				assertEquals(record(2), log.read(1));
+			}
+		}
+		
+		@Test
+		void shouldCutOffCorruptedTail() throws IOException {
+			Path file = tempFile(".nbtlog");
+			try(NBTRecordLog log = new NBTRecordLog(file)) {
+				log.append(record(0), NBTRecordLog.COMPRESSION_NONE);
+				log.append(record(1), NBTRecordLog.COMPRESSION_NONE);
+			}
+			long size = Files.size(file);
+			try(FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+				channel.write(ByteBuffer.wrap(new byte[] {
+					42, 42, 42
+				}), size - 5);
+			}
+			try(NBTRecordLog log = new NBTRecordLog(file)) {
+				assertEquals(1, log.size());
+				assertEquals(record(0), log.read(0));
+				log.append(record(2));
+				assertEquals(record(2), log.read(1));
+			}
+			assertTrue(Files.size(file) < size + 100);
+		}
+		
+		@Test
+		void shouldDetectCorruption() throws IOException {
+			Path file = tempFile(".nbtlog");
+			try(NBTRecordLog log = new NBTRecordLog(file)) {
+				log.append(record(0), NBTRecordLog.COMPRESSION_NONE);
+				log.append(record(1), NBTRecordLog.COMPRESSION_NONE);
+			}
+			try(FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+				channel.write(ByteBuffer.wrap(new byte[] {
+					42
+				}), 20);
+			}
+			try(NBTRecordLog log = new NBTRecordLog(file)) {
+				assertEquals(2, log.size());
+				assertThrows(MalformedNBTException.class, () -> log.read(0));
+				assertEquals(record(1), log.read(1));
+			}
+		}
+		
+		@Test
+		void shouldRejectLengthPastEnd() throws IOException {
+			Path file = tempFile(".nbtlog");
+			try(NBTRecordLog log = new NBTRecordLog(file)) {
+				for(int i = 0; i < 3; i++)
+					log.append(record(i), NBTRecordLog.COMPRESSION_NONE);
+				try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+					ByteBuffer length = ByteBuffer.allocate(4);
+					channel.read(length, 8);
+					long second = 16 + length.getInt(0);
+					length.putInt(0, Integer.MAX_VALUE - 8);
+					length.clear();
+					channel.write(length, second);
+				}
+				assertEquals(record(0), log.read(0));
+				assertThrows(MalformedNBTException.class, () -> log.read(1));
+				NBTRecordLog.Cursor cursor = log.cursor(0);
+				cursor.next();
+				assertThrows(MalformedNBTException.class, () -> cursor.next());
+			}
+		}
+	}
+	
+	@Nested
+	class testCursor {
+		
+		@Test
+		void shouldReadInOrder() throws IOException {
+			try(NBTRecordLog log = new NBTRecordLog(tempFile(".nbtlog"), 8, null)) {
+				for(int i = 0; i < 20; i++)
+					log.append(record(i));
+				NBTRecordLog.Cursor cursor = log.cursor(5);
+				for(int i = 5; i < 20; i++)
+					assertEquals(record(i), cursor.next());
+				assertFalse(cursor.hasNext());
+				assertThrows(NoSuchElementException.class, () -> cursor.next());
+				log.append(record(20));
+				assertTrue(cursor.hasNext());
+				assertEquals(record(20), cursor.next());
+			}
+		}
+		
+		@Test
+		void shouldStartAtEndDuringAppends() throws IOException, InterruptedException {
+			try(NBTRecordLog log = new NBTRecordLog(tempFile(".nbtlog"), 4, null)) {
+				AtomicReference<Throwable> failure = new AtomicReference<>();
+				Thread writer = new Thread(() -> {
+					try {
+						for(int i = 0; i < 2000; i++)
+							log.append(record(i), NBTRecordLog.COMPRESSION_NONE);
+					} catch(Throwable e) {
+						failure.set(e);
+					}
+				});
+				writer.start();
+				while(writer.isAlive()) {
+					long record = log.size();
+					NBTRecordLog.Cursor cursor = log.cursor(record);
+					while(!cursor.hasNext() && writer.isAlive())
+						Thread.yield();
+					if(cursor.hasNext()) assertEquals(record((int) record), cursor.next());
+				}
+				writer.join();
+				assertNull(failure.get());
+			}
+		}
+		
+		@Test
+		void shouldFollowConcurrentWriter() throws IOException, InterruptedException {
+			try(NBTRecordLog log = new NBTRecordLog(tempFile(".nbtlog"))) {
+				AtomicReference<Throwable> failure = new AtomicReference<>();
+				Thread writer = new Thread(() -> {
+					try {
+						for(int i = 0; i < 500; i++)
+							log.append(record(i));
+					} catch(Throwable e) {
+						failure.set(e);
+					}
+				});
+				writer.start();
+				NBTRecordLog.Cursor cursor = log.cursor(0);
+				int read = 0;
+				while(read < 500) {
+					if(cursor.hasNext()) assertEquals(record(read++), cursor.next());
+					else if(!writer.isAlive() && !cursor.hasNext()) break;
+				}
+				writer.join();
+				assertNull(failure.get());
+				assertEquals(500, read);
+			}
+		}
+	}
+}
@@ -0,0 +1,239 @@
+/*
+MIT License
+
+Copyright (c) 2017 MrYurihi Redstone
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package com.github.mryurihi.tbnbt.region;
+
+import static com.github.mryurihi.tbnbt.TestFixtures.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import com.github.mryurihi.tbnbt.stream.NBTInputStream;
+import com.github.mryurihi.tbnbt.tag.NBTTagByteArray;
+import com.github.mryurihi.tbnbt.tag.NBTTagCompound;
+import com.github.mryurihi.tbnbt.tag.NBTTagInt;
+
+class RegionFileTest {
+	
+	private static NBTTagCompound sampleChunk(int x, int size) {
+		NBTTagCompound chunk = new NBTTagCompound(new HashMap<>());
+		chunk.put("xPos", new NBTTagInt(x));
+		byte[] data = new byte[size];
+		new Random(x).nextBytes(data);
+		chunk.put("data", new NBTTagByteArray(data));
+		return chunk;
+	}
+	
+	@Nested
+	class testReadWrite {
+		
+		@Test
+		void shouldRoundTripChunks() throws IOException {
+			Path file = tempFile(".mca");
+			try(RegionFile region = new RegionFile(file)) {
+				assertFalse(region.hasChunk(3, 4));
+				assertNull(region.readChunk(3, 4));
+				region.writeChunk(3, 4, sampleChunk(3, 100));
+				region.writeChunk(-1, 31, sampleChunk(-1, 10000), RegionFile.COMPRESSION_GZIP);
+				region.writeChunk(0, 0, sampleChunk(0, 10), RegionFile.COMPRESSION_NONE);
+			}
+			try(RegionFile region = new RegionFile(file)) {
+				assertEquals(sampleChunk(3, 100), region.readChunk(3, 4));
+				assertEquals(sampleChunk(-1, 10000), region.readChunk(31, 31));
+				try(NBTInputStream in = region.openChunk(0, 0)) {
+					assertEquals(sampleChunk(0, 10), in.readTag());
+				}
+				assertTrue(region.getTimestamp(3, 4) > 0);
+			}
+			assertEquals(0, Files.size(file) % RegionFile.SECTOR_SIZE);
+		}
+		
+		@Test
+		void shouldReuseSectors() throws IOException {
+			Path file = tempFile(".mca");
+			try(RegionFile region = new RegionFile(file)) {
+				region.writeChunk(0, 0, sampleChunk(0, 20000));
+				region.writeChunk(1, 0, sampleChunk(1, 100));
+				long size = Files.size(file);
+				region.writeChunk(0, 0, sampleChunk(0, 100));
+				region.writeChunk(2, 0, sampleChunk(2, 10000));
+				assertEquals(size, Files.size(file));
+				region.deleteChunk(2, 0);
+				assertFalse(region.hasChunk(2, 0));
+				region.writeChunk(3, 0, sampleChunk(3, 10000));
+				assertEquals(size, Files.size(file));
+				assertEquals(sampleChunk(0, 100), region.readChunk(0, 0));
+				assertEquals(sampleChunk(1, 100), region.readChunk(1, 0));
+				assertEquals(sampleChunk(3, 10000), region.readChunk(3, 0));
+			}
+		}
+		
+		@Test
+		void shouldRejectOversizedChunk() throws IOException {
+			try(RegionFile region = new RegionFile(tempFile(".mca"))) {
+				assertThrows(IOException.class, () -> region.writeChunk(0, 0, sampleChunk(0, 2000000), RegionFile.COMPRESSION_NONE));
+				assertFalse(region.hasChunk(0, 0));
+			}
+		}
+	}
+	
+	@Nested
+	class testCompact {
+		
+		@Test
+		void shouldRemoveUnusedSectors() throws IOException {
+			Path file = tempFile(".mca");
+			try(RegionFile region = new RegionFile(file)) {
+				for(int i = 0; i < 10; i++)
+					region.writeChunk(i, i, sampleChunk(i, 20000));
+				for(int i = 0; i < 10; i += 2)
+					region.writeChunk(i, i, sampleChunk(i, 100));
+				region.deleteChunk(9, 9);
+				int timestamp = region.getTimestamp(1, 1);
+				assertTrue(region.getUnusedSectors() > 0);
+				long size = Files.size(file);
+				region.compact();
+				assertEquals(0, region.getUnusedSectors());
+				assertTrue(Files.size(file) < size);
+				for(int i = 0; i < 9; i++)
+					assertEquals(sampleChunk(i, i % 2 == 0? 100: 20000), region.readChunk(i, i));
+				assertFalse(region.hasChunk(9, 9));
+				assertEquals(timestamp, region.getTimestamp(1, 1));
+				region.writeChunk(9, 9, sampleChunk(9, 100));
+			}
+			RegionFile.compact(file);
+			try(RegionFile region = new RegionFile(file)) {
+				assertEquals(0, region.getUnusedSectors());
+				assertEquals(sampleChunk(9, 100), region.readChunk(9, 9));
+			}
+		}
+		
+		@Test
+		void shouldServeReadsAndWritesDuringCompaction() throws Exception {
+			Path file = tempFile(".mca");
+			try(RegionFile region = new RegionFile(file)) {
+				for(int i = 0; i < 64; i++)
+					region.writeChunk(i, i / 32, sampleChunk(i, 20000));
+				for(int i = 0; i < 64; i += 2)
+					region.writeChunk(i, i / 32, sampleChunk(i, 100));
+				AtomicReference<Throwable> failure = new AtomicReference<>();
+				AtomicInteger passesDuringCompaction = new AtomicInteger();
+				AtomicInteger compacting = new AtomicInteger();
+				Thread[] threads = new Thread[3];
+				for(int t = 0; t < 2; t++) {
+					threads[t] = new Thread(() -> {
+						try {
+							while(compacting.get() < 2) {
+								boolean started = compacting.get() == 1;
+								for(int i = 0; i < 64; i++)
+									assertEquals(sampleChunk(i, i % 2 == 0? 100: 20000), region.readChunk(i, i / 32));
+								if(started && compacting.get() == 1) passesDuringCompaction.incrementAndGet();
+							}
+						} catch(Throwable e) {
+							failure.set(e);
+						}
+					});
+				}
+				threads[2] = new Thread(() -> {
+					try {
+						for(int i = 0; compacting.get() < 2; i = (i + 1) % 32)
+							region.writeChunk(i, 2, sampleChunk(i, 1000 + i * 500));
+					} catch(Throwable e) {
+						failure.set(e);
+					}
+				});
+				for(Thread thread: threads)
+					thread.start();
+				compacting.set(1);
+				region.compact();
+				compacting.set(2);
+				for(Thread thread: threads)
+					thread.join();
+				assertNull(failure.get());
+				assertTrue(passesDuringCompaction.get() > 0);
+				for(int i = 0; i < 64; i++)
+					assertEquals(sampleChunk(i, i % 2 == 0? 100: 20000), region.readChunk(i, i / 32));
+			}
+			try(RegionFile region = new RegionFile(file)) {
+				for(int i = 0; i < 64; i++)
+					assertEquals(sampleChunk(i, i % 2 == 0? 100: 20000), region.readChunk(i, i / 32));
+			}
+		}
+		
+		@Test
+		void shouldWriteMortonOrder() throws IOException {
+			Path file = tempFile(".mca");
+			try(RegionFile region = new RegionFile(file)) {
+				region.writeChunk(2, 0, sampleChunk(0, 10));
+				region.writeChunk(0, 1, sampleChunk(1, 10));
+				region.writeChunk(1, 0, sampleChunk(2, 10));
+				region.compact();
+			}
+			ByteBuffer header = ByteBuffer.wrap(Files.readAllBytes(file));
+			assertEquals(2, header.getInt(1 * 4) >>> 8);
+			assertEquals(3, header.getInt(32 * 4) >>> 8);
+			assertEquals(4, header.getInt(2 * 4) >>> 8);
+		}
+	}
+	
+	@Nested
+	class testConcurrency {
+		
+		@Test
+		void shouldReadAndWriteFromManyThreads() throws Exception {
+			Path file = tempFile(".mca");
+			try(RegionFile region = new RegionFile(file)) {
+				Thread[] threads = new Thread[8];
+				Throwable[] failure = new Throwable[1];
+				for(int t = 0; t < threads.length; t++) {
+					int z = t;
+					threads[t] = new Thread(() -> {
+						try {
+							for(int i = 0; i < 20; i++) {
+								NBTTagCompound chunk = sampleChunk(i, 1000 + i * 500);
+								region.writeChunk(i, z, chunk);
+								assertEquals(chunk, region.readChunk(i, z));
+							}
+						} catch(Throwable e) {
+							failure[0] = e;
+						}
+					});
+					threads[t].start();
+				}
+				for(Thread thread: threads)
+					thread.join();
+				assertNull(failure[0]);
+			}
+		}
+	}
+}
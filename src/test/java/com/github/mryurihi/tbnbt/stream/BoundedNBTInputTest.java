@@ -0,0 +1,136 @@
+/*
+MIT License
+
+Copyright (c) 2017 MrYurihi Redstone
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package com.github.mryurihi.tbnbt.stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.util.HashMap;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import com.github.mryurihi.tbnbt.TagType;
+import com.github.mryurihi.tbnbt.exceptions.NBTLimitExceededException;
+import com.github.mryurihi.tbnbt.tag.NBTTag;
+import com.github.mryurihi.tbnbt.tag.NBTTagCompound;
+import com.github.mryurihi.tbnbt.tag.NBTTagInt;
+import com.github.mryurihi.tbnbt.tag.NBTTagIntArray;
+import com.github.mryurihi.tbnbt.tag.NBTTagList;
+import com.github.mryurihi.tbnbt.tag.NBTTagString;
+
+class BoundedNBTInputTest {
+	
+	private static NBTTagCompound sampleTag() {
+		NBTTagCompound tag = new NBTTagCompound(new HashMap<>());
+		tag.put("int", new NBTTagInt(1));
+		tag.put("name", new NBTTagString("sample"));
+		tag.put("ints", new NBTTagIntArray(new int[] {
+			1, 2, 3
+		}));
+		return tag;
+	}
+	
+	private static NBTBufferInput nested(int depth) throws IOException {
+		NBTBufferOutput out = new NBTBufferOutput();
+		out.writeByte(TagType.LIST.getId());
+		out.writeUTF("");
+		for(int i = 0; i < depth - 1; i++) {
+			out.writeByte(TagType.LIST.getId());
+			out.writeInt(1);
+		}
+		out.writeByte(TagType.END.getId());
+		out.writeInt(0);
+		return new NBTBufferInput(out.getBuffer());
+	}
+	
+	@Nested
+	class testLimits {
+		
+		@Test
+		void shouldReadWithinLimits() throws IOException {
+			NBTBufferOutput out = new NBTBufferOutput();
+			out.writeTag(sampleTag(), "root");
+			BoundedNBTInput in = new BoundedNBTInput(new NBTBufferInput(out.getBuffer()), out.size(), 1, 3);
+			assertEquals(sampleTag(), in.readTag());
+			assertEquals(out.size(), in.getBytesRead());
+			assertEquals(0, in.getDepth());
+		}
+		
+		@Test
+		void shouldLimitBytes() throws IOException {
+			NBTBufferOutput out = new NBTBufferOutput();
+			out.writeTag(sampleTag(), "root");
+			BoundedNBTInput in = new BoundedNBTInput(new NBTBufferInput(out.getBuffer()), out.size() - 1);
+			assertThrows(NBTLimitExceededException.class, () -> in.readTag());
+		}
+		
+		@Test
+		void shouldRejectLengthBeforeAllocating() throws IOException {
+			NBTBufferOutput out = new NBTBufferOutput();
+			out.writeByte(TagType.INT_ARRAY.getId());
+			out.writeInt(Integer.MAX_VALUE);
+			BoundedNBTInput in = new BoundedNBTInput(new NBTBufferInput(out.getBuffer()), 1 << 20);
+			assertThrows(NBTLimitExceededException.class, () -> in.readTag(false));
+			assertEquals(5, in.getBytesRead());
+		}
+		
+		@Test
+		void shouldLimitArrayElements() throws IOException {
+			NBTTagList list = new NBTTagList(TagType.INT);
+			for(int i = 0; i < 4; i++)
+				list.add(new NBTTagInt(i));
+			NBTBufferOutput out = new NBTBufferOutput();
+			out.writeUnnamedTag(list);
+			BoundedNBTInput in = new BoundedNBTInput(new NBTBufferInput(out.getBuffer()), 1 << 20, 8, 3);
+			assertThrows(NBTLimitExceededException.class, () -> in.readTag(false));
+		}
+		
+		@Test
+		void shouldLimitDepth() throws IOException {
+			assertThrows(
+				NBTLimitExceededException.class,
+				() -> new BoundedNBTInput(nested(100000), 1 << 20).readTag()
+			);
+			NBTTag tag = new BoundedNBTInput(nested(BoundedNBTInput.DEFAULT_MAX_DEPTH), 1 << 20).readTag();
+			assertEquals(TagType.LIST, tag.getTagType());
+		}
+		
+		@Test
+		void shouldLimitSkipping() throws IOException {
+			BoundedNBTInput in = new BoundedNBTInput(nested(100000), 1 << 20);
+			in.readByte();
+			in.readUTF();
+			assertThrows(NBTLimitExceededException.class, () -> NBTTag.skipPayload(TagType.LIST, in));
+		}
+		
+		@Test
+		void shouldLimitReader() throws IOException {
+			NBTReader reader = new NBTReader(new BoundedNBTInput(nested(4), 1 << 20, 2, 8));
+			reader.beginList();
+			reader.beginList();
+			assertThrows(NBTLimitExceededException.class, () -> reader.beginList());
+		}
+	}
+}
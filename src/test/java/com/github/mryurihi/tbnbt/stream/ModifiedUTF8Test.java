@@ -0,0 +1,138 @@
+/*
+MIT License
+
+Copyright (c) 2017 MrYurihi Redstone
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package com.github.mryurihi.tbnbt.stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UTFDataFormatException;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import com.github.mryurihi.tbnbt.adapter.NBTParseException;
+import com.github.mryurihi.tbnbt.adapter.TypeWrapper;
+import com.github.mryurihi.tbnbt.tag.NBTTagCompound;
+import com.github.mryurihi.tbnbt.tag.NBTTagString;
+
+class ModifiedUTF8Test {
+	
+	private static final String[] SAMPLES = {
+		"", "minecraft:stone", "a\u0000b", "Grüße", "߿ࠀ￿", "😀 emoji"
+	};
+	
+	private static byte[] jdkEncode(String s) throws IOException {
+		ByteArrayOutputStream bout = new ByteArrayOutputStream();
+		new DataOutputStream(bout).writeUTF(s);
+		return bout.toByteArray();
+	}
+	
+	private static byte[] write(NBTBufferOutput out, String s) throws IOException {
+		out.writeUTF(s);
+		return out.toByteArray();
+	}
+	
+	static class Named {
+		
+		String name;
+	}
+	
+	@Nested
+	class testCodec {
+		
+		@Test
+		void shouldMatchDataOutputStream() throws IOException {
+			for(String s: SAMPLES) {
+				ByteArrayOutputStream bout = new ByteArrayOutputStream();
+				ModifiedUTF8.writeUTF(new DataOutputStream(bout), s);
+				assertArrayEquals(jdkEncode(s), bout.toByteArray());
+				assertEquals(jdkEncode(s).length - 2, ModifiedUTF8.encodedLength(s));
+				assertArrayEquals(jdkEncode(s), write(new NBTBufferOutput(4), s));
+				assertArrayEquals(jdkEncode(s), write(new NBTBufferOutput(ByteBuffer.allocateDirect(4)), s));
+			}
+		}
+		
+		@Test
+		void shouldDecode() throws IOException {
+			for(String s: SAMPLES) {
+				assertEquals(s, ModifiedUTF8.readUTF(new DataInputStream(new ByteArrayInputStream(jdkEncode(s)))));
+				assertEquals(s, new NBTBufferInput(jdkEncode(s)).readUTF());
+			}
+		}
+		
+		@Test
+		void shouldRejectMalformedInput() {
+			assertThrows(UTFDataFormatException.class, () -> ModifiedUTF8.decode(new byte[] {
+				(byte) 0xC3
+			}, 0, 1));
+			assertThrows(UTFDataFormatException.class, () -> ModifiedUTF8.decode(new byte[] {
+				(byte) 0xE2, 0x41, 0x41
+			}, 0, 3));
+			assertThrows(UTFDataFormatException.class, () -> ModifiedUTF8.decode(new byte[] {
+				(byte) 0xF0, (byte) 0x80, (byte) 0x80, (byte) 0x80
+			}, 0, 4));
+		}
+		
+		@Test
+		void shouldRejectLongStrings() {
+			StringBuilder s = new StringBuilder();
+			for(int i = 0; i < 0x8000; i++)
+				s.append('é');
+			assertThrows(UTFDataFormatException.class, () -> new NBTBufferOutput().writeUTF(s.toString()));
+		}
+	}
+	
+	@Nested
+	class testAdapter {
+		
+		@Test
+		void shouldRoundTripNonAsciiStrings() throws IOException, NBTParseException {
+			Named named = new Named();
+			named.name = "Grüße \u0000";
+			NBTBufferOutput out = new NBTBufferOutput();
+			out.writeFromObject(TypeWrapper.of(Named.class), named, "root");
+			NBTTagCompound tag = new NBTBufferInput(out.getBuffer()).readTag().getAsTagCompound();
+			assertEquals(new NBTTagString(named.name), tag.get("name"));
+			assertEquals(named.name, new NBTBufferInput(out.getBuffer()).readToType(TypeWrapper.of(Named.class)).name);
+		}
+		
+		@Test
+		void shouldReadTagStrings() throws IOException, NBTParseException {
+			NBTTagCompound tag = new NBTTagCompound(new HashMap<>());
+			tag.put("name", new NBTTagString("߿ࠀ"));
+			ByteArrayOutputStream bout = new ByteArrayOutputStream();
+			NBTOutputStream out = new NBTOutputStream(bout, false);
+			out.writeTag(tag, "root");
+			out.close();
+			NBTInputStream in = new NBTInputStream(new ByteArrayInputStream(bout.toByteArray()), false);
+			assertEquals("߿ࠀ", in.readToType(TypeWrapper.of(Named.class)).name);
+		}
+	}
+}
@@ -0,0 +1,146 @@
+/*
+MIT License
+
+Copyright (c) 2017 MrYurihi Redstone
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package com.github.mryurihi.tbnbt.stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.util.Random;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import com.github.mryurihi.tbnbt.adapter.NBTParseException;
+import com.github.mryurihi.tbnbt.adapter.TypeWrapper;
+import com.github.mryurihi.tbnbt.compression.CompressionCodec;
+import com.github.mryurihi.tbnbt.tag.NBTTagIntArray;
+import com.github.mryurihi.tbnbt.tag.NBTTagLongArray;
+
+class NBTArraysTest {
+	
+	private static final int[] INTS = new Random(1).ints(5000).toArray();
+	
+	private static final long[] LONGS = new Random(2).longs(3000).toArray();
+	
+	static class Section {
+		
+		int[] biomes;
+		Long[] states;
+		byte[] light;
+	}
+	
+	@Nested
+	class testBulk {
+		
+		@Test
+		void shouldMatchElementWise() throws IOException {
+			ByteArrayOutputStream expected = new ByteArrayOutputStream();
+			DataOutputStream data = new DataOutputStream(expected);
+			data.writeInt(INTS.length);
+			for(int i: INTS)
+				data.writeInt(i);
+			NBTBufferOutput out = new NBTBufferOutput(16);
+			new NBTTagIntArray(INTS).writePayloadBytes(out);
+			assertArrayEquals(expected.toByteArray(), out.toByteArray());
+			
+			ByteArrayOutputStream bout = new ByteArrayOutputStream();
+			new NBTTagIntArray(INTS).writePayloadBytes(new DataOutputStream(bout));
+			assertArrayEquals(expected.toByteArray(), bout.toByteArray());
+			assertArrayEquals(INTS, NBTArrays.readIntArray(new DataInputStream(new ByteArrayInputStream(bout.toByteArray()))));
+		}
+		
+		@Test
+		void shouldRoundTripEncodings() throws IOException {
+			for(NBTEncoding encoding: NBTEncoding.values()) {
+				NBTBufferOutput buffer = new NBTBufferOutput(encoding);
+				ByteArrayOutputStream bout = new ByteArrayOutputStream();
+				NBTOutputStream stream = new NBTOutputStream(bout, CompressionCodec.NONE, encoding);
+				new NBTTagLongArray(LONGS).writePayloadBytes(buffer);
+				new NBTTagLongArray(LONGS).writePayloadBytes(stream);
+				stream.close();
+				assertArrayEquals(buffer.toByteArray(), bout.toByteArray());
+				
+				assertArrayEquals(LONGS, NBTArrays.readLongArray(new NBTBufferInput(buffer.getBuffer(), encoding)));
+				NBTInputStream in = new NBTInputStream(
+					new ByteArrayInputStream(bout.toByteArray()), CompressionCodec.NONE, encoding
+				);
+				assertArrayEquals(LONGS, NBTArrays.readLongArray(in));
+				assertEquals(-1, in.read());
+			}
+		}
+		
+		@Test
+		void shouldWriteViews() throws IOException {
+			ByteBuffer direct = ByteBuffer.allocateDirect(LONGS.length * 8);
+			direct.asLongBuffer().put(LONGS);
+			LongBuffer view = direct.asLongBuffer();
+			view.position(1);
+			NBTBufferOutput out = new NBTBufferOutput();
+			NBTTagLongArray.view(view).writePayloadBytes(out);
+			ByteArrayOutputStream bout = new ByteArrayOutputStream();
+			NBTTagLongArray.view(view).writePayloadBytes(new DataOutputStream(bout));
+			assertArrayEquals(out.toByteArray(), bout.toByteArray());
+			long[] read = NBTArrays.readLongArray(new NBTBufferInput(out.getBuffer()));
+			assertEquals(LONGS.length - 1, read.length);
+			assertEquals(LONGS[1], read[0]);
+			assertEquals(1, view.position());
+		}
+		
+		@Test
+		void shouldRejectTruncatedBuffer() throws IOException {
+			NBTBufferOutput out = new NBTBufferOutput();
+			out.writeInt(Integer.MAX_VALUE);
+			assertThrows(EOFException.class, () -> NBTArrays.readIntArray(new NBTBufferInput(out.getBuffer())));
+		}
+	}
+	
+	@Nested
+	class testAdapters {
+		
+		@Test
+		void shouldRoundTripArrays() throws IOException, NBTParseException {
+			Section section = new Section();
+			section.biomes = INTS;
+			section.states = new Long[] {
+				1L, -2L, Long.MIN_VALUE
+			};
+			section.light = new byte[] {
+				1, 2, 3
+			};
+			NBTBufferOutput out = new NBTBufferOutput();
+			out.writeFromObject(TypeWrapper.of(Section.class), section, "");
+			Section read = new NBTBufferInput(out.getBuffer()).readToType(TypeWrapper.of(Section.class));
+			assertArrayEquals(section.biomes, read.biomes);
+			assertArrayEquals(section.states, read.states);
+			assertArrayEquals(section.light, read.light);
+		}
+	}
+}
@@ -0,0 +1,180 @@
+/*
+MIT License
+
+Copyright (c) 2017 MrYurihi Redstone
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package com.github.mryurihi.tbnbt.stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import com.github.mryurihi.tbnbt.TagType;
+import com.github.mryurihi.tbnbt.adapter.NBTParseException;
+import com.github.mryurihi.tbnbt.adapter.TypeWrapper;
+import com.github.mryurihi.tbnbt.tag.NBTTag;
+import com.github.mryurihi.tbnbt.tag.NBTTagCompound;
+import com.github.mryurihi.tbnbt.tag.NBTTagIntArray;
+import com.github.mryurihi.tbnbt.tag.NBTTagList;
+import com.github.mryurihi.tbnbt.tag.NBTTagLong;
+import com.github.mryurihi.tbnbt.tag.NBTTagString;
+
+class NBTBufferInputTest {
+	
+	private static NBTTagCompound sampleTag() {
+		NBTTagCompound tag = new NBTTagCompound(new HashMap<>());
+		tag.put("name", new NBTTagString("h\u00e9llo\u0000"));
+		tag.put("time", new NBTTagLong(1234567890123L));
+		tag.put("ints", new NBTTagIntArray(new int[] {
+			1, -2, 3
+		}));
+		NBTTagList list = new NBTTagList(TagType.STRING);
+		list.add(new NBTTagString("a"));
+		list.add(new NBTTagString("b"));
+		tag.put("list", list);
+		return tag;
+	}
+	
+	@Nested
+	class testReadTag {
+		
+		@Test
+		void shouldReadStreamOutput() throws IOException {
+			ByteArrayOutputStream bout = new ByteArrayOutputStream();
+			NBTOutputStream out = new NBTOutputStream(bout, false);
+			out.writeTag(sampleTag(), "");
+			out.close();
+			NBTTag read = new NBTBufferInput(bout.toByteArray()).readTag();
+			assertEquals(sampleTag(), read);
+		}
+		
+		@Test
+		void shouldReadFromDirectBuffer() throws IOException {
+			NBTBufferOutput out = new NBTBufferOutput(ByteBuffer.allocateDirect(4));
+			out.writeTag(sampleTag(), "root");
+			assertTrue(out.getBuffer().isDirect());
+			NBTBufferInput in = new NBTBufferInput(out.getBuffer());
+			assertEquals(sampleTag(), in.readTag());
+			assertFalse(in.getBuffer().hasRemaining());
+		}
+		
+		@Test
+		void shouldThrowEofException() throws IOException {
+			NBTBufferOutput out = new NBTBufferOutput();
+			out.writeTag(sampleTag(), "");
+			byte[] data = out.toByteArray();
+			ByteBuffer truncated = ByteBuffer.wrap(data, 0, data.length - 3);
+			assertThrows(EOFException.class, () -> new NBTBufferInput(truncated).readTag());
+		}
+	}
+	
+	@Nested
+	class testMap {
+		
+		@Test
+		void shouldReadArraysAsViews() throws IOException {
+			NBTBufferOutput out = new NBTBufferOutput();
+			out.writeTag(sampleTag(), "");
+			Path file = Files.createTempFile("tbnbt", ".nbt");
+			file.toFile().deleteOnExit();
+			Files.write(file, out.toByteArray());
+			NBTTagCompound read = NBTBufferInput.map(file).readTag().getAsTagCompound();
+			NBTTagIntArray ints = read.get("ints").getAsTagIntArray();
+			assertTrue(ints.isView());
+			assertEquals(-2, ints.getBuffer().get(1));
+			assertEquals(sampleTag(), read);
+			assertTrue(ints.isView());
+			ints.getValue();
+			assertFalse(ints.isView());
+		}
+	}
+	
+	@Nested
+	class testSkipPayload {
+		
+		@Test
+		void shouldSkipCompound() throws IOException {
+			NBTBufferOutput out = new NBTBufferOutput();
+			sampleTag().writePayloadBytes(out);
+			out.writeInt(42);
+			NBTBufferInput in = new NBTBufferInput(out.getBuffer());
+			in.skipPayload(TagType.COMPOUND);
+			assertEquals(42, in.readInt());
+		}
+		
+		@Test
+		void shouldThrowEofException() throws IOException {
+			NBTBufferOutput out = new NBTBufferOutput();
+			out.writeInt(10);
+			out.writeInt(1);
+			assertThrows(EOFException.class, () -> new NBTBufferInput(out.getBuffer()).skipPayload(TagType.INT_ARRAY));
+		}
+		
+		@Test
+		void shouldSkipUnknownFields() throws IOException, NBTParseException {
+			NBTBufferOutput out = new NBTBufferOutput();
+			out.writeTag(sampleTag(), "");
+			Time time = new NBTBufferInput(out.getBuffer()).readToType(TypeWrapper.of(Time.class));
+			assertEquals(1234567890123L, time.time);
+		}
+	}
+	
+	static class Time {
+		
+		long time;
+	}
+	
+	@Nested
+	class testWriteUTF {
+		
+		@Test
+		void shouldMatchDataOutputStream() throws IOException {
+			ByteArrayOutputStream bout = new ByteArrayOutputStream();
+			new DataOutputStream(bout).writeUTF("a\u0000\u07ff\uffff");
+			NBTBufferOutput out = new NBTBufferOutput();
+			out.writeUTF("a\u0000\u07ff\uffff");
+			assertArrayEquals(bout.toByteArray(), out.toByteArray());
+		}
+	}
+	
+	@Nested
+	class testGrow {
+		
+		@Test
+		void shouldRejectWritesPastMaxCapacity() throws IOException {
+			NBTBufferOutput out = new NBTBufferOutput(16);
+			out.writeLong(1);
+			assertThrows(IOException.class, () -> out.write(new byte[0], 0, Integer.MAX_VALUE));
+			assertThrows(IOException.class, () -> out.write(new byte[0], 0, Integer.MAX_VALUE - 8));
+			assertEquals(8, out.size());
+		}
+	}
+}
@@ -0,0 +1,183 @@
+/*
+MIT License
+
+Copyright (c) 2017 MrYurihi Redstone
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package com.github.mryurihi.tbnbt.stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import com.github.mryurihi.tbnbt.TagType;
+import com.github.mryurihi.tbnbt.compression.CompressionCodec;
+import com.github.mryurihi.tbnbt.tag.LazyNBTTagCompound;
+import com.github.mryurihi.tbnbt.tag.NBTTag;
+import com.github.mryurihi.tbnbt.tag.NBTTagCompound;
+import com.github.mryurihi.tbnbt.tag.NBTTagDouble;
+import com.github.mryurihi.tbnbt.tag.NBTTagInt;
+import com.github.mryurihi.tbnbt.tag.NBTTagIntArray;
+import com.github.mryurihi.tbnbt.tag.NBTTagList;
+import com.github.mryurihi.tbnbt.tag.NBTTagLong;
+import com.github.mryurihi.tbnbt.tag.NBTTagLongArray;
+import com.github.mryurihi.tbnbt.tag.NBTTagShort;
+import com.github.mryurihi.tbnbt.tag.NBTTagString;
+
+class NBTEncodingTest {
+	
+	private static NBTTagCompound sampleTag() {
+		NBTTagList list = new NBTTagList(TagType.INT);
+		list.add(new NBTTagInt(-1));
+		list.add(new NBTTagInt(Integer.MIN_VALUE));
+		NBTTagCompound nested = new NBTTagCompound(new HashMap<>());
+		nested.put("name", new NBTTagString("Grüße ✓"));
+		NBTTagCompound tag = new NBTTagCompound(new HashMap<>());
+		tag.put("short", new NBTTagShort((short) -2));
+		tag.put("int", new NBTTagInt(300));
+		tag.put("long", new NBTTagLong(Long.MIN_VALUE));
+		tag.put("double", new NBTTagDouble(1.5));
+		tag.put("ints", new NBTTagIntArray(new int[] {
+			0, -64, 1 << 20
+		}));
+		tag.put("longs", new NBTTagLongArray(new long[] {
+			Long.MAX_VALUE, -1
+		}));
+		tag.put("list", list);
+		tag.put("nested", nested);
+		return tag;
+	}
+	
+	private static byte[] write(NBTTag tag, NBTEncoding encoding) throws IOException {
+		NBTBufferOutput out = new NBTBufferOutput(encoding);
+		out.writeTag(tag, "root");
+		return out.toByteArray();
+	}
+	
+	@Nested
+	class testBytes {
+		
+		@Test
+		void shouldWriteLittleEndian() throws IOException {
+			NBTBufferOutput out = new NBTBufferOutput(NBTEncoding.LITTLE_ENDIAN);
+			out.writeInt(1);
+			out.writeUTF("ab");
+			assertArrayEquals(new byte[] {
+				1, 0, 0, 0, 2, 0, 'a', 'b'
+			}, out.toByteArray());
+		}
+		
+		@Test
+		void shouldWriteVarInts() throws IOException {
+			NBTBufferOutput out = new NBTBufferOutput(NBTEncoding.VARINT);
+			out.writeInt(-1);
+			out.writeInt(300);
+			out.writeLong(1);
+			out.writeShort(1);
+			out.writeUTF("ab");
+			assertArrayEquals(new byte[] {
+				1, (byte) 0xD8, 4, 2, 1, 0, 2, 'a', 'b'
+			}, out.toByteArray());
+		}
+		
+		@Test
+		void shouldMatchStreamOutput() throws IOException {
+			for(NBTEncoding encoding: NBTEncoding.values()) {
+				ByteArrayOutputStream bout = new ByteArrayOutputStream();
+				NBTOutputStream out = new NBTOutputStream(bout, CompressionCodec.NONE, encoding);
+				out.writeTag(sampleTag(), "root");
+				out.close();
+				assertArrayEquals(write(sampleTag(), encoding), bout.toByteArray());
+			}
+		}
+	}
+	
+	@Nested
+	class testRead {
+		
+		@Test
+		void shouldRoundTripBuffer() throws IOException {
+			for(NBTEncoding encoding: NBTEncoding.values()) {
+				NBTBufferInput in = new NBTBufferInput(write(sampleTag(), encoding), encoding);
+				assertEquals(sampleTag(), in.readTag(), encoding.toString());
+				assertFalse(in.getBuffer().hasRemaining());
+			}
+		}
+		
+		@Test
+		void shouldRoundTripStream() throws IOException {
+			for(NBTEncoding encoding: NBTEncoding.values()) {
+				NBTInputStream in = new NBTInputStream(
+					new ByteArrayInputStream(write(sampleTag(), encoding)), CompressionCodec.NONE, encoding
+				);
+				assertEquals(sampleTag(), in.readTag(), encoding.toString());
+				assertEquals(-1, in.read());
+			}
+		}
+		
+		@Test
+		void shouldReadArrayViews() throws IOException {
+			NBTBufferInput in = new NBTBufferInput(write(sampleTag(), NBTEncoding.LITTLE_ENDIAN), NBTEncoding.LITTLE_ENDIAN);
+			in.setArrayViews(true);
+			assertEquals(sampleTag(), in.readTag());
+		}
+		
+		@Test
+		void shouldSkipPayload() throws IOException {
+			for(NBTEncoding encoding: NBTEncoding.values()) {
+				byte[] data = write(sampleTag(), encoding);
+				NBTBufferInput in = new NBTBufferInput(data, encoding);
+				in.readByte();
+				in.skipPayload(TagType.STRING);
+				in.skipPayload(TagType.COMPOUND);
+				assertFalse(in.getBuffer().hasRemaining());
+			}
+		}
+		
+		@Test
+		void shouldReadWithReader() throws IOException {
+			NBTReader reader = new NBTReader(new NBTBufferInput(write(sampleTag(), NBTEncoding.VARINT), NBTEncoding.VARINT));
+			reader.beginCompound();
+			int value = 0;
+			while(reader.hasNext()) {
+				if(reader.nextName().equals("int")) value = reader.nextInt();
+				else reader.skipValue();
+			}
+			reader.endCompound();
+			assertEquals(300, value);
+		}
+		
+		@Test
+		void shouldConvertLazyCompound() throws IOException {
+			NBTBufferInput in = new NBTBufferInput(write(sampleTag(), NBTEncoding.VARINT), NBTEncoding.VARINT);
+			LazyNBTTagCompound lazy = (LazyNBTTagCompound) in.readLazyTag();
+			assertEquals(8, lazy.getPendingCount());
+			
+			NBTBufferInput converted = new NBTBufferInput(write(lazy, NBTEncoding.LITTLE_ENDIAN), NBTEncoding.LITTLE_ENDIAN);
+			assertEquals(sampleTag(), converted.readTag());
+		}
+	}
+}
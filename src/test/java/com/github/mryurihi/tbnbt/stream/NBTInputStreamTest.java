@@ -0,0 +1,278 @@
+/*
+MIT License
+
+Copyright (c) 2017 MrYurihi Redstone
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package com.github.mryurihi.tbnbt.stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import com.github.mryurihi.tbnbt.compression.CompressionCodec;
+import com.github.mryurihi.tbnbt.tag.NBTTagCompound;
+import com.github.mryurihi.tbnbt.tag.NBTTagInt;
+import com.github.mryurihi.tbnbt.tag.NBTTagIntArray;
+
+class NBTInputStreamTest {
+	
+	private static NBTTagCompound sampleTag(int value) {
+		NBTTagCompound tag = new NBTTagCompound(new HashMap<>());
+		tag.put("value", new NBTTagInt(value));
+		tag.put("data", new NBTTagIntArray(new int[value % 50]));
+		return tag;
+	}
+	
+	private static byte[] sampleData(CompressionCodec codec, int count) throws IOException {
+		ByteArrayOutputStream bout = new ByteArrayOutputStream();
+		NBTOutputStream out = new NBTOutputStream(bout, codec);
+		for(int i = 0; i < count; i++)
+			out.writeUnnamedTag(sampleTag(i));
+		out.close();
+		return bout.toByteArray();
+	}
+	
+	@Nested
+	class testReadAhead {
+		
+		@Test
+		void shouldReadCompressedData() throws IOException {
+			byte[] data = sampleData(CompressionCodec.GZIP, 1000);
+			NBTInputStream in = new NBTInputStream(
+				new ByteArrayInputStream(data), CompressionCodec.GZIP, NBTEncoding.BIG_ENDIAN, 256
+			);
+			for(int i = 0; i < 1000; i++)
+				assertEquals(sampleTag(i), in.readTag(false));
+			assertEquals(-1, in.read());
+			in.close();
+		}
+		
+		@Test
+		void shouldReadFromPipe() throws IOException, InterruptedException {
+			byte[] data = sampleData(CompressionCodec.NONE, 200);
+			PipedOutputStream source = new PipedOutputStream();
+			PipedInputStream pipe = new PipedInputStream(source, 64);
+			Thread writer = new Thread(() -> {
+				try {
+					for(int i = 0; i < data.length; i += 37)
+						source.write(data, i, Math.min(37, data.length - i));
+					source.close();
+				} catch(IOException e) {
+					throw new RuntimeException(e);
+				}
+			});
+			writer.start();
+			NBTInputStream in = new NBTInputStream(pipe, CompressionCodec.NONE, NBTEncoding.BIG_ENDIAN, 1024);
+			for(int i = 0; i < 200; i++)
+				assertEquals(sampleTag(i), in.readTag(false));
+			assertEquals(-1, in.read());
+			in.close();
+			writer.join();
+		}
+		
+		@Test
+		void shouldReportSourceErrors() throws IOException {
+			byte[] data = sampleData(CompressionCodec.NONE, 10);
+			InputStream failing = new InputStream() {
+				
+				private int position;
+				
+				@Override
+				public int read() throws IOException {
+					if(position == data.length / 2) throw new IOException("Connection reset");
+					return data[position++] & 0xff;
+				}
+			};
+			NBTInputStream in = new NBTInputStream(failing, CompressionCodec.NONE, NBTEncoding.BIG_ENDIAN, 16);
+			IOException e = assertThrows(IOException.class, () -> {
+				for(int i = 0; i < 10; i++)
+					in.readTag(false);
+			});
+			assertEquals("Connection reset", e.getMessage());
+		}
+		
+		@Test
+		void shouldNotHoldBackCompressedData() {
+			assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+				PipedOutputStream source = new PipedOutputStream();
+				PipedInputStream pipe = new PipedInputStream(source, 1024);
+				SynchronousQueue<Integer> replies = new SynchronousQueue<>();
+				Thread writer = new Thread(() -> {
+					try {
+						NBTOutputStream out = new NBTOutputStream(
+							new GZIPOutputStream(source, true), CompressionCodec.NONE, NBTEncoding.BIG_ENDIAN, 256
+						);
+						for(int i = 0; i < 5; i++) {
+							out.writeUnnamedTag(sampleTag(i));
+							out.flush();
+							assertEquals(i, (int) replies.take());
+						}
+						out.close();
+					} catch(IOException | InterruptedException e) {
+						throw new RuntimeException(e);
+					}
+				});
+				writer.start();
+				NBTInputStream in = new NBTInputStream(pipe, CompressionCodec.GZIP, NBTEncoding.BIG_ENDIAN, 8192);
+				for(int i = 0; i < 5; i++) {
+					assertEquals(sampleTag(i), in.readTag(false));
+					replies.put(i);
+				}
+				assertEquals(-1, in.read());
+				in.close();
+				writer.join();
+			});
+		}
+		
+		@Test
+		void shouldCloseIdleSocket() throws IOException {
+			try(ServerSocket server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+				try(
+					Socket client = new Socket(server.getInetAddress(), server.getLocalPort());
+					Socket peer = server.accept()
+				) {
+					NBTInputStream in = new NBTInputStream(
+						client.getInputStream(), CompressionCodec.NONE, NBTEncoding.BIG_ENDIAN, 16
+					);
+					assertTimeoutPreemptively(Duration.ofSeconds(5), () -> in.close());
+				}
+			}
+		}
+		
+		@Test
+		void shouldCloseIdlePipe() throws IOException {
+			PipedOutputStream source = new PipedOutputStream();
+			NBTInputStream in = new NBTInputStream(
+				new PipedInputStream(source), CompressionCodec.NONE, NBTEncoding.BIG_ENDIAN, 16
+			);
+			assertTimeoutPreemptively(Duration.ofSeconds(5), () -> in.close());
+			source.close();
+		}
+		
+		@Test
+		void shouldNotCloseDecompressorDuringRead() throws IOException, InterruptedException {
+			CountDownLatch reading = new CountDownLatch(1);
+			CountDownLatch release = new CountDownLatch(1);
+			CountDownLatch decompressorClosed = new CountDownLatch(1);
+			AtomicBoolean closedDuringRead = new AtomicBoolean();
+			InputStream blocked = new InputStream() {
+				
+				@Override
+				public int read() throws IOException {
+					reading.countDown();
+					boolean done = false;
+					while(!done) {
+						try {
+							release.await();
+							done = true;
+						} catch(InterruptedException e) {
+							// like a socket, a read in progress ignores interrupts
+						}
+					}
+					return 0;
+				}
+			};
+			CompressionCodec codec = new CompressionCodec() {
+				
+				@Override
+				public InputStream decompress(InputStream in) {
+					return new FilterInputStream(in) {
+						
+						private volatile boolean inRead;
+						
+						@Override
+						public int read(byte[] b, int off, int len) throws IOException {
+							inRead = true;
+							try {
+								return super.read(b, off, len);
+							} finally {
+								inRead = false;
+							}
+						}
+						
+						@Override
+						public void close() {
+							if(inRead) closedDuringRead.set(true);
+							decompressorClosed.countDown();
+						}
+					};
+				}
+				
+				@Override
+				public OutputStream compress(OutputStream out) {
+					return out;
+				}
+			};
+			NBTInputStream in = new NBTInputStream(blocked, codec, NBTEncoding.BIG_ENDIAN, 16);
+			reading.await();
+			in.close();
+			assertEquals(1, decompressorClosed.getCount());
+			release.countDown();
+			assertTrue(decompressorClosed.await(10, TimeUnit.SECONDS));
+			assertFalse(closedDuringRead.get());
+		}
+		
+		@Test
+		void shouldReportErrors() throws IOException {
+			InputStream failing = new InputStream() {
+				
+				@Override
+				public int read() {
+					throw new OutOfMemoryError("Test");
+				}
+			};
+			NBTInputStream in = new NBTInputStream(failing, CompressionCodec.NONE, NBTEncoding.BIG_ENDIAN, 16);
+			assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+				OutOfMemoryError e = assertThrows(OutOfMemoryError.class, () -> in.readTag(false));
+				assertEquals("Test", e.getMessage());
+			});
+		}
+		
+		@Test
+		void shouldRejectReadsAfterClose() throws IOException {
+			NBTInputStream in = new NBTInputStream(
+				new PipedInputStream(new PipedOutputStream()), CompressionCodec.NONE, NBTEncoding.BIG_ENDIAN, 16
+			);
+			in.close();
+			assertThrows(IOException.class, () -> in.read());
+		}
+	}
+}
@@ -0,0 +1,190 @@
+/*
+MIT License
+
+Copyright (c) 2017 MrYurihi Redstone
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package com.github.mryurihi.tbnbt.stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import com.github.mryurihi.tbnbt.TagType;
+import com.github.mryurihi.tbnbt.tag.LazyNBTTagCompound;
+import com.github.mryurihi.tbnbt.tag.NBTTag;
+import com.github.mryurihi.tbnbt.tag.NBTTagCompound;
+import com.github.mryurihi.tbnbt.tag.NBTTagInt;
+import com.github.mryurihi.tbnbt.tag.NBTTagList;
+
+class NBTKeyTableTest {
+	
+	private static NBTTagList sampleList() {
+		NBTTagList list = new NBTTagList(TagType.COMPOUND);
+		for(int i = 0; i < 3; i++) {
+			NBTTagCompound entity = new NBTTagCompound(new HashMap<>());
+			entity.put("Count", new NBTTagInt(i));
+			entity.put("Grüße", new NBTTagInt(i));
+			list.add(entity);
+		}
+		return list;
+	}
+	
+	private static void assertShared(NBTTagList list) {
+		String count = null;
+		String greeting = null;
+		for(NBTTag entity: list) {
+			for(String key: entity.getAsTagCompound().getValue().keySet()) {
+				if(key.equals("Count")) {
+					if(count == null) count = key;
+					assertSame(count, key);
+				} else {
+					if(greeting == null) greeting = key;
+					assertSame(greeting, key);
+				}
+			}
+		}
+		assertNotNull(count);
+		assertNotNull(greeting);
+	}
+	
+	@Nested
+	class testIntern {
+		
+		@Test
+		void shouldShareKeysInBuffer() throws IOException {
+			for(NBTEncoding encoding: NBTEncoding.values()) {
+				NBTBufferOutput out = new NBTBufferOutput(encoding);
+				out.writeUnnamedTag(sampleList());
+				NBTKeyTable table = new NBTKeyTable();
+				NBTBufferInput in = new NBTBufferInput(out.getBuffer(), encoding);
+				in.setKeyTable(table);
+				NBTTagList list = in.readTag(false).getAsTagList();
+				assertEquals(sampleList(), list);
+				assertShared(list);
+				assertEquals(2, table.size());
+			}
+		}
+		
+		@Test
+		void shouldShareKeysInDirectBuffer() throws IOException {
+			NBTBufferOutput out = new NBTBufferOutput(ByteBuffer.allocateDirect(16));
+			out.writeUnnamedTag(sampleList());
+			NBTBufferInput in = new NBTBufferInput(out.getBuffer());
+			in.setKeyTable(new NBTKeyTable());
+			assertShared(in.readTag(false).getAsTagList());
+		}
+		
+		@Test
+		void shouldShareKeysInStream() throws IOException {
+			ByteArrayOutputStream bout = new ByteArrayOutputStream();
+			NBTOutputStream out = new NBTOutputStream(bout, false);
+			out.writeUnnamedTag(sampleList());
+			out.close();
+			NBTInputStream in = new NBTInputStream(new ByteArrayInputStream(bout.toByteArray()), false);
+			in.setKeyTable(new NBTKeyTable());
+			assertShared(in.readTag(false).getAsTagList());
+		}
+		
+		@Test
+		void shouldShareKeysInLazyCompound() throws IOException {
+			NBTTagCompound root = new NBTTagCompound(new HashMap<>());
+			root.put("Entities", sampleList());
+			NBTBufferOutput out = new NBTBufferOutput();
+			out.writeTag(root, "");
+			NBTBufferInput in = new NBTBufferInput(out.getBuffer());
+			in.setKeyTable(new NBTKeyTable());
+			LazyNBTTagCompound lazy = (LazyNBTTagCompound) in.readLazyTag();
+			assertShared(lazy.get("Entities").getAsTagList());
+		}
+		
+		@Test
+		void shouldReplaceKeysWhenFull() throws IOException {
+			NBTKeyTable table = new NBTKeyTable(1);
+			byte[] a = {
+				'a'
+			};
+			byte[] b = {
+				'b'
+			};
+			String first = table.intern(a, 0, 1, NBTEncoding.BIG_ENDIAN);
+			assertSame(first, table.intern(a, 0, 1, NBTEncoding.BIG_ENDIAN));
+			assertEquals("b", table.intern(b, 0, 1, NBTEncoding.BIG_ENDIAN));
+			assertSame(table.intern(b, 0, 1, NBTEncoding.BIG_ENDIAN), table.intern(b, 0, 1, NBTEncoding.BIG_ENDIAN));
+			assertNotSame(first, table.intern(a, 0, 1, NBTEncoding.BIG_ENDIAN));
+			assertEquals(1, table.size());
+		}
+		
+		@Test
+		void shouldKeepReadingHotKeysAfterJunk() throws IOException {
+			NBTKeyTable table = new NBTKeyTable(64);
+			byte[] hot = "DataVersion".getBytes("UTF-8");
+			for(int i = 0; i < 10000; i++)
+				table.intern(("junk" + i).getBytes("UTF-8"), 0, ("junk" + i).length(), NBTEncoding.BIG_ENDIAN);
+			String key = table.intern(hot, 0, hot.length, NBTEncoding.BIG_ENDIAN);
+			assertSame(key, table.intern(hot, 0, hot.length, NBTEncoding.BIG_ENDIAN));
+			assertTrue(table.size() <= 64);
+		}
+		
+		@Test
+		void shouldNotOvercountConcurrentInserts() throws InterruptedException {
+			NBTKeyTable table = new NBTKeyTable(100);
+			List<Thread> threads = new ArrayList<>();
+			for(int t = 0; t < 4; t++) {
+				threads.add(new Thread(() -> {
+					for(int i = 0; i < 1000; i++) {
+						byte[] key = ("key" + i).getBytes(StandardCharsets.UTF_8);
+						try {
+							assertEquals("key" + i, table.intern(key, 0, key.length, NBTEncoding.BIG_ENDIAN));
+						} catch(IOException e) {
+							throw new RuntimeException(e);
+						}
+					}
+				}));
+			}
+			for(Thread thread: threads)
+				thread.start();
+			for(Thread thread: threads)
+				thread.join();
+			assertTrue(table.size() <= 100);
+			assertTrue(table.size() > 0);
+		}
+		
+		@Test
+		void shouldNotAddLongKeys() throws IOException {
+			NBTKeyTable table = new NBTKeyTable();
+			byte[] key = new byte[NBTKeyTable.MAX_KEY_LENGTH + 1];
+			Arrays.fill(key, (byte) 'k');
+			assertEquals(key.length, table.intern(key, 0, key.length, NBTEncoding.BIG_ENDIAN).length());
+			assertEquals(0, table.size());
+		}
+	}
+}
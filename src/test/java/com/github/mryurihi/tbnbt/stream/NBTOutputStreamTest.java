@@ -0,0 +1,199 @@
+/*
+MIT License
+
+Copyright (c) 2017 MrYurihi Redstone
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package com.github.mryurihi.tbnbt.stream;
+
+import static com.github.mryurihi.tbnbt.TestFixtures.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import com.github.mryurihi.tbnbt.adapter.NBTParseException;
+import com.github.mryurihi.tbnbt.adapter.TypeWrapper;
+import com.github.mryurihi.tbnbt.compression.CompressionCodec;
+
+class NBTOutputStreamTest {
+	
+	static class Value {
+		
+		int value;
+	}
+	
+	@Nested
+	class testWriteTag {
+		
+		@Test
+		void shouldWriteName() throws IOException {
+			ByteArrayOutputStream bout = new ByteArrayOutputStream();
+			NBTOutputStream out = new NBTOutputStream(bout, false);
+			out.writeTag(record(1), "root");
+			out.close();
+			DataInputStream in = new DataInputStream(new ByteArrayInputStream(bout.toByteArray()));
+			assertEquals(10, in.readByte());
+			assertEquals("root", in.readUTF());
+		}
+		
+		@Test
+		void shouldFrameUnnamedTags() throws IOException, NBTParseException {
+			ByteArrayOutputStream bout = new ByteArrayOutputStream();
+			NBTOutputStream out = new NBTOutputStream(bout, false);
+			for(int i = 0; i < 3; i++)
+				out.writeUnnamedTag(record(i));
+			out.writeFromObject(TypeWrapper.of(Value.class), new Value(), "");
+			out.writeUnnamedTag(record(3));
+			out.close();
+			NBTInputStream in = new NBTInputStream(new ByteArrayInputStream(bout.toByteArray()), false);
+			for(int i = 0; i < 3; i++)
+				assertEquals(record(i), in.readTag(false));
+			assertEquals(0, in.readTag(true).getAsTagCompound().get("value").getAsTagInt().getValue());
+			assertEquals(record(3), in.readTag(false));
+			assertEquals(-1, in.read());
+		}
+		
+		@Test
+		void shouldNotCloseAfterObject() throws IOException, NBTParseException {
+			ByteArrayOutputStream bout = new ByteArrayOutputStream();
+			NBTOutputStream out = new NBTOutputStream(bout, CompressionCodec.GZIP);
+			Value value = new Value();
+			value.value = 7;
+			out.writeFromObject(TypeWrapper.of(Value.class), value, "");
+			// dropping the stream here, as callers of 0.1 could, leaves the data incomplete
+			assertThrows(
+				IOException.class,
+				() -> new NBTInputStream(new ByteArrayInputStream(bout.toByteArray()), CompressionCodec.GZIP).readTag()
+			);
+			out.close();
+			NBTInputStream in = new NBTInputStream(new ByteArrayInputStream(bout.toByteArray()), CompressionCodec.GZIP);
+			assertEquals(7, in.readTag().getAsTagCompound().get("value").getAsTagInt().getValue());
+		}
+	}
+	
+	@Nested
+	class testBuffer {
+		
+		@Test
+		void shouldBufferSmallWrites() throws IOException {
+			CountingStream target = new CountingStream();
+			NBTOutputStream out = new NBTOutputStream(target, CompressionCodec.NONE, NBTEncoding.BIG_ENDIAN, 64);
+			for(int i = 0; i < 100; i++)
+				out.writeInt(i);
+			assertEquals(6, target.writes);
+			assertEquals(384, target.size());
+			out.flush();
+			assertEquals(400, target.size());
+			assertEquals(1, target.flushes);
+			out.writeInt(100);
+			out.close();
+			assertEquals(404, target.size());
+		}
+		
+		@Test
+		void shouldGatherLargeWrites() throws IOException {
+			RecordingChannel channel = new RecordingChannel();
+			NBTOutputStream out = new NBTOutputStream(channel, CompressionCodec.NONE, NBTEncoding.BIG_ENDIAN, 64);
+			out.writeInt(7);
+			out.write(new byte[1000]);
+			assertEquals(1, channel.gathers);
+			assertEquals(1004, channel.data.size());
+			out.writeInt(8);
+			out.close();
+			assertEquals(1008, channel.data.size());
+			assertFalse(channel.isOpen());
+		}
+		
+		@Test
+		void shouldWriteCompressedToChannel() throws IOException {
+			RecordingChannel channel = new RecordingChannel();
+			NBTOutputStream out = new NBTOutputStream(channel, CompressionCodec.GZIP);
+			out.writeTag(record(5), "root");
+			out.close();
+			NBTInputStream in = new NBTInputStream(new ByteArrayInputStream(channel.data.toByteArray()));
+			assertEquals(record(5), in.readTag());
+		}
+	}
+	
+	private static class CountingStream extends ByteArrayOutputStream {
+		
+		private int writes;
+		private int flushes;
+		
+		@Override
+		public synchronized void write(byte[] b, int off, int len) {
+			writes++;
+			super.write(b, off, len);
+		}
+		
+		@Override
+		public void flush() {
+			flushes++;
+		}
+	}
+	
+	private static class RecordingChannel implements GatheringByteChannel {
+		
+		private ByteArrayOutputStream data = new ByteArrayOutputStream();
+		private int gathers;
+		private boolean open = true;
+		
+		@Override
+		public int write(ByteBuffer src) {
+			int length = src.remaining();
+			byte[] bytes = new byte[length];
+			src.get(bytes);
+			data.write(bytes, 0, length);
+			return length;
+		}
+		
+		@Override
+		public long write(ByteBuffer[] srcs, int offset, int length) {
+			gathers++;
+			long written = 0;
+			for(int i = offset; i < offset + length; i++)
+				written += write(srcs[i]);
+			return written;
+		}
+		
+		@Override
+		public long write(ByteBuffer[] srcs) {
+			return write(srcs, 0, srcs.length);
+		}
+		
+		@Override
+		public boolean isOpen() {
+			return open;
+		}
+		
+		@Override
+		public void close() {
+			open = false;
+		}
+	}
+}
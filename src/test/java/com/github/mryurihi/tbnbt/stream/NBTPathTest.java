@@ -0,0 +1,88 @@
+/*
+MIT License
+
+Copyright (c) 2017 MrYurihi Redstone
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package com.github.mryurihi.tbnbt.stream;
+
+import static com.github.mryurihi.tbnbt.TestFixtures.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import com.github.mryurihi.tbnbt.tag.NBTTag;
+
+class NBTPathTest {
+	
+	private static byte[] chunkData() throws IOException {
+		NBTBufferOutput out = new NBTBufferOutput();
+		out.writeTag(chunk(), "");
+		return out.toByteArray();
+	}
+	
+	@Nested
+	class testSelect {
+		
+		@Test
+		void shouldSelectWildcardIndex() throws IOException {
+			List<NBTTag> tags = NBTPath.compile("Level.Sections[*].BlockStates").select(new NBTBufferInput(chunkData()));
+			assertEquals(3, tags.size());
+			for(int i = 0; i < 3; i++)
+				assertArrayEquals(new long[] {
+					i, i + 1
+				}, tags.get(i).getAsTagLongArray().getValue());
+		}
+		
+		@Test
+		void shouldSelectIndex() throws IOException {
+			NBTTag tag = NBTPath.compile("Level.Sections[1].Y").selectFirst(new NBTBufferInput(chunkData()));
+			assertEquals(1, tag.getAsTagInt().getValue());
+		}
+		
+		@Test
+		void shouldSelectWildcardName() throws IOException {
+			assertEquals(2, NBTPath.compile("Level.*").select(new NBTBufferInput(chunkData())).size());
+		}
+		
+		@Test
+		void shouldConsumeDocument() throws IOException {
+			NBTBufferInput in = new NBTBufferInput(chunkData());
+			assertNull(NBTPath.compile("Level.Missing").selectFirst(in));
+			assertFalse(in.getBuffer().hasRemaining());
+		}
+	}
+	
+	@Nested
+	class testCompile {
+		
+		@Test
+		void shouldRejectInvalidPaths() {
+			assertThrows(IllegalArgumentException.class, () -> NBTPath.compile(""));
+			assertThrows(IllegalArgumentException.class, () -> NBTPath.compile("Level..Sections"));
+			assertThrows(IllegalArgumentException.class, () -> NBTPath.compile("Sections[x]"));
+			assertThrows(IllegalArgumentException.class, () -> NBTPath.compile("Sections[1"));
+		}
+	}
+}
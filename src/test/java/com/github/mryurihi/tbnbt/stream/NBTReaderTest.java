@@ -0,0 +1,180 @@
+/*
+MIT License
+
+Copyright (c) 2017 MrYurihi Redstone
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package com.github.mryurihi.tbnbt.stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import com.github.mryurihi.tbnbt.TagType;
+import com.github.mryurihi.tbnbt.tag.NBTTagCompound;
+import com.github.mryurihi.tbnbt.tag.NBTTagInt;
+import com.github.mryurihi.tbnbt.tag.NBTTagList;
+import com.github.mryurihi.tbnbt.tag.NBTTagLongArray;
+import com.github.mryurihi.tbnbt.tag.NBTTagString;
+
+class NBTReaderTest {
+	
+	private static NBTReader sampleReader() throws IOException {
+		NBTTagCompound section = new NBTTagCompound(new HashMap<>());
+		section.put("BlockStates", new NBTTagLongArray(new long[] {
+			1, 2, 3
+		}));
+		NBTTagList sections = new NBTTagList(TagType.COMPOUND);
+		sections.add(section);
+		sections.add(section);
+		NBTTagCompound root = new NBTTagCompound(new HashMap<>());
+		root.put("Sections", sections);
+		root.put("DataVersion", new NBTTagInt(1631));
+		root.put("Status", new NBTTagString("full"));
+		ByteArrayOutputStream bout = new ByteArrayOutputStream();
+		NBTOutputStream out = new NBTOutputStream(bout);
+		out.writeTag(root, "");
+		out.close();
+		return new NBTReader(new NBTInputStream(new ByteArrayInputStream(bout.toByteArray())));
+	}
+	
+	@Nested
+	class testWalk {
+		
+		@Test
+		void shouldReadSelectedValues() throws IOException {
+			NBTReader reader = sampleReader();
+			assertEquals(TagType.COMPOUND, reader.peek());
+			reader.beginCompound();
+			int version = 0;
+			int sections = 0;
+			while(reader.hasNext()) {
+				TagType type = reader.nextTagType();
+				String name = reader.nextName();
+				if(name.equals("DataVersion")) version = reader.nextInt();
+				else if(name.equals("Sections")) {
+					assertEquals(TagType.LIST, type);
+					assertEquals(2, reader.beginList());
+					while(reader.hasNext()) {
+						reader.beginCompound();
+						assertEquals("BlockStates", reader.nextName());
+						assertArrayEquals(new long[] {
+							1, 2, 3
+						}, reader.nextLongArray());
+						reader.endCompound();
+						sections++;
+					}
+					reader.endList();
+				} else reader.skipValue();
+			}
+			reader.endCompound();
+			assertEquals(1631, version);
+			assertEquals(2, sections);
+			assertEquals(0, reader.getDepth());
+		}
+		
+		@Test
+		void shouldSkipWholeDocument() throws IOException {
+			NBTReader reader = sampleReader();
+			reader.skipValue();
+			assertEquals(0, reader.getDepth());
+		}
+		
+		@Test
+		void shouldRejectWrongType() throws IOException {
+			NBTReader reader = sampleReader();
+			assertThrows(IllegalStateException.class, () -> reader.beginList());
+		}
+		
+		@Test
+		void shouldRejectUnfinishedCompound() throws IOException {
+			NBTReader reader = sampleReader();
+			reader.beginCompound();
+			assertThrows(IllegalStateException.class, () -> reader.endCompound());
+		}
+	}
+	
+	@Nested
+	class testAccept {
+		
+		@Test
+		void shouldVisitEverything() throws IOException {
+			List<String> names = new ArrayList<>();
+			int[] arrays = new int[1];
+			NBTReader reader = sampleReader();
+			reader.accept(new NBTVisitor() {
+				
+				@Override
+				public Result visitCompoundEntry(TagType type, String name) {
+					names.add(name);
+					return Result.CONTINUE;
+				}
+				
+				@Override
+				public void visitLongArray(long[] value) {
+					arrays[0]++;
+				}
+			});
+			assertEquals(5, names.size());
+			assertEquals(2, arrays[0]);
+			assertEquals(0, reader.getDepth());
+		}
+		
+		@Test
+		void shouldSkipSubtree() throws IOException {
+			int[] version = new int[1];
+			int[] visited = new int[1];
+			NBTReader reader = sampleReader();
+			reader.accept(new NBTVisitor() {
+				
+				@Override
+				public Result visitCompoundEntry(TagType type, String name) {
+					return name.equals("Sections")? Result.SKIP: Result.CONTINUE;
+				}
+				
+				@Override
+				public void visitInt(int value) {
+					version[0] = value;
+				}
+				
+				@Override
+				public void visitListStart(TagType elementType, int size) {
+					visited[0]++;
+				}
+				
+				@Override
+				public void visitLongArray(long[] value) {
+					visited[0]++;
+				}
+			});
+			assertEquals(1631, version[0]);
+			assertEquals(0, visited[0]);
+			assertEquals(0, reader.getDepth());
+		}
+	}
+}
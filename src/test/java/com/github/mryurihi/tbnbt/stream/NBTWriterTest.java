@@ -0,0 +1,121 @@
+/*
+MIT License
+
+Copyright (c) 2017 MrYurihi Redstone
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package com.github.mryurihi.tbnbt.stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import com.github.mryurihi.tbnbt.TagType;
+import com.github.mryurihi.tbnbt.tag.NBTTag;
+import com.github.mryurihi.tbnbt.tag.NBTTagCompound;
+import com.github.mryurihi.tbnbt.tag.NBTTagInt;
+import com.github.mryurihi.tbnbt.tag.NBTTagList;
+import com.github.mryurihi.tbnbt.tag.NBTTagLongArray;
+import com.github.mryurihi.tbnbt.tag.NBTTagString;
+
+class NBTWriterTest {
+	
+	@Nested
+	class testWrite {
+		
+		@Test
+		void shouldMatchTagTree() throws IOException {
+			NBTTagCompound section = new NBTTagCompound(new HashMap<>());
+			section.put("BlockStates", new NBTTagLongArray(new long[] {
+				1, 2, 3
+			}));
+			NBTTagList sections = new NBTTagList(TagType.COMPOUND);
+			sections.add(section);
+			sections.add(section);
+			NBTTagCompound expected = new NBTTagCompound(new HashMap<>());
+			expected.put("Sections", sections);
+			expected.put("DataVersion", new NBTTagInt(1631));
+			expected.put("Status", new NBTTagString("full"));
+			
+			ByteArrayOutputStream bout = new ByteArrayOutputStream();
+			NBTOutputStream out = new NBTOutputStream(bout, false);
+			NBTWriter writer = new NBTWriter(out);
+			writer.beginCompound("");
+			writer.name("Sections").beginList(TagType.COMPOUND, 2);
+			for(int i = 0; i < 2; i++)
+				writer.beginCompound().name("BlockStates").value(new long[] {
+					1, 2, 3
+				}).endCompound();
+			writer.endList();
+			writer.name("DataVersion").value(1631);
+			writer.name("Status").value("full");
+			writer.endCompound();
+			assertEquals(0, writer.getDepth());
+			out.close();
+			
+			NBTTag read = new NBTInputStream(new ByteArrayInputStream(bout.toByteArray()), false).readTag();
+			assertEquals(expected, read);
+		}
+		
+		@Test
+		void shouldWriteToBuffer() throws IOException {
+			NBTBufferOutput out = new NBTBufferOutput();
+			new NBTWriter(out).beginCompound("root").name("a").value((byte) 1).endCompound();
+			NBTTagCompound read = new NBTBufferInput(out.getBuffer()).readTag().getAsTagCompound();
+			assertEquals(1, read.get("a").getAsTagByte().getValue());
+		}
+	}
+	
+	@Nested
+	class testValidation {
+		
+		@Test
+		void shouldRequireName() throws IOException {
+			NBTWriter writer = new NBTWriter(new NBTBufferOutput()).beginCompound("");
+			assertThrows(IllegalStateException.class, () -> writer.value(1));
+		}
+		
+		@Test
+		void shouldRejectNameInList() throws IOException {
+			NBTWriter writer = new NBTWriter(new NBTBufferOutput()).beginList(TagType.INT, 1);
+			assertThrows(IllegalStateException.class, () -> writer.name("a"));
+		}
+		
+		@Test
+		void shouldRejectWrongElementType() throws IOException {
+			NBTWriter writer = new NBTWriter(new NBTBufferOutput()).beginList(TagType.INT, 1);
+			assertThrows(IllegalStateException.class, () -> writer.value(1L));
+		}
+		
+		@Test
+		void shouldRejectWrongListSize() throws IOException {
+			NBTWriter writer = new NBTWriter(new NBTBufferOutput()).beginList(TagType.INT, 2).value(1);
+			assertThrows(IllegalStateException.class, () -> writer.endList());
+			writer.value(2);
+			assertThrows(IllegalStateException.class, () -> writer.value(3));
+		}
+	}
+}
@@ -0,0 +1,123 @@
+/*
+MIT License
+
+Copyright (c) 2017 MrYurihi Redstone
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package com.github.mryurihi.tbnbt.tag;
+
+import static com.github.mryurihi.tbnbt.TestFixtures.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import com.github.mryurihi.tbnbt.stream.NBTBufferInput;
+import com.github.mryurihi.tbnbt.stream.NBTBufferOutput;
+
+class LazyNBTTagCompoundTest {
+	
+	private static LazyNBTTagCompound readSample() throws IOException {
+		NBTBufferOutput out = new NBTBufferOutput();
+		out.writeTag(chunk(), "");
+		return (LazyNBTTagCompound) new NBTBufferInput(out.getBuffer()).readLazyTag();
+	}
+	
+	@Nested
+	class testGet {
+		
+		@Test
+		void shouldOnlyDecodeAccessedChildren() throws IOException {
+			LazyNBTTagCompound tag = readSample();
+			assertEquals(3, tag.getPendingCount());
+			assertEquals(new NBTTagInt(1631), tag.get("DataVersion"));
+			assertEquals(2, tag.getPendingCount());
+			assertTrue(tag.containsKey("Level"));
+			assertNull(tag.get("Missing"));
+		}
+		
+		@Test
+		void shouldReadNestedCompoundsLazily() throws IOException {
+			LazyNBTTagCompound level = (LazyNBTTagCompound) readSample().get("Level");
+			assertEquals(2, level.getPendingCount());
+			NBTTagCompound section = level.get("Sections").getAsTagList().get(0).getAsTagCompound();
+			assertTrue(section instanceof LazyNBTTagCompound);
+			assertEquals(new NBTTagInt(0), section.get("Y"));
+		}
+	}
+	
+	@Nested
+	class testWritePayloadBytes {
+		
+		@Test
+		void shouldWriteUntouchedAndChangedChildren() throws IOException {
+			LazyNBTTagCompound tag = readSample();
+			tag.get("Level").getAsTagCompound().put("xPos", new NBTTagInt(8));
+			NBTBufferOutput out = new NBTBufferOutput();
+			out.writeTag(tag, "");
+			NBTTagCompound expected = chunk();
+			expected.get("Level").getAsTagCompound().put("xPos", new NBTTagInt(8));
+			assertEquals(expected, new NBTBufferInput(out.getBuffer()).readTag());
+		}
+	}
+	
+	@Nested
+	class testReadPayloadBytes {
+		
+		@Test
+		void shouldReadFromAnyInput() throws IOException {
+			ByteArrayOutputStream bout = new ByteArrayOutputStream();
+			chunk().writePayloadBytes(new DataOutputStream(bout));
+			LazyNBTTagCompound eager = new LazyNBTTagCompound();
+			assertSame(eager, eager.readPayloadBytes(new DataInputStream(new ByteArrayInputStream(bout.toByteArray()))));
+			assertEquals(0, eager.getPendingCount());
+			assertEquals(chunk(), eager);
+			ByteArrayOutputStream written = new ByteArrayOutputStream();
+			eager.writePayloadBytes(new DataOutputStream(written));
+			assertArrayEquals(bout.toByteArray(), written.toByteArray());
+		}
+		
+		@Test
+		void shouldRecordOffsetsFromBuffer() throws IOException {
+			ByteArrayOutputStream bout = new ByteArrayOutputStream();
+			chunk().writePayloadBytes(new DataOutputStream(bout));
+			LazyNBTTagCompound lazy = new LazyNBTTagCompound();
+			lazy.readPayloadBytes(new NBTBufferInput(bout.toByteArray()));
+			assertEquals(3, lazy.getPendingCount());
+			assertEquals(chunk(), lazy);
+		}
+	}
+	
+	@Nested
+	class testEqualsTag {
+		
+		@Test
+		void shouldEqualEagerCompound() throws IOException {
+			assertEquals(chunk(), readSample());
+			assertEquals(readSample(), chunk());
+		}
+	}
+}
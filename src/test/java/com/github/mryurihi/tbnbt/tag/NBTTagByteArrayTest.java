@@ -30,6 +30,7 @@ import java.io.ByteArrayOutputStream;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
@@ -115,6 +116,24 @@ class NBTTagByteArrayTest {
 			NBTTagByte tag2 = new NBTTagByte((byte) 4);
 			assertFalse(tag.equalsTag(tag2));
 		}
+		
+		@Test
+		void shouldCompareViewsWithoutDetaching() {
+			ByteBuffer buffer = ByteBuffer.allocateDirect(3).put(new byte[] {
+				2, 3, 5
+			});
+			buffer.flip();
+			NBTTagByteArray tag = NBTTagByteArray.view(buffer);
+			NBTTagByteArray tag2 = new NBTTagByteArray(new byte[] {
+				2, 3, 5
+			});
+			assertTrue(tag.equalsTag(tag2));
+			assertTrue(tag2.equalsTag(tag));
+			assertFalse(tag.equalsTag(new NBTTagByteArray(new byte[] {
+				2, 3, 6
+			})));
+			assertTrue(tag.isView());
+		}
 	}
 	
 	@Nested
@@ -126,6 +145,17 @@ class NBTTagByteArrayTest {
 			});
 			assertEquals("[B;1, 2, 3, 4]", tag.toString());
 		}
+		
+		@Test
+		void shouldPrintViewWithoutDetaching() {
+			ByteBuffer buffer = ByteBuffer.wrap(new byte[] {
+				9, 1, -2, 3
+			});
+			buffer.position(1);
+			NBTTagByteArray tag = NBTTagByteArray.view(buffer);
+			assertEquals("[B;1, -2, 3]", tag.toString());
+			assertTrue(tag.isView());
+		}
 	}
 	
 }